@@ -0,0 +1,52 @@
+package de.embl.cba.spindle3d;
+
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the full morphometry of a {@link SpindlePhantom}.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 2 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class MorphometryBenchmark
+{
+	@Param( { "1", "4" } )
+	public int numThreads;
+
+	@Param( { "50" } )
+	public double imageWidth; // um
+
+	private SpindlePhantom phantom;
+	private RandomAccessibleInterval< UnsignedShortType > image;
+
+	@Setup( Level.Trial )
+	public void setup()
+	{
+		phantom = new SpindlePhantom();
+		phantom.imageSize[ 0 ] = imageWidth;
+		phantom.imageSize[ 1 ] = imageWidth;
+		image = phantom.create();
+
+		final String log = run();
+		if ( ! log.contains( Spindle3DMeasurements.ANALYSIS_FINISHED ) )
+			throw new IllegalStateException( "Analysis of the phantom failed:\n" + log );
+	}
+
+	@Benchmark
+	public String run()
+	{
+		final Spindle3DSettings< UnsignedShortType > settings = phantom.createSettings();
+		settings.numThreads = numThreads;
+		try ( Spindle3DMorphometry< UnsignedShortType > morphometry = new Spindle3DMorphometry<>( settings, null ) )
+		{
+			return morphometry.run( image );
+		}
+	}
+}
@@ -0,0 +1,253 @@
+package de.embl.cba.spindle3d;
+
+import de.embl.cba.spindle3d.ellipsoids.EllipsoidVectors;
+import de.embl.cba.spindle3d.ellipsoids.Ellipsoids3DImageSuite;
+import de.embl.cba.spindle3d.ellipsoids.EllipsoidsMoments;
+import de.embl.cba.spindle3d.util.BinaryMorphology;
+import de.embl.cba.spindle3d.util.ConnectedRegions;
+import de.embl.cba.spindle3d.util.DistanceTransform;
+import de.embl.cba.spindle3d.util.IntensityStatistics;
+import de.embl.cba.spindle3d.util.Parallel;
+import de.embl.cba.spindle3d.util.Projection;
+import de.embl.cba.spindle3d.util.Resampler;
+import de.embl.cba.spindle3d.util.RunLengthMask;
+import de.embl.cba.spindle3d.util.SurfaceArea;
+import de.embl.cba.spindle3d.util.Utils;
+import net.imagej.ops.OpService;
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.labeling.ConnectedComponents;
+import net.imglib2.algorithm.morphology.Opening;
+import net.imglib2.algorithm.neighborhood.HyperSphereShape;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+import org.openjdk.jmh.annotations.*;
+import org.scijava.Context;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the individual stages of the morphometry on the
+ * intermediate results of one full run on a {@link SpindlePhantom}.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class MorphometryStageBenchmarks
+{
+	@Param( { "1", "4" } )
+	public int numThreads;
+
+	private Context context;
+	private ExecutorService executorService;
+	private Spindle3DMorphometry< UnsignedShortType > morphometry;
+	private RandomAccessibleInterval< UnsignedShortType > tubulinVolume;
+	private double[] scalingFactors;
+	private RandomAccessibleInterval< BitType > dnaThresholdMask;
+	private RandomAccessibleInterval< BitType > projectedSpindleMask;
+
+	@Setup( Level.Trial )
+	public void setup()
+	{
+		context = new Context( OpService.class );
+		executorService = Parallel.createExecutorService( numThreads );
+
+		final SpindlePhantom phantom = new SpindlePhantom();
+		final Spindle3DSettings< UnsignedShortType > settings = phantom.createSettings();
+		settings.numThreads = numThreads;
+		final RandomAccessibleInterval< UnsignedShortType > image = phantom.create();
+
+		morphometry = new Spindle3DMorphometry<>( settings, null );
+		final String log = morphometry.run( image );
+		morphometry.close();
+		if ( ! log.contains( Spindle3DMeasurements.ANALYSIS_FINISHED ) )
+			throw new IllegalStateException( "Analysis of the phantom failed:\n" + log );
+
+		tubulinVolume = Views.hyperSlice( image, 2, SpindlePhantom.TUBULIN_CHANNEL );
+		scalingFactors = Utils.getScalingFactors( settings.inputVoxelSize, settings.voxelSizeForAnalysis );
+		dnaThresholdMask = Utils.createFilledMask( morphometry.getDna(), 1000, executorService );
+		projectedSpindleMask = new Projection<>( morphometry.getSpindleAlignedSpindleMask(), 2 ).maximum();
+	}
+
+	@TearDown( Level.Trial )
+	public void tearDown()
+	{
+		executorService.shutdown();
+		context.dispose();
+	}
+
+	@Benchmark
+	public RandomAccessibleInterval< UnsignedShortType > rescaleByBlurringAndInterpolation()
+	{
+		return Utils.createRescaledArrayImg( tubulinVolume, scalingFactors, executorService );
+	}
+
+	@Benchmark
+	public RandomAccessibleInterval< UnsignedShortType > rescaleWithResampler()
+	{
+		return Resampler.createRescaledArrayImg( tubulinVolume, scalingFactors, executorService );
+	}
+
+	@Benchmark
+	public RandomAccessibleInterval< UnsignedShortType > transformImage()
+	{
+		return Spindle3DMorphometry.transformImage(
+				morphometry.getRescaledToDnaAlignmentTransform(),
+				morphometry.getTubulin(),
+				morphometry.getDnaAlignedTubulin() );
+	}
+
+	@Benchmark
+	public RandomAccessibleInterval< BitType > thresholdAndFillHolesWithOps()
+	{
+		return context.getService( OpService.class ).morphology().fillHoles( Views.zeroMin( Utils.createMask( morphometry.getDna(), 1000 ) ) );
+	}
+
+	@Benchmark
+	public RandomAccessibleInterval< BitType > thresholdAndFillHoles()
+	{
+		return Utils.createFilledMask( morphometry.getDna(), 1000, executorService );
+	}
+
+	/**
+	 * Includes the copy of the mask, because the regions are removed in place.
+	 */
+	@Benchmark
+	public RandomAccessibleInterval< BitType > keepLargestRegion()
+	{
+		final RandomAccessibleInterval< BitType > mask = Utils.copyAsArrayImg( dnaThresholdMask );
+		Utils.removeRegionsTouchingImageBorders( mask, 2 );
+		Utils.onlyKeepLargestRegion( mask, ConnectedComponents.StructuringElement.EIGHT_CONNECTED );
+		return mask;
+	}
+
+	@Benchmark
+	public RandomAccessibleInterval< BitType > keepLargestRegionWithConnectedRegions()
+	{
+		final ConnectedRegions connectedRegions =
+				new ConnectedRegions( dnaThresholdMask, ConnectedComponents.StructuringElement.EIGHT_CONNECTED );
+		return connectedRegions.createMask( ConnectedRegions.getLargestRegion(
+				connectedRegions.getRegions( region -> ! region.isTouchingBorder( 2 ) ) ) );
+	}
+
+	@Benchmark
+	public RandomAccessibleInterval< UnsignedShortType > blurFullVolume()
+	{
+		return Utils.createBlurredRai( morphometry.getDnaAlignedTubulin(), 0.75, 0.25, executorService );
+	}
+
+	/**
+	 * The box of one spindle pole, with the default refinement radii.
+	 */
+	@Benchmark
+	public RandomAccessibleInterval< UnsignedShortType > blurPoleBox()
+	{
+		return Utils.createBlurredRai( morphometry.getDnaAlignedTubulin(), new FinalInterval( new long[]{ -8, -8, -4 }, new long[]{ 7, 7, 3 } ), 0.75, 0.25, executorService );
+	}
+
+	@Benchmark
+	public double measureSpindleThreshold()
+	{
+		return morphometry.measureSpindleThreshold( morphometry.getDnaAlignedTubulin(), morphometry.getDnaAlignedDnaMask() );
+	}
+
+	@Benchmark
+	public RandomAccessibleInterval< BitType > projectionMaximum()
+	{
+		return new Projection<>( morphometry.getSpindleAlignedSpindleMask(), 2, executorService ).maximum();
+	}
+
+	@Benchmark
+	public RandomAccessibleInterval< BitType > openWithImglib2()
+	{
+		final RandomAccessibleInterval< BitType > opened =
+				Views.translate( ArrayImgs.bits( Intervals.dimensionsAsLongArray( projectedSpindleMask ) ), Intervals.minAsLongArray( projectedSpindleMask ) );
+		Opening.open( Views.extendZero( projectedSpindleMask ), Views.iterable( opened ), new HyperSphereShape( 2 ), numThreads );
+		return opened;
+	}
+
+	@Benchmark
+	public RandomAccessibleInterval< BitType > openWordParallel()
+	{
+		return BinaryMorphology.open( projectedSpindleMask, 2, executorService );
+	}
+
+	@Benchmark
+	public RandomAccessibleInterval< BitType > openSpindleMaskWordParallel()
+	{
+		return BinaryMorphology.open( morphometry.getSpindleAlignedSpindleMask(), 10, executorService );
+	}
+
+	@Benchmark
+	public RandomAccessibleInterval< BitType > dilateDnaMaskWordParallel()
+	{
+		return BinaryMorphology.dilate( morphometry.getDnaAlignedDnaMask(), 8, executorService );
+	}
+
+	@Benchmark
+	public RandomAccessibleInterval< BitType > dilateDnaMaskWithDistanceTransform()
+	{
+		return DistanceTransform.dilate( morphometry.getDnaAlignedDnaMask(), 8, new double[]{ 1, 1, 1 }, executorService );
+	}
+
+	@Benchmark
+	public double[] measureRadialWidthsInPixels()
+	{
+		return morphometry.measureRadialWidthsInPixels( projectedSpindleMask );
+	}
+
+	@Benchmark
+	public long runLengthEncodeAndCount()
+	{
+		return RunLengthMask.of( dnaThresholdMask ).numForegroundVoxels();
+	}
+
+	@Benchmark
+	public long countDense()
+	{
+		return Utils.measureSizeInPixels( dnaThresholdMask );
+	}
+
+	@Benchmark
+	public double spindleIntensitiesInSeparatePasses()
+	{
+		return Utils.computeCoefficientOfVariation( morphometry.getSpindleAlignedTubulin(), morphometry.getSpindleAlignedSpindleMask(), 0.0 )
+				+ Utils.computeAverage( morphometry.getSpindleAlignedTubulin(), morphometry.getSpindleAlignedSpindleMask() );
+	}
+
+	@Benchmark
+	public List< IntensityStatistics > spindleIntensitiesInOnePass()
+	{
+		return IntensityStatistics.measure(
+				morphometry.getSpindleAlignedTubulin(),
+				Collections.singletonList( morphometry.getSpindleAlignedSpindleMask() ),
+				executorService );
+	}
+
+	@Benchmark
+	public double surfaceArea()
+	{
+		return SurfaceArea.measure( morphometry.getDnaAlignedDnaMask(), new double[]{ 1, 1, 1 }, executorService );
+	}
+
+	@Benchmark
+	public EllipsoidVectors fitEllipsoid()
+	{
+		return Ellipsoids3DImageSuite.fitEllipsoid( Utils.asImagePlus( morphometry.getInitialDnaMask(), "" ) );
+	}
+
+	@Benchmark
+	public EllipsoidVectors fitEllipsoidWithMoments()
+	{
+		return EllipsoidsMoments.fitEllipsoid( morphometry.getInitialDnaMask(), executorService );
+	}
+}
@@ -0,0 +1,100 @@
+package de.embl.cba.spindle3d;
+
+import net.imglib2.Cursor;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.ShortArray;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.util.LinAlgHelpers;
+
+import java.util.Random;
+
+/**
+ * Synthetic two channel (tubulin, DNA) image of a metaphase spindle in a spherical cell.
+ *
+ * The metaphase plate is a disk perpendicular to the spindle axis, the spindle is a
+ * lemon shaped volume, whose radius decreases quadratically towards the poles.
+ * The spindle axis is tilted with respect to the xy-plane.
+ */
+public class SpindlePhantom
+{
+	public static final int TUBULIN_CHANNEL = 0;
+	public static final int DNA_CHANNEL = 1;
+
+	public double[] voxelSize = new double[]{ 0.2, 0.2, 0.5 }; // um
+	public double[] imageSize = new double[]{ 50.0, 50.0, 30.0 }; // um
+	public double[] spindleAxis = new double[]{ 1.0, 0.3, 0.2 };
+	public double cellRadius = 12.0; // um
+	public double spindleHalfLength = 6.0; // um
+	public double spindleRadius = 4.5; // um
+	public double plateRadius = 5.0; // um
+	public double plateHalfThickness = 1.0; // um
+	public double background = 50;
+	public double cytoplasm = 200;
+	public double spindle = 1000;
+	public double dna = 2000;
+	public double noise = 20;
+	public long seed = 42;
+
+	/**
+	 * @return image with dimensions XYCZ, as expected by {@link Spindle3DMorphometry#run}
+	 */
+	public ArrayImg< UnsignedShortType, ShortArray > create()
+	{
+		final long[] dimensions = new long[]{
+				Math.round( imageSize[ 0 ] / voxelSize[ 0 ] ),
+				Math.round( imageSize[ 1 ] / voxelSize[ 1 ] ),
+				2,
+				Math.round( imageSize[ 2 ] / voxelSize[ 2 ] ) };
+
+		final ArrayImg< UnsignedShortType, ShortArray > image = ArrayImgs.unsignedShorts( dimensions );
+
+		final double[] axis = spindleAxis.clone();
+		LinAlgHelpers.normalize( axis );
+
+		final double[] center = new double[ 3 ];
+		for ( int d = 0; d < 3; d++ )
+			center[ d ] = imageSize[ d ] / 2.0;
+
+		final Random random = new Random( seed );
+		final double[] position = new double[ 3 ];
+		final Cursor< UnsignedShortType > cursor = image.localizingCursor();
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			position[ 0 ] = cursor.getLongPosition( 0 ) * voxelSize[ 0 ] - center[ 0 ];
+			position[ 1 ] = cursor.getLongPosition( 1 ) * voxelSize[ 1 ] - center[ 1 ];
+			position[ 2 ] = cursor.getLongPosition( 3 ) * voxelSize[ 2 ] - center[ 2 ];
+
+			final double along = LinAlgHelpers.dot( position, axis );
+			final double lateral = Math.sqrt( Math.max( 0, LinAlgHelpers.squareLength( position ) - along * along ) );
+			final boolean isDna = Math.abs( along ) < plateHalfThickness && lateral < plateRadius;
+
+			final double value;
+			if ( cursor.getIntPosition( 2 ) == DNA_CHANNEL )
+				value = isDna ? dna : background;
+			else if ( isDna )
+				value = cytoplasm;
+			else if ( Math.abs( along ) < spindleHalfLength && lateral < spindleRadius * ( 1.0 - Math.pow( along / spindleHalfLength, 2 ) ) )
+				value = spindle;
+			else if ( LinAlgHelpers.length( position ) < cellRadius )
+				value = cytoplasm;
+			else
+				value = background;
+
+			cursor.get().setReal( Math.max( 0, value + noise * random.nextGaussian() ) );
+		}
+
+		return image;
+	}
+
+	public Spindle3DSettings< UnsignedShortType > createSettings()
+	{
+		final Spindle3DSettings< UnsignedShortType > settings = new Spindle3DSettings<>();
+		settings.version = Spindle3DVersion.VERSION;
+		settings.inputVoxelSize = voxelSize.clone();
+		settings.tubulinChannelIndex = TUBULIN_CHANNEL;
+		settings.dnaChannelIndex = DNA_CHANNEL;
+		return settings;
+	}
+}
@@ -0,0 +1,243 @@
+package de.embl.cba.spindle3d;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import de.embl.cba.spindle3d.util.Parallel;
+import ij.IJ;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Records wall time, CPU time and allocated bytes of the stages of the analysis.
+ *
+ * Starting a stage ends the previous one. CPU time and allocated bytes are summed
+ * over the thread that runs the analysis and the threads of its executor service;
+ * they are -1 if the JVM does not support the respective measurement.
+ * Pool threads that terminate during a stage are not accounted for.
+ */
+public class Spindle3DInstrumentation
+{
+	public static final String STAGE = "Stage";
+	private static final String WALL_TIME = "WallTime_ms";
+	private static final String CPU_TIME = "CpuTime_ms";
+	private static final String ALLOCATED_BYTES = "Allocated_Bytes";
+
+	/**
+	 * The stages of {@link Spindle3DMorphometry#run}, in their order,
+	 * and the creation of the output image in the processors.
+	 */
+	public static final List< String > STAGES = Collections.unmodifiableList( Arrays.asList(
+			"Resampling",
+			"InitialThreshold",
+			"EllipsoidFit",
+			"Alignment",
+			"DnaWidthAndLength",
+			"DnaMask",
+			"SpindleThreshold",
+			"SpindleMask",
+			"SpindlePoles",
+			"SpindleAlignment",
+			"Volumes",
+			"Surface",
+			"Intensities",
+			"Width",
+			"OutputImage" ) );
+
+	private final boolean enabled;
+	private final ExecutorService executorService;
+	private final ThreadMXBean threadMXBean;
+	private final boolean isCpuTimeSupported;
+	private final boolean isAllocationSupported;
+	private final List< StageRecord > stageRecords = new ArrayList<>();
+
+	private StageRecord currentStage;
+	private long startNanos;
+	private Map< Long, long[] > startThreadTimesAndAllocations;
+
+	public static class StageRecord
+	{
+		public String stage;
+		public double wallTimeMillis;
+		public double cpuTimeMillis;
+		public long allocatedBytes;
+	}
+
+	public Spindle3DInstrumentation( boolean enabled, ExecutorService executorService )
+	{
+		this.enabled = enabled;
+		this.executorService = executorService;
+		this.threadMXBean = ManagementFactory.getThreadMXBean();
+		this.isCpuTimeSupported = enabled && enableCpuTime( threadMXBean );
+		this.isAllocationSupported = enabled && enableAllocation( threadMXBean );
+	}
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * Ends the current stage, if any, and starts the given one.
+	 */
+	public void start( String stage )
+	{
+		if ( ! enabled ) return;
+
+		stop();
+
+		currentStage = new StageRecord();
+		currentStage.stage = stage;
+		startThreadTimesAndAllocations = getThreadTimesAndAllocations();
+		startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Ends the current stage, if any.
+	 */
+	public void stop()
+	{
+		if ( ! enabled || currentStage == null ) return;
+
+		currentStage.wallTimeMillis = ( System.nanoTime() - startNanos ) / 1.0E6;
+
+		final Map< Long, long[] > threadTimesAndAllocations = getThreadTimesAndAllocations();
+		long cpuTime = 0;
+		long allocatedBytes = 0;
+		for ( Map.Entry< Long, long[] > entry : threadTimesAndAllocations.entrySet() )
+		{
+			final long[] start = startThreadTimesAndAllocations.getOrDefault( entry.getKey(), new long[ 2 ] );
+			cpuTime += entry.getValue()[ 0 ] - start[ 0 ];
+			allocatedBytes += entry.getValue()[ 1 ] - start[ 1 ];
+		}
+		currentStage.cpuTimeMillis = isCpuTimeSupported ? cpuTime / 1.0E6 : -1;
+		currentStage.allocatedBytes = isAllocationSupported ? allocatedBytes : -1;
+
+		stageRecords.add( currentStage );
+		IJ.log( "Stage " + currentStage.stage + ": " + String.format( "%.1f", currentStage.wallTimeMillis ) + " ms" );
+		currentStage = null;
+	}
+
+	public List< StageRecord > getStageRecords()
+	{
+		return stageRecords;
+	}
+
+	/**
+	 * Adds, for each stage, columns with the wall time, CPU time and allocated bytes.
+	 */
+	public void addMeasurements( HashMap< Integer, Map< String, Object > > objectMeasurements )
+	{
+		for ( StageRecord record : stageRecords )
+		{
+			final String prefix = getMeasurementPrefix( record.stage );
+			Spindle3DMeasurements.addMeasurement( objectMeasurements, 0, prefix + WALL_TIME, record.wallTimeMillis );
+			Spindle3DMeasurements.addMeasurement( objectMeasurements, 0, prefix + CPU_TIME, record.cpuTimeMillis );
+			Spindle3DMeasurements.addMeasurement( objectMeasurements, 0, prefix + ALLOCATED_BYTES, record.allocatedBytes );
+		}
+	}
+
+	/**
+	 * @return the names of the columns that {@link #addMeasurements} adds for the {@link #STAGES}
+	 */
+	public static List< String > getMeasurementNames()
+	{
+		final List< String > names = new ArrayList<>();
+		for ( String stage : STAGES )
+			for ( String measurement : new String[]{ WALL_TIME, CPU_TIME, ALLOCATED_BYTES } )
+				names.add( getMeasurementPrefix( stage ) + measurement );
+		return names;
+	}
+
+	private static String getMeasurementPrefix( String stage )
+	{
+		return STAGE + Spindle3DMeasurements.SEP + stage + Spindle3DMeasurements.SEP;
+	}
+
+	public String toJson()
+	{
+		final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+		return gson.toJson( stageRecords );
+	}
+
+	public void saveJson( File file )
+	{
+		IJ.log( "Saving stage instrumentation:\n" + file );
+
+		try ( Writer writer = new FileWriter( file ) )
+		{
+			writer.write( toJson() );
+		}
+		catch ( IOException e )
+		{
+			e.printStackTrace();
+		}
+	}
+
+	private Map< Long, long[] > getThreadTimesAndAllocations()
+	{
+		final List< Thread > threads = Parallel.getThreads( executorService );
+		threads.add( Thread.currentThread() );
+
+		final Map< Long, long[] > timesAndAllocations = new HashMap<>();
+		for ( Thread thread : threads )
+		{
+			final long id = thread.getId();
+			final long cpuTime = isCpuTimeSupported ? threadMXBean.getThreadCpuTime( id ) : 0;
+			final long allocatedBytes = isAllocationSupported ? ( ( com.sun.management.ThreadMXBean ) threadMXBean ).getThreadAllocatedBytes( id ) : 0;
+
+			// -1: the thread terminated in the meantime
+			if ( cpuTime < 0 || allocatedBytes < 0 ) continue;
+
+			timesAndAllocations.put( id, new long[]{ cpuTime, allocatedBytes } );
+		}
+
+		return timesAndAllocations;
+	}
+
+	private static boolean enableCpuTime( ThreadMXBean threadMXBean )
+	{
+		if ( ! threadMXBean.isThreadCpuTimeSupported() ) return false;
+
+		try
+		{
+			if ( ! threadMXBean.isThreadCpuTimeEnabled() )
+				threadMXBean.setThreadCpuTimeEnabled( true );
+			return true;
+		}
+		catch ( UnsupportedOperationException | SecurityException e )
+		{
+			return false;
+		}
+	}
+
+	private static boolean enableAllocation( ThreadMXBean threadMXBean )
+	{
+		if ( ! ( threadMXBean instanceof com.sun.management.ThreadMXBean ) ) return false;
+
+		final com.sun.management.ThreadMXBean sunThreadMXBean = ( com.sun.management.ThreadMXBean ) threadMXBean;
+		if ( ! sunThreadMXBean.isThreadAllocatedMemorySupported() ) return false;
+
+		try
+		{
+			if ( ! sunThreadMXBean.isThreadAllocatedMemoryEnabled() )
+				sunThreadMXBean.setThreadAllocatedMemoryEnabled( true );
+			return true;
+		}
+		catch ( UnsupportedOperationException | SecurityException e )
+		{
+			return false;
+		}
+	}
+}
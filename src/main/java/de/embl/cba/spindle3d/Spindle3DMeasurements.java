@@ -2,6 +2,7 @@ package de.embl.cba.spindle3d;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import de.embl.cba.spindle3d.util.RunLengthMask;
 import de.embl.cba.spindle3d.util.Utils;
 import ij.IJ;
 import net.imglib2.Cursor;
@@ -60,6 +61,10 @@ public class Spindle3DMeasurements
 	public static final String SPINDLE_WIDTH_AVG = addLengthUnit( "Spindle_Width_Avg" );
 	public static final String SPINDLE_ANGLE_DEGREES = "Spindle_Angle_Degrees";
 
+	public static final String PATH_INPUT_IMAGE = "Path_InputImage";
+	public static final String PATH_OUTPUT_IMAGE = "Path_OutputImage";
+	public static final String COMMENT = "Comment";
+
 	public String version;
 	public Double dnaThreshold = Double.NaN;
 	public Double metaphasePlateLength = Double.NaN;
@@ -79,6 +84,9 @@ public class Spindle3DMeasurements
 	public Double tubulinCellularAverageIntensity = Double.NaN;
 	public Double tubulinCytoplasmAverageIntensity = Double.NaN;
 	public Double spindleWidthAvg = Double.NaN;
+	public Double spindleWidthP10 = Double.NaN;
+	public Double spindleWidthMedian = Double.NaN;
+	public Double spindleWidthP90 = Double.NaN;
 	public Double spindleAspectRatio = Double.NaN;
 	public Double cellVolume = Double.NaN;
 	public Double cellSurface = Double.NaN;
@@ -95,6 +103,27 @@ public class Spindle3DMeasurements
 	{
 		IJ.log( this.toString() );
 
+		addMeasurementsForExport();
+	}
+
+	/**
+	 * @return the names of the exported measurements, including the image paths
+	 * 			that the processors add, in alphabetical order
+	 */
+	public static List< String > getMeasurementNames()
+	{
+		final HashMap< Integer, Map< String, Object > > objectMeasurements = new HashMap<>();
+		new Spindle3DMeasurements( objectMeasurements ).addMeasurementsForExport();
+
+		final List< String > names = new ArrayList<>( objectMeasurements.get( 0 ).keySet() );
+		names.add( PATH_INPUT_IMAGE );
+		names.add( PATH_OUTPUT_IMAGE );
+		Collections.sort( names );
+		return names;
+	}
+
+	private void addMeasurementsForExport()
+	{
 		add( "Version", version );
 
 		add( "DNA_Threshold", dnaThreshold );
@@ -127,6 +156,12 @@ public class Spindle3DMeasurements
 
 		add( SPINDLE_WIDTH_AVG, spindleWidthAvg );
 
+		add( addLengthUnit( "Spindle_Width_P10" ), spindleWidthP10 );
+
+		add( addLengthUnit( "Spindle_Width_Median" ), spindleWidthMedian );
+
+		add( addLengthUnit( "Spindle_Width_P90" ), spindleWidthP90 );
+
 		add( "Spindle_Aspect_Ratio", spindleAspectRatio );
 
 		add( addLengthUnit( "Spindle_Center_To_MetaphasePlate_Center_Distance" ), spindleCenterToMetaphasePlateCenterDistance );
@@ -137,7 +172,7 @@ public class Spindle3DMeasurements
 
 		add( getCellSurfaceMeasurementName(), cellSurface );
 
-		add( "Comment", log );
+		add( COMMENT, log );
 	}
 
 	@NotNull
@@ -146,6 +181,10 @@ public class Spindle3DMeasurements
 		return "Cell_Volume" + SEP + Spindle3DMeasurements.VOLUME_UNIT;
 	}
 
+	/**
+	 * The Crofton estimate of the cell mask surface area ({@link de.embl.cba.spindle3d.util.SurfaceArea}),
+	 * which replaced the larger corrected pixel area of the 3D ImageSuite.
+	 */
 	@NotNull
 	public static String getCellSurfaceMeasurementName()
 	{
@@ -224,6 +263,8 @@ public class Spindle3DMeasurements
 
 	public static long measureSizeInPixels( RandomAccessibleInterval< BitType > mask )
 	{
+		if ( mask instanceof RunLengthMask )
+			return ( ( RunLengthMask ) mask ).numForegroundVoxels();
 
 		final Cursor< BitType > cursor = Views.iterable( mask ).cursor();
 		long size = 0;
@@ -247,12 +288,12 @@ public class Spindle3DMeasurements
 			String delim )
 	{
 
-		final Set< Integer > objectLabelsFirstTimePoint =
-				measurementsTimePointList.get( 0 ).keySet();
-
-		final Set< String > measurementSet =
-				measurementsTimePointList.get( 0 ).get(
-						objectLabelsFirstTimePoint.iterator().next() ).keySet();
+		// collect the names of all time points, because
+		// they may differ, e.g. for images that failed to be analysed
+		final Set< String > measurementSet = new HashSet<>();
+		for ( HashMap< Integer, Map< String, Object > > measurements : measurementsTimePointList )
+			for ( Map< String, Object > measurementsMap : measurements.values() )
+				measurementSet.addAll( measurementsMap.keySet() );
 
 		List< String  > measurementNames = new ArrayList< String >( measurementSet );
 		Collections.sort( measurementNames );
@@ -0,0 +1,221 @@
+package de.embl.cba.spindle3d;
+
+import ij.IJ;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static de.embl.cba.spindle3d.Spindle3DMeasurements.*;
+
+/**
+ * Writes measurements directly to a tab (or, for files ending with .csv, comma)
+ * separated table, with one row per object and time point.
+ *
+ * The columns and values are formatted as in {@link Spindle3DMeasurements#measurementsAsTableRowsStringList},
+ * i.e. Object_Label and Centroid_Time_Frames, followed by the measurements in alphabetical order.
+ * The header is fixed upfront from the known measurement names, see {@link Spindle3DMeasurements#getMeasurementNames}
+ * and {@link Spindle3DInstrumentation#getMeasurementNames}; missing measurements are written as null.
+ *
+ * Rows are appended as soon as they are written, such that the table can be shared by
+ * concurrently processed images, and are not kept in memory. Measurements that are not known upfront
+ * are added as columns at the end; for this, the file is streamed into a copy with the extended header.
+ */
+public class Spindle3DMeasurementsWriter
+{
+	public static final String OBJECT_LABEL = "Object_Label";
+	public static final String TIME_FRAMES = CENTROID + SEP + TIME + SEP + FRAME_UNITS;
+
+	private final File file;
+	private final String delimiter;
+	private final List< String > measurementNames;
+	private boolean isHeaderWritten = false;
+
+	/**
+	 * @param file
+	 * @param withStageMeasurements
+	 * 			whether the header contains the columns of the stage instrumentation
+	 */
+	public Spindle3DMeasurementsWriter( File file, boolean withStageMeasurements )
+	{
+		this.file = file;
+		this.delimiter = file.getName().toLowerCase().endsWith( ".csv" ) ? "," : "\t";
+		this.measurementNames = Spindle3DMeasurements.getMeasurementNames();
+		if ( withStageMeasurements )
+		{
+			measurementNames.addAll( Spindle3DInstrumentation.getMeasurementNames() );
+			Collections.sort( measurementNames );
+		}
+	}
+
+	public Spindle3DMeasurementsWriter( File file )
+	{
+		this( file, false );
+	}
+
+	public File getFile()
+	{
+		return file;
+	}
+
+	/**
+	 * @param objectMeasurements
+	 * @param timePoint
+	 * 			zero-based, e.g. the index of the image in a batch
+	 */
+	public synchronized void write( HashMap< Integer, Map< String, Object > > objectMeasurements, int timePoint )
+	{
+		final List< Map< String, String > > rows = new ArrayList<>();
+		final List< String > newMeasurementNames = new ArrayList<>();
+
+		for ( Map.Entry< Integer, Map< String, Object > > object : objectMeasurements.entrySet() )
+		{
+			final Map< String, String > row = new HashMap<>();
+			row.put( OBJECT_LABEL, format( object.getKey() ) );
+			row.put( TIME_FRAMES, format( timePoint + 1 ) ); // one-based time points
+
+			for ( Map.Entry< String, Object > measurement : object.getValue().entrySet() )
+			{
+				row.put( measurement.getKey(), format( measurement.getValue() ) );
+				if ( ! measurementNames.contains( measurement.getKey() ) && ! newMeasurementNames.contains( measurement.getKey() ) )
+					newMeasurementNames.add( measurement.getKey() );
+			}
+
+			rows.add( row );
+		}
+
+		Collections.sort( newMeasurementNames );
+
+		try
+		{
+			if ( ! isHeaderWritten )
+			{
+				measurementNames.addAll( newMeasurementNames );
+				try ( Writer writer = new BufferedWriter( new FileWriter( file ) ) )
+				{
+					writeCells( writer, getHeader() );
+				}
+				isHeaderWritten = true;
+			}
+			else if ( ! newMeasurementNames.isEmpty() )
+			{
+				measurementNames.addAll( newMeasurementNames );
+				addColumns( newMeasurementNames.size() );
+			}
+
+			try ( Writer writer = new BufferedWriter( new FileWriter( file, true ) ) )
+			{
+				for ( Map< String, String > row : rows )
+					writeRow( writer, row );
+			}
+		}
+		catch ( IOException e )
+		{
+			IJ.log( "Could not write measurements to " + file + ": " + e );
+			e.printStackTrace();
+		}
+	}
+
+	public synchronized void write( List< HashMap< Integer, Map< String, Object > > > timePoints )
+	{
+		for ( int t = 0; t < timePoints.size(); t++ )
+			write( timePoints.get( t ), t );
+	}
+
+	/**
+	 * Copies the file line by line, replacing the header and appending null values
+	 * for the columns that were added at the end of the measurement names.
+	 */
+	private void addColumns( int numColumns ) throws IOException
+	{
+		final File tmp = new File( file.getPath() + ".tmp" );
+
+		final StringBuilder nullCells = new StringBuilder();
+		for ( int i = 0; i < numColumns; i++ )
+			nullCells.append( delimiter ).append( "null" );
+
+		try ( BufferedReader reader = new BufferedReader( new FileReader( file ) );
+			  Writer writer = new BufferedWriter( new FileWriter( tmp ) ) )
+		{
+			reader.readLine(); // the previous header
+			writeCells( writer, getHeader() );
+
+			String line;
+			while ( ( line = reader.readLine() ) != null )
+			{
+				writer.write( line );
+				writer.write( nullCells.toString() );
+				writer.write( "\n" );
+			}
+		}
+
+		Files.move( tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+	}
+
+	private List< String > getHeader()
+	{
+		final List< String > header = new ArrayList<>();
+		header.add( OBJECT_LABEL );
+		header.add( TIME_FRAMES );
+		header.addAll( measurementNames );
+		return header;
+	}
+	private void writeRow( Writer writer, Map< String, String > row ) throws IOException
+	{
+		final List< String > cells = new ArrayList<>();
+		cells.add( row.get( OBJECT_LABEL ) );
+		cells.add( row.get( TIME_FRAMES ) );
+		for ( String name : measurementNames )
+			cells.add( row.getOrDefault( name, "null" ) );
+		writeCells( writer, cells );
+	}
+
+	private void writeCells( Writer writer, List< String > cells ) throws IOException
+	{
+		for ( int i = 0; i < cells.size(); i++ )
+		{
+			if ( i > 0 ) writer.write( delimiter );
+			writer.write( sanitise( cells.get( i ) ) );
+		}
+		writer.write( "\n" );
+	}
+
+	/**
+	 * Numbers are written as doubles, as in the tables that were written via a JTable.
+	 */
+	private static String format( Object value )
+	{
+		if ( value instanceof Number )
+			return Double.toString( ( ( Number ) value ).doubleValue() );
+		else
+			return String.valueOf( value );
+	}
+
+	/**
+	 * Replaces line breaks and, for tab separated tables, tabs by spaces;
+	 * quotes cells of comma separated tables that contain commas or quotes.
+	 */
+	private String sanitise( String cell )
+	{
+		cell = cell.replace( "\r\n", " " ).replace( '\n', ' ' ).replace( '\r', ' ' );
+
+		if ( delimiter.equals( "\t" ) )
+			return cell.replace( '\t', ' ' );
+
+		if ( cell.contains( delimiter ) || cell.contains( "\"" ) )
+			return "\"" + cell.replace( "\"", "\"\"" ) + "\"";
+
+		return cell;
+	}
+}
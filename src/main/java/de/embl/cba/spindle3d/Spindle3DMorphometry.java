@@ -4,19 +4,13 @@ import bdv.util.AxisOrder;
 import bdv.util.BdvFunctions;
 import bdv.util.BdvOptions;
 import de.embl.cba.spindle3d.ellipsoids.EllipsoidVectors;
-import de.embl.cba.spindle3d.ellipsoids.Ellipsoids3DImageSuite;
+import de.embl.cba.spindle3d.ellipsoids.EllipsoidsMoments;
 import de.embl.cba.spindle3d.util.*;
 import ij.CompositeImage;
 import ij.IJ;
 import ij.ImagePlus;
 import ij.measure.Calibration;
 
-import ij.plugin.Duplicator;
-import mcib3d.geom.Object3D;
-import mcib3d.geom.Object3DVoxels;
-import mcib3d.geom.Objects3DPopulation;
-import mcib3d.image3d.ImageByte;
-import net.imagej.ops.OpService;
 import net.imglib2.*;
 import net.imglib2.RandomAccess;
 import net.imglib2.algorithm.labeling.ConnectedComponents;
@@ -28,17 +22,13 @@ import net.imglib2.img.array.*;
 import net.imglib2.img.display.imagej.ImageJFunctions;
 import net.imglib2.interpolation.randomaccess.ClampingNLinearInterpolatorFactory;
 import net.imglib2.interpolation.randomaccess.NearestNeighborInterpolatorFactory;
-import net.imglib2.realtransform.AffineTransform2D;
 import net.imglib2.realtransform.AffineTransform3D;
-import net.imglib2.realtransform.RealViews;
-import net.imglib2.roi.labeling.ImgLabeling;
-import net.imglib2.roi.labeling.LabelRegion;
+import net.imglib2.realtransform.Scale;
 import net.imglib2.type.NativeType;
 import net.imglib2.type.Type;
 import net.imglib2.type.logic.BitType;
 import net.imglib2.type.numeric.NumericType;
 import net.imglib2.type.numeric.RealType;
-import net.imglib2.type.numeric.integer.IntType;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
 import net.imglib2.type.numeric.integer.UnsignedShortType;
 import net.imglib2.util.Intervals;
@@ -50,16 +40,20 @@ import net.imglib2.view.Views;
 import org.jetbrains.annotations.NotNull;
 import org.scijava.script.ScriptService;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static de.embl.cba.spindle3d.util.BdvViewer.show;
 import static de.embl.cba.spindle3d.util.Utils.*;
 
-public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
+public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > > implements AutoCloseable
 {
 	private final Spindle3DSettings< R > settings;
 
-	private final OpService opService;
 	private final ScriptService scriptService;
+	private final ExecutorService executorService;
+	private final Spindle3DInstrumentation instrumentation;
 
 	private HashMap< Integer, Map< String, Object > > objectMeasurements;
 	private AffineTransform3D rescaledToDnaAlignmentTransform;
@@ -68,7 +62,6 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 	private RandomAccessibleInterval< R > tubulin;
 	private RandomAccessibleInterval< R > dnaAlignedDna;
 	private RandomAccessibleInterval< R > dnaAlignedTubulin;
-	private RandomAccessibleInterval< R > spindleAlignedDna;
 	private RandomAccessibleInterval< R > spindleAlignedTublin;
 
 	private RandomAccessibleInterval< BitType > dnaAlignedInitialDnaMask;
@@ -93,11 +86,12 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 	private ArrayList< double[] > spindleAlignedSpindlePoles;
 	private double[] scalingFactorsRawToRescaled;
 
-	public Spindle3DMorphometry( Spindle3DSettings settings, OpService opService, ScriptService scriptService )
+	public Spindle3DMorphometry( Spindle3DSettings settings, ScriptService scriptService )
 	{
 		this.settings = settings;
-		this.opService = opService;
 		this.scriptService = scriptService;
+		this.executorService = Parallel.createExecutorService( settings.numThreads );
+		this.instrumentation = new Spindle3DInstrumentation( settings.instrumentStages, executorService );
 	}
 
 	public String run( RandomAccessibleInterval<R> raiXYCZ )
@@ -118,18 +112,78 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 		{
 			e.printStackTrace();
 			measurements.log += "Exception during computation: \n" + e;
+			instrumentation.stop();
 		}
 
 		measurements.setMeasurementsForExport();
+		instrumentation.addMeasurements( objectMeasurements );
 
 		return measurements.log;
 	}
 
+	/**
+	 * Shuts down the threads of the analysis, after {@link #run} and {@link #createOutputImage}.
+	 */
+	@Override
+	public void close()
+	{
+		executorService.shutdown();
+	}
+
 	public HashMap< Integer, Map< String, Object > > getObjectMeasurements()
 	{
 		return objectMeasurements;
 	}
 
+	public Spindle3DInstrumentation getInstrumentation()
+	{
+		return instrumentation;
+	}
+
+	/*
+	 * Intermediate results, e.g. for benchmarking individual stages
+	 */
+
+	RandomAccessibleInterval< R > getDna()
+	{
+		return dna;
+	}
+
+	RandomAccessibleInterval< R > getTubulin()
+	{
+		return tubulin;
+	}
+
+	RandomAccessibleInterval< BitType > getInitialDnaMask()
+	{
+		return initialDnaMask;
+	}
+
+	AffineTransform3D getRescaledToDnaAlignmentTransform()
+	{
+		return rescaledToDnaAlignmentTransform;
+	}
+
+	RandomAccessibleInterval< R > getDnaAlignedTubulin()
+	{
+		return dnaAlignedTubulin;
+	}
+
+	RandomAccessibleInterval< BitType > getDnaAlignedDnaMask()
+	{
+		return dnaAlignedDnaMask;
+	}
+
+	RandomAccessibleInterval< BitType > getSpindleAlignedSpindleMask()
+	{
+		return spindleAlignedSpindleMask;
+	}
+
+	RandomAccessibleInterval< R > getSpindleAlignedTubulin()
+	{
+		return spindleAlignedTublin;
+	}
+
 	public CompositeImage createOutputImage( double imageWidthInMicrometer, double interestPointsRadiusMicrometer )
 	{
 		final AffineTransform3D rescaledInputToSpindleAlignedTransform =
@@ -152,7 +206,7 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 				spindleAlignedDnaMask,
 				spindleAlignedSpindleMask,
 				rescaledInputToSpindleAlignedTransform,
-				createInterestPointImage( spindleAlignedSpindlePoles, spindleAlignedDna, interestPointsRadiusMicrometer ),
+				createInterestPointImage( spindleAlignedSpindlePoles, crop, interestPointsRadiusMicrometer ),
 				crop );
 
 		if ( settings.showIntermediateImages )
@@ -173,12 +227,14 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 		if ( compositeImage.getBitDepth() == 16 )
 			contrastLimit = 65535;
 
-		final int numChannels = rescaledVolumes.size();
+		final List< Integer > outputChannels = getOutputChannels();
+		final int numChannels = outputChannels.size();
 
 		// Color channels
-		for ( int c = 0; c < numChannels; c++ )
+		for ( int i = 0; i < numChannels; i++ )
 		{
-			compositeImage.setC( c + 1 );
+			final int c = outputChannels.get( i );
+			compositeImage.setC( i + 1 );
 			if ( c == ( int ) settings.dnaChannelIndex )
 				IJ.run( compositeImage, "Blue", "" );
 			else if ( c == ( int ) settings.tubulinChannelIndex )
@@ -208,6 +264,17 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 		return compositeImage;
 	}
 
+	private List< Integer > getOutputChannels()
+	{
+		final List< Integer > channels = new ArrayList<>();
+		for ( int c = 0; c < rescaledVolumes.size(); c++ )
+		{
+			if ( settings.skipExtraChannels && rescaledVolumes.get( c ) == null ) continue;
+			channels.add( c );
+		}
+		return channels;
+	}
+
 	@NotNull
 	private Calibration getCalibration( double voxelSize )
 	{
@@ -223,18 +290,28 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 	{
 		measurements.version = settings.version;
 
+		instrumentation.start( "Resampling" );
+
 		createCellMask();
 
 		createIsotropicallyResampledImages();
 
+		instrumentation.start( "InitialThreshold" );
+
 		final double initialThreshold = measureInitialThreshold( "DNA", this.dna, cellMask, settings.voxelSizeForInitialDNAThreshold );
 		createInitialDnaMask( dna, initialThreshold );
 
+		instrumentation.start( "EllipsoidFit" );
+
 		EllipsoidVectors dnaEllipsoidVectors = fitEllipsoid( initialDnaMask );
 
+		instrumentation.start( "Alignment" );
+
 		rescaledToDnaAlignmentTransform = createShortestAxisAlignmentTransform( dnaEllipsoidVectors.center, dnaEllipsoidVectors.shortestAxis.getArray() );
 
-		transformImages( rescaledToDnaAlignmentTransform );
+		transformImages( rescaledToDnaAlignmentTransform, 2 * dnaEllipsoidVectors.longestAxisLength );
+
+		instrumentation.start( "DnaWidthAndLength" );
 
 		measureDnaWidth( dnaAlignedDna, 2 * dnaEllipsoidVectors.longestAxisLength, 2 * dnaEllipsoidVectors.shortestAxisLength );
 
@@ -242,22 +319,33 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 
 		measureChromatinDilation( dnaLateralProfileAndRadius );
 
+		instrumentation.start( "DnaMask" );
+
 		measureDnaThreshold();
 
 		createDnaMaskAndMeasureDnaVolume( dnaAlignedDna, measurements.dnaThreshold );
 
+		instrumentation.start( "SpindleThreshold" );
+
 		measurements.spindleThreshold = measureSpindleThreshold( dnaAlignedTubulin, dnaAlignedDnaMask );
 
+		instrumentation.start( "SpindleMask" );
+
 		dnaAlignedSpindleMask = createSpindleMask( dnaAlignedTubulin, measurements.spindleThreshold );
 
 		if ( settings.smoothSpindle )
-			openFast( dnaAlignedSpindleMask );
+			dnaAlignedSpindleMask = BinaryMorphology.open(
+					dnaAlignedSpindleMask,
+					(int) Math.round( settings.spindleSmoothingRadius / settings.voxelSizeForAnalysis ),
+					executorService );
 
 		if ( settings.showIntermediateImages )
 			show( dnaAlignedSpindleMask,
 					"spindle volume mask", null,
 					voxelSizesForAnalysis, false );
 
+		instrumentation.start( "SpindlePoles" );
+
 		dnaAlignedSpindlePoles = measureSpindlePoleLocations( dnaAlignedSpindleMask, dnaAlignedTubulin );
 
 		dnaAlignedSpindlePoleToPoleVector = de.embl.cba.spindle3d.util.Vectors.vector( dnaAlignedSpindlePoles.get( 0 ), dnaAlignedSpindlePoles.get( 1 ) );
@@ -266,27 +354,29 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 
 		measureDnaCenterToSpindleCenterDistance( dnaAlignedSpindleCenter );
 
+		instrumentation.start( "SpindleAlignment" );
+
 		dnaAlignedToSpindleAlignedTransform = createSpindlePolesTransformAndAlignImages( dnaAlignedSpindlePoles, dnaAlignedSpindleCenter );
 
+		instrumentation.start( "Volumes" );
+
 		measurements.spindleVolume = measureVolume( spindleAlignedSpindleMask );
 
 
 		if ( spindleAlignedCellMask != null )
 		{
 			measurements.cellVolume = measureVolume( spindleAlignedCellMask );
+
+			instrumentation.start( "Surface" );
+
 			measurements.cellSurface = measureSurface( cellMask, getCalibration( settings.voxelSizeForAnalysis ) );
 		}
 
-		measurements.tubulinSpindleIntensityVariation
-				= computeCoefficientOfVariation(
-						spindleAlignedTublin,
-						spindleAlignedSpindleMask,
-						measurements.spindleThreshold
-				);
+		instrumentation.start( "Intensities" );
 
-		if ( spindleAlignedCellMask != null) measurements.tubulinCellularAverageIntensity = computeAverage( spindleAlignedTublin, spindleAlignedCellMask );
+		measureTubulinIntensities();
 
-		measurements.tubulinSpindleAverageIntensity = computeAverage( spindleAlignedTublin, spindleAlignedSpindleMask );
+		instrumentation.start( "Width" );
 
 		measureSpindleWidth( spindleAlignedSpindleMask );
 
@@ -294,6 +384,8 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 
 		measureSpindleAxisToCoverslipPlaneAngle( dnaAlignedSpindlePoles );
 
+		instrumentation.stop();
+
 		return Spindle3DMeasurements.ANALYSIS_FINISHED;
 	}
 
@@ -306,24 +398,8 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 	 */
 	private double measureSurface( RandomAccessibleInterval< BitType > mask, Calibration calibration )
 	{
-		final Duplicator duplicator = new Duplicator();
-		// force into RAM
-		ImagePlus imagePlus = duplicator.run( asImagePlus( mask, "", calibration ) );
-
-		// MLJ
-		//ImageStack imageStack = imagePlus.getImageStack();
-		//final double[] surfaceAreas = IntrinsicVolumes3D.surfaceAreas( imageStack, new int[]{ 255 }, imagePlus.getCalibration(), 13 );
-
-		// 3D Image Suite (https://github.com/tischi/spindle3d/issues/30)
-		final ImageByte imageByte = new ImageByte( imagePlus );
-		Objects3DPopulation objects3DPopulation = new Objects3DPopulation( imageByte, 0 );
-		final Object3D object = objects3DPopulation.getObject( 0 );
-		//final double areaPixels = object.getAreaPixels();
-		//final double areaUnit = object.getAreaUnit();
-		final double areaPixelsCorrected = ((Object3DVoxels) object).getAreaPixelsCorrected();
-		final double areaUnitCorrected = areaPixelsCorrected * calibration.pixelWidth * calibration.pixelWidth;
-		//final double volumeUnit = object.getVolumeUnit();
-		return areaUnitCorrected;
+		final double[] voxelSize = { calibration.pixelWidth, calibration.pixelHeight, calibration.pixelDepth };
+		return SurfaceArea.measure( mask, voxelSize, executorService );
 	}
 
 	private void createCellMask()
@@ -402,10 +478,11 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 		RandomAccessibleInterval< BitType > projectedMask =
 				new Projection<>(
 					alignedSpindleMask,
-					2 ).maximum();
+					2,
+					executorService ).maximum();
 
 		// remove spurious microtubules that may be sticking out
-		projectedMask = open( projectedMask, 2 );
+		projectedMask = BinaryMorphology.open( projectedMask, 2, executorService );
 
 		if ( settings.showIntermediateImages )
 			show( projectedMask,
@@ -414,13 +491,37 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 					voxelSizesForAnalysis,
 					false);
 
-		final ArrayList< Long > widths = measureRadialWidthsInPixels( projectedMask );
+		final double[] widths = measureRadialWidthsInPixels( projectedMask );
 
-		Collections.sort( widths );
+		Arrays.sort( widths );
 
-		measurements.spindleWidthAvg = widths.stream().mapToDouble( x -> x ).summaryStatistics().getAverage() * settings.voxelSizeForAnalysis ;
-		measurements.spindleWidthMin = widths.get( 0 ) * settings.voxelSizeForAnalysis;
-		measurements.spindleWidthMax = widths.get( widths.size() - 1 ) * voxelSizesForAnalysis[ 1 ];
+		measurements.spindleWidthAvg = Arrays.stream( widths ).average().getAsDouble() * settings.voxelSizeForAnalysis ;
+		measurements.spindleWidthMin = widths[ 0 ] * settings.voxelSizeForAnalysis;
+		measurements.spindleWidthMax = widths[ widths.length - 1 ] * voxelSizesForAnalysis[ 1 ];
+		measurements.spindleWidthP10 = ChordWidths.percentile( widths, 10 ) * settings.voxelSizeForAnalysis;
+		measurements.spindleWidthMedian = ChordWidths.percentile( widths, 50 ) * settings.voxelSizeForAnalysis;
+		measurements.spindleWidthP90 = ChordWidths.percentile( widths, 90 ) * settings.voxelSizeForAnalysis;
+	}
+
+	/**
+	 * Computes the statistics within the spindle and cell mask in one traversal,
+	 * such that the interpolated tubulin intensities are only computed once.
+	 */
+	private void measureTubulinIntensities()
+	{
+		final List< RandomAccessibleInterval< BitType > > masks = new ArrayList<>();
+		masks.add( spindleAlignedSpindleMask );
+		if ( spindleAlignedCellMask != null )
+			masks.add( spindleAlignedCellMask );
+
+		final List< IntensityStatistics > statistics = IntensityStatistics.measure( spindleAlignedTublin, masks, executorService );
+
+		final IntensityStatistics spindleStatistics = statistics.get( 0 );
+		measurements.tubulinSpindleIntensityVariation = spindleStatistics.coefficientOfVariation( measurements.spindleThreshold );
+		measurements.tubulinSpindleAverageIntensity = spindleStatistics.mean();
+
+		if ( spindleAlignedCellMask != null )
+			measurements.tubulinCellularAverageIntensity = statistics.get( 1 ).mean();
 	}
 
 	private double measureVolume( RandomAccessibleInterval< BitType > mask )
@@ -430,7 +531,7 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 		return sizeInPixels * scale;
 	}
 
-	private double measureSpindleThreshold(
+	double measureSpindleThreshold(
 			RandomAccessibleInterval< R > dnaAlignedTubulin,
 			RandomAccessibleInterval< BitType > dnaAlignedDnaMask )
 	{
@@ -455,15 +556,22 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 
 		final double maxInsideSpindleDistSquared = Math.pow( dnaLateralHalfWidth - 2.0, 2);
 
-		final ArrayList< Double > cytoplasmicTubulinValues = new ArrayList<>();
-		final ArrayList< Double > spindleTubulinValues = new ArrayList<>();
-		final ArrayList< Double > dnaPeripheryTubulinValues = new ArrayList<>();
-
-		// dilate Dna to create a region within there are bona-fide tubulin intensities
-		RandomAccessibleInterval< BitType > dilateDnaMask = dilate( dnaAlignedDnaMask, 1 );
+		// only the Otsu threshold needs the distribution of the values
+		final IntensityStatistics cytoplasmicTubulin = new IntensityStatistics();
+		final IntensityStatistics spindleTubulin = new IntensityStatistics();
+		final IntensityStatistics dnaPeripheryTubulin = new IntensityStatistics( Util.getTypeFromInterval( dnaAlignedTubulin ) );
+
+		// the DNA periphery, one voxel around the DNA, within which there are bona-fide tubulin intensities:
+		// pixels containing DNA exclude tubulin and thus would lead to a too low threshold,
+		// and pixels further away could be outside the cell
+		final RandomAccessibleInterval< BitType > dnaPeripheryMask = DistanceTransform.band(
+				Views.interval( Views.extendZero( dnaAlignedDnaMask ), dnaEnclosingInterval ),
+				0,
+				settings.voxelSizeForAnalysis,
+				voxelSizesForAnalysis,
+				executorService );
 
-		final RandomAccess< BitType > dnaMaskAccess = dnaAlignedDnaMask.randomAccess();
-		final RandomAccess< BitType > dilateDnaMaskAccess = dilateDnaMask.randomAccess();
+		final RandomAccess< BitType > dnaPeripheryMaskAccess = dnaPeripheryMask.randomAccess();
 
 		final Cursor< R > cursor = Views.iterable( tubulinCrop ).cursor();
 		int[] position = new int[ 3 ];
@@ -473,23 +581,12 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 		{
 			cursor.next();
 
-			if ( dnaMaskAccess.setPositionAndGet( cursor ).get() )
-			{
-				// pixels containing DNA exclude tubulin and thus would
-				// lead to a too low threshold => exclude
-				continue;
-			}
-
-			if ( ! dilateDnaMaskAccess.setPositionAndGet( cursor ).get() )
-			{
-				// pixels that are outside the dilate dna mask
-				// could be outside the cell => exclude
-				continue;
-			}
+			if ( ! dnaPeripheryMaskAccess.setPositionAndGet( cursor ).get() ) continue;
 
 			cursor.localize( position );
 
-			dnaPeripheryTubulinValues.add( cursor.get().getRealDouble()  );
+			final double value = cursor.get().getRealDouble();
+			dnaPeripheryTubulin.add( value );
 
 			// we only compute the lateral distance
 			// that is, the distance to the spindle axis
@@ -501,27 +598,25 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 			{
 				// pixel is close to spindle axis
 				// => add to the spindle values
-				spindleTubulinValues.add( cursor.get().getRealDouble() );
+				spindleTubulin.add( value );
 			}
 			else
 			{
-				cytoplasmicTubulinValues.add( cursor.get().getRealDouble() );
+				cytoplasmicTubulin.add( value );
 			}
 		}
 
-		final double thresholdOtsu = thresholdOtsu( dnaPeripheryTubulinValues );
+		final double thresholdOtsu = dnaPeripheryTubulin.thresholdOtsu();
 
-		final double medianCytoplasm = Utils.median( cytoplasmicTubulinValues );
-		final double madCytoplasm = Utils.mad( cytoplasmicTubulinValues, medianCytoplasm );
-		final double meanCytoplasm = Utils.mean( cytoplasmicTubulinValues );
-		final double sdevCytoplasm = Utils.sdev( cytoplasmicTubulinValues, meanCytoplasm );
-		final double meanSpindle = Utils.mean( spindleTubulinValues );
-		final double sdevSpindle = Utils.sdev( spindleTubulinValues, meanSpindle );
+		final double meanCytoplasm = cytoplasmicTubulin.mean();
+		final double sdevCytoplasm = cytoplasmicTubulin.sdev();
+		final double meanSpindle = spindleTubulin.mean();
+		final double sdevSpindle = spindleTubulin.sdev();
 
-		IJ.log( "Tubulin intensity spindle (mean +/- sdev): " + (int) meanSpindle + " +/- " + (int) sdevSpindle + "; numPixels: " + spindleTubulinValues.size() );
+		IJ.log( "Tubulin intensity spindle (mean +/- sdev): " + (int) meanSpindle + " +/- " + (int) sdevSpindle + "; numPixels: " + spindleTubulin.count() );
 		IJ.log( "Tubulin Otsu threshold: " + thresholdOtsu );
 
-		final double threshold = thresholdOtsu; // medianCytoplasm + 5 * madCytoplasm;
+		final double threshold = thresholdOtsu; // cytoplasmicTubulin.median() + 5 * cytoplasmicTubulin.mad();
 		IJ.log( "Spindle threshold = Tubulin Otsu threshold: " + threshold );
 
 		measurements.tubulinCytoplasmAverageIntensity = meanCytoplasm;
@@ -576,12 +671,19 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 	{
 		dnaAlignedToSpindleAlignedTransform = computeTransform( spindlePoles, spindleCenter );
 
-		spindleAlignedTublin = Utils.createTransformedView( dnaAlignedTubulin, dnaAlignedToSpindleAlignedTransform );
-		spindleAlignedDna = Utils.createTransformedView( dnaAlignedDna, dnaAlignedToSpindleAlignedTransform );
-		spindleAlignedDnaMask = Utils.createTransformedView( dnaAlignedDnaMask, dnaAlignedToSpindleAlignedTransform, new NearestNeighborInterpolatorFactory() );
-		spindleAlignedSpindleMask = Utils.createTransformedView( dnaAlignedSpindleMask, dnaAlignedToSpindleAlignedTransform, new NearestNeighborInterpolatorFactory() );
+		final FinalInterval spindleAlignedRegion = createSpindleAlignedRegion( dnaAlignedToSpindleAlignedTransform );
+
+		IJ.log( "Spindle aligned region: " + Util.printInterval( spindleAlignedRegion ) );
+
+		// the volumes are materialised once, such that the subsequent
+		// measurements do not repeatedly evaluate the transformation
+		spindleAlignedTublin = copyAsArrayImg(
+				Views.interval( Utils.createTransformedView( dnaAlignedTubulin, dnaAlignedToSpindleAlignedTransform ), spindleAlignedRegion ),
+				executorService );
+		spindleAlignedDnaMask = createSpindleAlignedMask( dnaAlignedDnaMask, spindleAlignedRegion );
+		spindleAlignedSpindleMask = createSpindleAlignedMask( dnaAlignedSpindleMask, spindleAlignedRegion );
 		if ( dnaAlignedCellMask != null )
-			spindleAlignedCellMask = Utils.createTransformedView( dnaAlignedCellMask, dnaAlignedToSpindleAlignedTransform, new NearestNeighborInterpolatorFactory() );
+			spindleAlignedCellMask = createSpindleAlignedMask( dnaAlignedCellMask, spindleAlignedRegion );
 
 		spindleAlignedSpindlePoles = new ArrayList<>();
 		for ( int i = 0; i < 2; i++ )
@@ -610,6 +712,40 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 		return dnaAlignedToSpindleAlignedTransform;
 	}
 
+	private RunLengthMask createSpindleAlignedMask( RandomAccessibleInterval< BitType > dnaAlignedMask, FinalInterval spindleAlignedRegion )
+	{
+		final RandomAccessibleInterval< BitType > transformed = Utils.createTransformedView( dnaAlignedMask, dnaAlignedToSpindleAlignedTransform, new NearestNeighborInterpolatorFactory() );
+		return RunLengthMask.of( Views.interval( transformed, spindleAlignedRegion ), executorService );
+	}
+
+	/**
+	 * The bounding interval of the spindle, DNA and cell mask after the transformation,
+	 * expanded by a margin and restricted to the transformed image bounds.
+	 */
+	private FinalInterval createSpindleAlignedRegion( AffineTransform3D transform3D )
+	{
+		final FinalInterval imageBounds = createBoundingIntervalAfterTransformation( dnaAlignedTubulin, transform3D );
+
+		FinalInterval region = null;
+		for ( RandomAccessibleInterval< BitType > mask : Arrays.asList( dnaAlignedSpindleMask, dnaAlignedDnaMask, dnaAlignedCellMask ) )
+		{
+			if ( mask == null ) continue;
+
+			final FinalInterval maskBounds = getForegroundBoundingInterval( mask );
+			if ( maskBounds == null ) continue;
+
+			final FinalInterval transformedMaskBounds = createBoundingIntervalAfterTransformation( maskBounds, transform3D );
+			region = region == null ? transformedMaskBounds : Intervals.union( region, transformedMaskBounds );
+		}
+
+		if ( region == null ) return imageBounds;
+
+		final long margin = (long) Math.ceil( settings.spindleAlignedRegionMargin / settings.voxelSizeForAnalysis );
+		final FinalInterval intersection = Intervals.intersect( Intervals.expand( region, margin ), imageBounds );
+
+		return Intervals.isEmpty( intersection ) ? imageBounds : intersection;
+	}
+
 	private double[] transformed( double[] location, AffineTransform3D affineTransform3D )
 	{
 		final double[] transformed = new double[ 3 ];
@@ -647,29 +783,13 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 		return spindleCenterVoxelUnits;
 	}
 
-	private ArrayList< Long > measureRadialWidthsInPixels( RandomAccessibleInterval< BitType > mask )
+	/**
+	 * @return the lengths of the chords of the mask through the spindle axis, for angles in [ 0, 180 ) degrees
+	 */
+	double[] measureRadialWidthsInPixels( RandomAccessibleInterval< BitType > mask )
 	{
-		RealRandomAccessible< BitType > rra =
-				Views.interpolate(
-						Views.extendZero( mask ), new NearestNeighborInterpolatorFactory<>() );
-
-		double dAngle = Math.PI / 18; // = 10 degrees
-
-		final ArrayList< Long > widthAtAngles = new ArrayList<>();
-
-		for ( double angle = 0; angle < Math.PI; angle += dAngle )
-		{
-			final AffineTransform2D transform2D = new AffineTransform2D();
-			transform2D.rotate( angle );
-
-			IntervalView< BitType > rotated =
-					Views.interval(
-							Views.raster(
-									RealViews.transform( rra, transform2D ) ), mask );
-
-			widthAtAngles.add( Utils.countNonZeroPixelsAlongAxis( rotated, 0 ) );
-		}
-		return widthAtAngles;
+		final int numAngles = Math.max( 1, (int) Math.round( 180.0 / settings.spindleWidthAngularStep ) );
+		return new ChordWidths( mask ).widths( numAngles );
 	}
 
 	private void measureSpindleAxisToCoverslipPlaneAngle( ArrayList< double[] > dnaAlignedSpindlePoles )
@@ -704,14 +824,24 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 
 		scalingFactorsRawToRescaled = Utils.getScalingFactors( settings.inputVoxelSize, settings.voxelSizeForAnalysis );
 
+		// the other channels are only needed for the output image,
+		// where they are rescaled on demand, see getRescaledVolume()
 		for ( int c = 0; c < numChannels; c++ )
 		{
-			final IntervalView< R > volume = Views.hyperSlice( raiXYCZ, 2, c );
-			final RandomAccessibleInterval< R > rescaledVolume =
-					Utils.createRescaledArrayImg(
-							volume,
-							scalingFactorsRawToRescaled );
-			rescaledVolumes.add( rescaledVolume );
+			if ( c == settings.dnaChannelIndex || c == settings.tubulinChannelIndex )
+			{
+				final IntervalView< R > volume = Views.hyperSlice( raiXYCZ, 2, c );
+				final RandomAccessibleInterval< R > rescaledVolume =
+						Resampler.createRescaledArrayImg(
+								volume,
+								scalingFactorsRawToRescaled,
+								executorService );
+				rescaledVolumes.add( rescaledVolume );
+			}
+			else
+			{
+				rescaledVolumes.add( null );
+			}
 		}
 
 		dna = rescaledVolumes.get( ( int ) settings.dnaChannelIndex );
@@ -719,7 +849,7 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 
 		if ( cellMask != null )
 		{
-			cellMask = createRescaledArrayImg( cellMask, scalingFactorsRawToRescaled );
+			cellMask = RunLengthMask.of( Resampler.createRescaledArrayImg( cellMask, scalingFactorsRawToRescaled, executorService ) );
 		}
 
 		if ( settings.showIntermediateImages )
@@ -739,11 +869,11 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 						settings.voxelSizeForAnalysis },
 						voxelSizeForInitialThreshold );
 
-		final RandomAccessibleInterval< R > downscaled = createRescaledArrayImg( rai, scalingFactors );
+		final RandomAccessibleInterval< R > downscaled = Resampler.createRescaledArrayImg( rai, scalingFactors, executorService );
 
 		if ( mask != null )
 		{
-			mask = Utils.createRescaledArrayImg( mask, scalingFactors );
+			mask = Resampler.createRescaledArrayImg( mask, scalingFactors, executorService );
 			//Viewers.showRai3dWithImageJ( mask, "DNA Threshold Mask" );
 			//Viewers.showRai3dWithImageJ( downscaled, "DNA Threshold" );
 		}
@@ -774,23 +904,41 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 
 	private void createInitialDnaMask( RandomAccessibleInterval< R > dna, double dnaThreshold )
 	{
-		RandomAccessibleInterval< BitType > dnaMask = createMask( dna, dnaThreshold, opService );
-		final int numRemainingRegions = removeRegionsTouchingImageBorders( dnaMask, 2 );
-
-		if ( numRemainingRegions == 0 )
-		{
-			throwMeasurementError( "All initial DNA regions were touching the image border!" );
-			return;
-		}
-
-		Utils.onlyKeepLargestRegion( dnaMask, ConnectedComponents.StructuringElement.EIGHT_CONNECTED );
+		final RandomAccessibleInterval< BitType > dnaMask = createLargestRegionNotTouchingBorderMask(
+				createFilledMask( dna, dnaThreshold, executorService ),
+				2,
+				"All initial DNA regions were touching the image border!" );
 
 		if ( settings.showIntermediateImages )
 		{
 			show( dnaMask, "initial dna mask", null, voxelSizesForAnalysis, false );
 		}
 
-		initialDnaMask = dnaMask;
+		initialDnaMask = RunLengthMask.of( dnaMask );
+	}
+
+	/**
+	 * Labels the mask once and keeps the largest of the regions that do not touch
+	 * the image border in the first borderDimensions dimensions.
+	 */
+	private RandomAccessibleInterval< BitType > createLargestRegionNotTouchingBorderMask(
+			RandomAccessibleInterval< BitType > mask,
+			int borderDimensions,
+			String errorMessage )
+	{
+		final ConnectedRegions connectedRegions =
+				new ConnectedRegions( mask, ConnectedComponents.StructuringElement.EIGHT_CONNECTED );
+
+		final List< ConnectedRegions.Region > regions = connectedRegions.getRegions();
+		final List< ConnectedRegions.Region > innerRegions =
+				connectedRegions.getRegions( region -> ! region.isTouchingBorder( borderDimensions ) );
+
+		IJ.log( "Removed " + ( regions.size() - innerRegions.size() ) + " of " + regions.size() + " regions, because of image border contact." );
+
+		if ( innerRegions.isEmpty() )
+			throwMeasurementError( errorMessage );
+
+		return connectedRegions.createMask( ConnectedRegions.getLargestRegion( innerRegions ) );
 	}
 
 	private void throwMeasurementError( String s )
@@ -800,15 +948,33 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 		throw new RuntimeException( log );
 	}
 
-	private void transformImages( AffineTransform3D transform3D )
+	/**
+	 * Materialises the DNA aligned images only within the region that
+	 * is needed for the subsequent analysis, see {@link #createDnaAlignedRegion}.
+	 * The images are computed concurrently.
+	 */
+	private void transformImages( AffineTransform3D transform3D, double maxMetaphasePlateLength )
 	{
-		dnaAlignedTubulin = transformImage( transform3D, tubulin );
-		dnaAlignedDna = transformImage( transform3D, dna );
-		dnaAlignedInitialDnaMask = transformImage( transform3D, initialDnaMask );
+		final FinalInterval dnaAlignedRegion = createDnaAlignedRegion( transform3D, maxMetaphasePlateLength );
 
-		if ( cellMask != null )
+		IJ.log( "DNA aligned region: " + Util.printInterval( dnaAlignedRegion ) );
+
+		final Future< RandomAccessibleInterval< R > > tubulinFuture = executorService.submit( () -> transformImage( transform3D, tubulin, dnaAlignedRegion ) );
+		final Future< RandomAccessibleInterval< R > > dnaFuture = executorService.submit( () -> transformImage( transform3D, dna, dnaAlignedRegion ) );
+		final Future< RandomAccessibleInterval< BitType > > initialDnaMaskFuture = executorService.submit( () -> transformImage( transform3D, initialDnaMask, dnaAlignedRegion ) );
+		final Future< RandomAccessibleInterval< BitType > > cellMaskFuture = cellMask != null ? executorService.submit( () -> RunLengthMask.of( transformImage( transform3D, cellMask, dnaAlignedRegion ) ) ) : null;
+
+		try
 		{
-			dnaAlignedCellMask = transformImage( transform3D, cellMask );
+			dnaAlignedTubulin = tubulinFuture.get();
+			dnaAlignedDna = dnaFuture.get();
+			dnaAlignedInitialDnaMask = initialDnaMaskFuture.get();
+			if ( cellMaskFuture != null )
+				dnaAlignedCellMask = cellMaskFuture.get();
+		}
+		catch ( InterruptedException | ExecutionException e )
+		{
+			throw new RuntimeException( e );
 		}
 
 		if ( settings.showIntermediateImages )
@@ -823,15 +989,48 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 		}
 	}
 
-	private static < T extends NumericType< T > & NativeType< T > > RandomAccessibleInterval transformImage( AffineTransform3D transform3D, RandomAccessibleInterval< T > image )
+	/**
+	 * A cube around the DNA center, whose half width scales with the maximal metaphase plate length,
+	 * extended such that it contains the whole cell mask and restricted to the transformed image bounds.
+	 */
+	private FinalInterval createDnaAlignedRegion( AffineTransform3D transform3D, double maxMetaphasePlateLength )
+	{
+		final double halfWidth = Math.max(
+				settings.alignedRegionHalfWidthFactor * maxMetaphasePlateLength,
+				settings.minimalAlignedRegionHalfWidth );
+		final long halfWidthVoxels = (long) Math.ceil( halfWidth / settings.voxelSizeForAnalysis );
+
+		FinalInterval region = FinalInterval.createMinMax(
+				-halfWidthVoxels, -halfWidthVoxels, -halfWidthVoxels,
+				halfWidthVoxels, halfWidthVoxels, halfWidthVoxels );
+
+		if ( cellMask != null )
+		{
+			final FinalInterval cellMaskBounds = getForegroundBoundingInterval( cellMask );
+			if ( cellMaskBounds != null )
+				region = Intervals.union( region,
+						Intervals.expand( createBoundingIntervalAfterTransformation( cellMaskBounds, transform3D ), 1 ) );
+		}
+
+		final FinalInterval imageBounds = createBoundingIntervalAfterTransformation( tubulin, transform3D );
+		final FinalInterval intersection = Intervals.intersect( region, imageBounds );
+
+		if ( Intervals.isEmpty( intersection ) )
+			return imageBounds;
+
+		return intersection;
+	}
+
+	static < T extends RealType< T > & NativeType< T > > RandomAccessibleInterval< T > transformImage( AffineTransform3D transform3D, RandomAccessibleInterval< T > image, Interval interval )
 	{
-		return copyAsArrayImg( createTransformedView( image, transform3D, new NearestNeighborInterpolatorFactory(), Utils.BorderExtension.ExtendBorder ) );
+		final RandomAccessible< T > transformed = createTransformedRaView( image, transform3D, new NearestNeighborInterpolatorFactory(), Utils.BorderExtension.ExtendBorder );
+		return copyAsArrayImg( Views.interval( transformed, interval ) );
 	}
 
 	private EllipsoidVectors fitEllipsoid( RandomAccessibleInterval< BitType > mask )
 	{
 		IJ.log( "Determining DNA axes..." );
-		final EllipsoidVectors ellipsoidVectors = Ellipsoids3DImageSuite.fitEllipsoid( asImagePlus( mask, "" ) );
+		final EllipsoidVectors ellipsoidVectors = EllipsoidsMoments.fitEllipsoid( mask, executorService );
 
 		ellipsoidVectors.shortestAxisLength *= settings.voxelSizeForAnalysis;
 		ellipsoidVectors.middleAxisLength *= settings.voxelSizeForAnalysis;
@@ -847,7 +1046,7 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 	{
 		IJ.log( "Measuring DNA width..." );
 
-		final CoordinatesAndValues dnaProfileAlongDnaAxis =
+		final Profile dnaProfileAlongDnaAxis =
 				Utils.computeAverageIntensitiesAlongAxis(
 						alignedDNA,
 						maxMetaphasePlateLength / 2.0,
@@ -856,7 +1055,7 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 						+ maxMetaphasePlateWidth / 2.0,
 						settings.voxelSizeForAnalysis );
 
-		final CoordinatesAndValues dnaProfileAlongDnaAxisDerivative =
+		final Profile dnaProfileAlongDnaAxisDerivative =
 				Utils.derivative(
 						dnaProfileAlongDnaAxis,
 						( int ) Math.ceil( settings.metaphasePlateWidthDerivativeDelta / settings.voxelSizeForAnalysis ) );
@@ -885,7 +1084,8 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 				alignedDNA,
 				2,
 				( long ) ( - maxMetaphasePlateWidth / 2.0 / settings.voxelSizeForAnalysis ),
-				( long ) ( + maxMetaphasePlateWidth / 2.0 / settings.voxelSizeForAnalysis ));
+				( long ) ( + maxMetaphasePlateWidth / 2.0 / settings.voxelSizeForAnalysis ),
+				executorService );
 		final RandomAccessibleInterval< R > dnaProjectionAlongDnaAxis = projection.maximum();
 
 		dnaLateralProfileAndRadius = measureRadialProfileAndRadius(
@@ -936,16 +1136,10 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 
 	private void createDnaMaskAndMeasureDnaVolume( RandomAccessibleInterval< R > dna, Double dnaVolumeThreshold )
 	{
-		dnaAlignedDnaMask = createMask( dna, dnaVolumeThreshold, opService );
-
-		final int numRemainingRegions = removeRegionsTouchingImageBorders( dnaAlignedDnaMask, 3 );
-
-		if ( numRemainingRegions == 0 )
-		{
-			throwMeasurementError( "All DNA regions were touching the image border!" );
-		}
-
-		Utils.onlyKeepLargestRegion( dnaAlignedDnaMask, ConnectedComponents.StructuringElement.EIGHT_CONNECTED );
+		dnaAlignedDnaMask = RunLengthMask.of( createLargestRegionNotTouchingBorderMask(
+				createFilledMask( dna, dnaVolumeThreshold, executorService ),
+				3,
+				"All DNA regions were touching the image border!" ) );
 
 		final long dnaVolumeInPixels =
 				Spindle3DMeasurements.measureSizeInPixels( dnaAlignedDnaMask );
@@ -967,7 +1161,7 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 
 	private ArrayList< double[] > determineSpindlePolesAlongDnaAxisFromSpindleMask( RandomAccessibleInterval< BitType > dnaAlignedSpindleMask )
 	{
-		final CoordinatesAndValues binarySpindleProfile =
+		final Profile binarySpindleProfile =
 				Utils.computeMaximumIntensitiesAlongAxis(
 						dnaAlignedSpindleMask,
 						measurements.metaphasePlateLength / 2.0,
@@ -977,7 +1171,7 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 		// Since this is a binary plot, taking the derivative to
 		// find the edges seems a bit of an overkill, but then why not.
 		final int derivativeDeltaVoxels = 2;
-		final CoordinatesAndValues tubulinProfileDerivative =
+		final Profile tubulinProfileDerivative =
 				Utils.derivative(
 						binarySpindleProfile,
 						derivativeDeltaVoxels );
@@ -992,13 +1186,11 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 		if ( settings.showIntermediatePlots )
 		{
 			Plots.plot(
-					binarySpindleProfile.coordinates,
-					binarySpindleProfile.values,
+					binarySpindleProfile,
 					"center distance [um]",
 					"spindle mask maxima along shortest DNA axis" );
 			Plots.plot(
-					tubulinProfileDerivative.coordinates,
-					tubulinProfileDerivative.values,
+					tubulinProfileDerivative,
 					"distance to center",
 					"d/dx spindle mask maxima along shortest DNA axis" );
 			IJ.log( "Spindle max derivative plus offset " + ( tubulinExtrema.get( 0 ).coordinate ) );
@@ -1013,11 +1205,15 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 		final double dnaLateralRadialProfileMaxIntensity =
 				Utils.maximumIndexAndValue( dnaLateralProfileAndRadius.profile ).value;
 
-		final double dnaCenterIntensity = dnaLateralProfileAndRadius.profile.values.get( 0 );
+		final double dnaCenterIntensity = dnaLateralProfileAndRadius.profile.value( 0 );
 
 		measurements.chromatinDilation = (1.0 - dnaCenterIntensity / dnaLateralRadialProfileMaxIntensity );
 	}
 
+	/**
+	 * Moves each pole to the maximum of the blurred tubulin within the spindle mask,
+	 * in a box around the pole; only the boxes are blurred.
+	 */
 	private ArrayList< double[] > refineSpindlePoles(
 			final RandomAccessibleInterval< R > dnaAlignedTubulin,
 			RandomAccessibleInterval< BitType > dnaAlignedSpindleMask,
@@ -1027,31 +1223,40 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 	{
 		final double blurSigma = 0.75; // micrometer
 
-		final RandomAccessibleInterval< R > blurred = Utils.createBlurredRai(
-				dnaAlignedTubulin,
-				blurSigma,
-				settings.voxelSizeForAnalysis );
-
 		// typically wider perpendicular to spindle axis, narrow along spindle axis
-		final RectangleShape2 rectangleShape2 = new RectangleShape2( new long[]{
+		final long[] boxSpan = new long[]{
 				( long ) ( 2.0 * lateralPoleRefinementRadius / settings.voxelSizeForAnalysis ),
 				( long ) ( 2.0 * lateralPoleRefinementRadius / settings.voxelSizeForAnalysis ),
 				( long ) ( 2.0 * axialPoleRefinementRadius / settings.voxelSizeForAnalysis )
-		}, false );
-
-		final RandomAccessible< Neighborhood < R > > neighborhoodsAccessible = rectangleShape2.neighborhoodsRandomAccessible( blurred );
-		final RandomAccess< Neighborhood< R > > blurredTubulinAccess = neighborhoodsAccessible.randomAccess();
+		};
 
 		final ArrayList< double[] > spindlePoles = new ArrayList<>();
 
-		for ( int pole = 0; pole < 2; pole++ )
+		for ( double[] dnaAlignedSpindlePole : dnaAlignedSpindlePoles )
 		{
-			final long[] pixelUnitsPolePosition = getPixelUnitsPolePosition( dnaAlignedSpindlePoles, pole );
-			blurredTubulinAccess.setPosition( pixelUnitsPolePosition );
-			final Neighborhood< R > blurredTubulinNeighborhood = blurredTubulinAccess.get();
+			final long[] pixelUnitsPolePosition = Utils.asLongs( toVoxels( dnaAlignedSpindlePole ) );
+
+			final long[] boxMin = new long[ 3 ];
+			final long[] boxMax = new long[ 3 ];
+			for ( int d = 0; d < 3; d++ )
+			{
+				boxMin[ d ] = pixelUnitsPolePosition[ d ] - boxSpan[ d ] / 2;
+				boxMax[ d ] = boxMin[ d ] + boxSpan[ d ] - 1;
+			}
+
+			final FinalInterval box = Intervals.intersect( new FinalInterval( boxMin, boxMax ), dnaAlignedTubulin );
+			if ( Intervals.isEmpty( box ) )
+				throw new RuntimeException( "Could not find maximum within mask." );
+
+			final RandomAccessibleInterval< R > blurredBox = Utils.createBlurredRai(
+					dnaAlignedTubulin,
+					box,
+					blurSigma,
+					settings.voxelSizeForAnalysis,
+					executorService );
 
 			final RealPoint maximumLocation = getMaximumLocationWithinMask(
-					blurredTubulinNeighborhood,
+					Views.iterable( blurredBox ),
 					dnaAlignedSpindleMask,
 					Utils.as3dDoubleArray( settings.voxelSizeForAnalysis ) );
 
@@ -1064,12 +1269,6 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 		return spindlePoles;
 	}
 
-	private long[] getPixelUnitsPolePosition( ArrayList< double[] > dnaAlignedSpindlePoles, int pole )
-	{
-		final double[] polePosition = toVoxels( dnaAlignedSpindlePoles.get( pole ) );
-		return Utils.asLongs( polePosition );
-	}
-
 	private RandomAccessibleInterval< BitType > createSpindleMask(
 			RandomAccessibleInterval< R > tubulin,
 			double spindleThreshold )
@@ -1077,20 +1276,15 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 		final RandomAccessibleInterval< BitType > mask
 				= Utils.createMask( tubulin, spindleThreshold );
 
-		final ImgLabeling< Integer, IntType > imgLabeling
-				= Utils.asImgLabeling( mask, ConnectedComponents.StructuringElement.FOUR_CONNECTED );
-
-		final Set< LabelRegion< Integer > > centralRegions = Utils.getCentralRegions(
-				imgLabeling,
-				new double[]{ 0, 0, 0 },
-				( long ) ( settings.spindleFragmentInclusionZone / settings.voxelSizeForAnalysis ) );
+		final ConnectedRegions connectedRegions = new ConnectedRegions(
+				mask,
+				ConnectedComponents.StructuringElement.FOUR_CONNECTED,
+				new double[]{ 0, 0, 0 } );
 
-		final RandomAccessibleInterval< BitType > centralRegionsMask =
-				Utils.asMask( centralRegions,
-						Intervals.dimensionsAsLongArray( mask ),
-						Intervals.minAsLongArray( mask ));
+		final long maxCenterDistance = ( long ) ( settings.spindleFragmentInclusionZone / settings.voxelSizeForAnalysis );
 
-		return centralRegionsMask;
+		return connectedRegions.createMask(
+				region -> region.minSquaredDistanceToCenter <= maxCenterDistance * maxCenterDistance );
 	}
 
 	private RandomAccessibleInterval< BitType > createSpindleMask00(
@@ -1149,9 +1343,9 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 	{
 		final ArrayList< RandomAccessibleInterval< R > > alignedVolumes = new ArrayList<>();
 
-		for ( int c = 0; c < rescaledVolumes.size(); c++ )
+		for ( int c : getOutputChannels() )
 		{
-			final RandomAccessible transformedRA = Utils.createTransformedRaView( rescaledVolumes.get( c ),
+			final RandomAccessible transformedRA = Utils.createTransformedRaView( getRescaledVolume( c, rescaledInputToSpindleAlignedTransform, crop ),
 					rescaledInputToSpindleAlignedTransform, new ClampingNLinearInterpolatorFactory() );
 
 			alignedVolumes.add( Views.interval( transformedRA, crop ) );
@@ -1172,6 +1366,38 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 		return stack;
 	}
 
+	/**
+	 * Channels that are not used for the analysis are not rescaled upfront,
+	 * but only here, and only within the region that is needed for the
+	 * given crop of the transformed image.
+	 */
+	private RandomAccessibleInterval< R > getRescaledVolume( int c, AffineTransform3D rescaledToCropTransform, FinalInterval crop )
+	{
+		if ( rescaledVolumes.get( c ) != null ) return rescaledVolumes.get( c );
+
+		final IntervalView< R > volume = Views.hyperSlice( raiXYCZ, 2, c );
+
+		final FinalInterval rescaledInterval = Utils.createScaledInterval( volume, new Scale( scalingFactorsRawToRescaled ) );
+
+		// expand, because the interpolation also accesses the neighbouring voxels
+		final FinalInterval cropInRescaledCoordinates = Intervals.expand(
+				createBoundingIntervalAfterTransformation( crop, rescaledToCropTransform.inverse() ), 2 );
+
+		final FinalInterval neededInterval = Intervals.intersect( rescaledInterval, cropInRescaledCoordinates );
+
+		if ( Intervals.isEmpty( neededInterval ) )
+		{
+			// the crop is outside of the channel
+			final ArrayImg< R, ? > zeros = new ArrayImgFactory<>( Util.getTypeFromInterval( volume ).createVariable() )
+					.create( Intervals.dimensionsAsLongArray( cropInRescaledCoordinates ) );
+			return Views.translate( zeros, Intervals.minAsLongArray( cropInRescaledCoordinates ) );
+		}
+		else
+		{
+			return Resampler.createRescaledArrayImg( volume, scalingFactorsRawToRescaled, neededInterval, executorService );
+		}
+	}
+
 	private void addMask( ArrayList< RandomAccessibleInterval< R > > alignedVolumes, RandomAccessibleInterval< BitType > mask, FinalInterval crop )
 	{
 		alignedVolumes.add(
@@ -1225,11 +1451,11 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 
 	private RandomAccessibleInterval< BitType > createInterestPointImage(
 			ArrayList< double[] > spindlePoles,
-			RandomAccessibleInterval< R > referenceImage,
+			Interval interval,
 			double interestPointsRadius )
 	{
-		RandomAccessibleInterval< BitType > interestPointsImage = ArrayImgs.bits( Intervals.dimensionsAsLongArray( referenceImage ) );
-		interestPointsImage = Views.translate( interestPointsImage, Intervals.minAsLongArray( referenceImage ) );
+		RandomAccessibleInterval< BitType > interestPointsImage = ArrayImgs.bits( Intervals.dimensionsAsLongArray( interval ) );
+		interestPointsImage = Views.translate( interestPointsImage, Intervals.minAsLongArray( interval ) );
 
 		final double[] origin = { 0, 0, 0 };
 		drawPoint(
@@ -1264,7 +1490,7 @@ public class Spindle3DMorphometry< R extends RealType< R > & NativeType< R > >
 		final ProfileAndRadius profileAndRadius = new ProfileAndRadius();
 		profileAndRadius.profile = Utils.computeRadialProfile( image, center, spacing, maxCenterDistance );
 
-		final CoordinatesAndValues radialProfileDerivative =
+		final Profile radialProfileDerivative =
 				Utils.derivative(
 						profileAndRadius.profile,
 						(int) Math.ceil( derivativeDelta / settings.voxelSizeForAnalysis ) );
@@ -24,6 +24,11 @@ public class Spindle3DSettings<T extends RealType<T> & NativeType< T > >
 	public double axialPoleRefinementRadius = 1.0; // um
 	public double lateralPoleRefinementRadius = 2.0; // um
 	public double voxelSizeForInitialDNAThreshold = 1.5; // um
+	public double alignedRegionHalfWidthFactor = 1.5; // times the maximal metaphase plate length
+	public double minimalAlignedRegionHalfWidth = 20.0; // um
+	public double spindleWidthAngularStep = 1.0; // degrees
+	public double spindleAlignedRegionMargin = 2.0; // um
+	public double spindleSmoothingRadius = 2.5; // um
 
 	/**
 	 * Intensity
@@ -45,9 +50,58 @@ public class Spindle3DSettings<T extends RealType<T> & NativeType< T > >
 	public transient boolean showOutputImage = false;
 	public transient File roiDetectionMacro;
 	public transient boolean smoothSpindle = false;
+	public transient boolean skipExtraChannels = false; // measurement-only mode: channels other than DNA and tubulin are neither rescaled nor added to the output image
+	public transient int numThreads = Runtime.getRuntime().availableProcessors(); // per image
+	public transient boolean instrumentStages = false; // record time and memory per analysis stage
 	public double[][] manualSpindleAxisPositions;
 	public transient RandomAccessibleInterval< BitType > cellMask;
 
+	/**
+	 * Creates an independent copy, such that several images can be
+	 * processed concurrently without sharing mutable settings.
+	 */
+	public Spindle3DSettings< T > copy()
+	{
+		final Spindle3DSettings< T > copy = new Spindle3DSettings<>();
+		copy.version = version;
+		copy.voxelSizeForAnalysis = voxelSizeForAnalysis;
+		copy.metaphasePlateWidthDerivativeDelta = metaphasePlateWidthDerivativeDelta;
+		copy.metaphasePlateLengthDerivativeDelta = metaphasePlateLengthDerivativeDelta;
+		copy.spindleFragmentInclusionZone = spindleFragmentInclusionZone;
+		copy.axialPoleRefinementRadius = axialPoleRefinementRadius;
+		copy.lateralPoleRefinementRadius = lateralPoleRefinementRadius;
+		copy.voxelSizeForInitialDNAThreshold = voxelSizeForInitialDNAThreshold;
+		copy.alignedRegionHalfWidthFactor = alignedRegionHalfWidthFactor;
+		copy.minimalAlignedRegionHalfWidth = minimalAlignedRegionHalfWidth;
+		copy.spindleWidthAngularStep = spindleWidthAngularStep;
+		copy.spindleAlignedRegionMargin = spindleAlignedRegionMargin;
+		copy.spindleSmoothingRadius = spindleSmoothingRadius;
+		copy.initialDnaThresholdFactor = initialDnaThresholdFactor;
+		copy.minimalDynamicRange = minimalDynamicRange;
+		copy.showIntermediateImages = showIntermediateImages;
+		copy.showIntermediatePlots = showIntermediatePlots;
+		copy.inputVoxelSize = inputVoxelSize == null ? null : inputVoxelSize.clone();
+		copy.outputDirectory = outputDirectory;
+		copy.inputDataSetName = inputDataSetName;
+		copy.imagePlusCalibration = imagePlusCalibration == null ? null : imagePlusCalibration.copy();
+		copy.dnaChannelIndex = dnaChannelIndex;
+		copy.tubulinChannelIndex = tubulinChannelIndex;
+		copy.showOutputImage = showOutputImage;
+		copy.roiDetectionMacro = roiDetectionMacro;
+		copy.smoothSpindle = smoothSpindle;
+		copy.skipExtraChannels = skipExtraChannels;
+		copy.numThreads = numThreads;
+		copy.instrumentStages = instrumentStages;
+		if ( manualSpindleAxisPositions != null )
+		{
+			copy.manualSpindleAxisPositions = new double[ manualSpindleAxisPositions.length ][];
+			for ( int i = 0; i < manualSpindleAxisPositions.length; i++ )
+				copy.manualSpindleAxisPositions[ i ] = manualSpindleAxisPositions[ i ].clone();
+		}
+		copy.cellMask = cellMask;
+		return copy;
+	}
+
 	public String toString()
 	{
 		String s = "\n## Spindle3D Settings\n";
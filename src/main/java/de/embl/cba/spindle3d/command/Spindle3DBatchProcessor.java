@@ -0,0 +1,177 @@
+package de.embl.cba.spindle3d.command;
+
+import de.embl.cba.spindle3d.Spindle3DMeasurements;
+import de.embl.cba.spindle3d.Spindle3DMeasurementsWriter;
+import ij.IJ;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Processes many images concurrently on a bounded worker pool.
+ *
+ * Each image is processed by its own {@link Spindle3DProcessor}, which
+ * holds its own copy of the {@link de.embl.cba.spindle3d.Spindle3DSettings},
+ * such that the workers do not share any mutable state.
+ *
+ * The number of images that are processed at the same time is limited both by
+ * the number of workers and by the memory budget per image, i.e. an image is
+ * only started if its memory budget still fits into the maximal heap size.
+ *
+ * The threads that each image may use are capped, such that the concurrently
+ * processed images together do not use more threads than there are processors.
+ */
+public class Spindle3DBatchProcessor
+{
+	public static final String CELL_MASK_SUFFIX = "_CellMask";
+
+	private final Spindle3DProcessor template;
+	private final int numWorkers;
+	private final long memoryBudgetPerImageMB;
+
+	/**
+	 * @param template
+	 * 			processor from which the services, channel indices,
+	 * 			output directory and settings are copied for each image
+	 * @param numWorkers
+	 * 			maximal number of images that are processed concurrently
+	 * @param memoryBudgetPerImageMB
+	 * 			memory that is reserved for the processing of one image
+	 */
+	public Spindle3DBatchProcessor( Spindle3DProcessor template, int numWorkers, long memoryBudgetPerImageMB )
+	{
+		this.template = template;
+		this.numWorkers = Math.max( 1, numWorkers );
+		this.memoryBudgetPerImageMB = Math.max( 1, memoryBudgetPerImageMB );
+	}
+
+	public static List< File > getImageFiles( File inputDirectory, String fileNameRegExp )
+	{
+		final File[] files = inputDirectory.listFiles( ( dir, name ) ->
+				name.matches( fileNameRegExp ) && ! name.contains( CELL_MASK_SUFFIX ) );
+
+		if ( files == null ) return new ArrayList<>();
+
+		Arrays.sort( files );
+		return Arrays.asList( files );
+	}
+
+	public ArrayList< HashMap< Integer, Map< String, Object > > > process( List< File > imageFiles )
+	{
+		return process( imageFiles, null );
+	}
+
+	/**
+	 * @param imageFiles
+	 * @param measurementsWriter
+	 * 			if not null, the measurements of each image are written as soon as it is processed,
+	 * 			with the index of the image as time point
+	 * @return the measurements of all images, in the order of the input files
+	 */
+	public ArrayList< HashMap< Integer, Map< String, Object > > > process( List< File > imageFiles, Spindle3DMeasurementsWriter measurementsWriter )
+	{
+		final int maxMemoryMB = (int) Math.min( Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / ( 1024 * 1024 ) );
+		final int memoryPermitsPerImage = (int) Math.min( memoryBudgetPerImageMB, maxMemoryMB );
+		final Semaphore memory = new Semaphore( maxMemoryMB, true );
+
+		IJ.log( "Batch processing " + imageFiles.size() + " images with " + numWorkers + " workers, "
+				+ getNumThreadsPerImage() + " threads and a memory budget of "
+				+ memoryPermitsPerImage + " MB per image (maximal memory: " + maxMemoryMB + " MB)." );
+
+		final ExecutorService executorService = Executors.newFixedThreadPool( numWorkers );
+
+		final ArrayList< Future< HashMap< Integer, Map< String, Object > > > > futures = new ArrayList<>();
+		for ( int i = 0; i < imageFiles.size(); i++ )
+		{
+			final File imageFile = imageFiles.get( i );
+			final int imageIndex = i;
+			futures.add( executorService.submit( () ->
+			{
+				memory.acquire( memoryPermitsPerImage );
+				try
+				{
+					final HashMap< Integer, Map< String, Object > > measurements = processFile( imageFile );
+					if ( measurementsWriter != null )
+						measurementsWriter.write( measurements, imageIndex );
+					return measurements;
+				}
+				finally
+				{
+					memory.release( memoryPermitsPerImage );
+				}
+			} ) );
+		}
+
+		final ArrayList< HashMap< Integer, Map< String, Object > > > measurements = new ArrayList<>();
+		try
+		{
+			for ( Future< HashMap< Integer, Map< String, Object > > > future : futures )
+				measurements.add( future.get() );
+		}
+		catch ( InterruptedException | ExecutionException e )
+		{
+			throw new RuntimeException( e );
+		}
+		finally
+		{
+			executorService.shutdownNow();
+		}
+
+		return measurements;
+	}
+
+	private HashMap< Integer, Map< String, Object > > processFile( File imageFile )
+	{
+		final Worker worker = new Worker( template, getNumThreadsPerImage() );
+		try
+		{
+			worker.processFile( imageFile );
+			return worker.getObjectMeasurements();
+		}
+		catch ( Exception e )
+		{
+			IJ.log( "Error processing " + imageFile + ": " + e );
+			final HashMap< Integer, Map< String, Object > > measurements = worker.getObjectMeasurements() != null ? worker.getObjectMeasurements() : new HashMap<>();
+			Spindle3DMeasurements.addMeasurement( measurements, 0, Spindle3DMeasurements.PATH_INPUT_IMAGE, imageFile );
+			Spindle3DMeasurements.addMeasurement( measurements, 0, Spindle3DMeasurements.COMMENT, "Error: " + e );
+			return measurements;
+		}
+	}
+
+	private int getNumThreadsPerImage()
+	{
+		final int numProcessors = Runtime.getRuntime().availableProcessors();
+		return Math.max( 1, Math.min( template.settings.numThreads, numProcessors / numWorkers ) );
+	}
+
+	private static class Worker extends Spindle3DProcessor
+	{
+		Worker( Spindle3DProcessor template, int numThreads )
+		{
+			settings = template.settings.copy();
+			settings.numThreads = numThreads;
+			scriptService = template.scriptService;
+			outputDirectory = template.outputDirectory;
+			dnaChannelIndexOneBased = template.dnaChannelIndexOneBased;
+			spindleChannelIndexOneBased = template.spindleChannelIndexOneBased;
+			showIntermediateImages = false;
+			showIntermediatePlots = false;
+			saveResults = template.saveResults;
+			saveOutputImage = template.saveOutputImage;
+			inputImageFilesParentDirectory = template.inputImageFilesParentDirectory;
+
+			settings.showIntermediateImages = false;
+			settings.showIntermediatePlots = false;
+			settings.showOutputImage = false;
+		}
+	}
+}
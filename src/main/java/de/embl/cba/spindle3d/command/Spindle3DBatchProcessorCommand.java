@@ -0,0 +1,54 @@
+package de.embl.cba.spindle3d.command;
+
+import de.embl.cba.spindle3d.Spindle3DMeasurementsWriter;
+import ij.IJ;
+import org.scijava.command.Command;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+import java.io.File;
+import java.util.List;
+
+@Plugin(type = Command.class, menuPath = "Plugins>Spindle3D>Spindle3D Process Directory..." )
+public class Spindle3DBatchProcessorCommand extends Spindle3DProcessor implements Command
+{
+	@Parameter( label = "Input image directory", style = "directory" )
+	public File inputImageDirectory;
+
+	@Parameter( label = "Input image file name regular expression" )
+	public String fileNameRegExp = ".*\\.tif";
+
+	@Parameter( label = "Number of images processed in parallel", min = "1" )
+	public int numWorkers = Runtime.getRuntime().availableProcessors();
+
+	@Parameter( label = "Memory budget per image [MB]", min = "1" )
+	public long memoryBudgetPerImageMB = 2000;
+
+	public void run()
+	{
+		setSettings();
+		inputImageFilesParentDirectory = inputImageDirectory;
+
+		final List< File > imageFiles = Spindle3DBatchProcessor.getImageFiles( inputImageDirectory, fileNameRegExp );
+
+		if ( imageFiles.isEmpty() )
+		{
+			IJ.log( "No files matching " + fileNameRegExp + " found in " + inputImageDirectory );
+			return;
+		}
+
+		final Spindle3DBatchProcessor batchProcessor = new Spindle3DBatchProcessor( this, numWorkers, memoryBudgetPerImageMB );
+
+		Spindle3DMeasurementsWriter measurementsWriter = null;
+		if ( saveResults )
+		{
+			outputDirectory.mkdirs();
+			measurementsWriter = new Spindle3DMeasurementsWriter( new File( outputDirectory, "measurements.txt" ), settings.instrumentStages );
+			IJ.log( "Batch measurements table:\n" + measurementsWriter.getFile() );
+		}
+
+		batchProcessor.process( imageFiles, measurementsWriter );
+
+		logEnd();
+	}
+}
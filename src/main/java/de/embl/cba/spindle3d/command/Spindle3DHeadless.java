@@ -0,0 +1,173 @@
+package de.embl.cba.spindle3d.command;
+
+import de.embl.cba.spindle3d.Spindle3DMeasurementsWriter;
+import ij.IJ;
+import org.scijava.Context;
+import org.scijava.script.ScriptService;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Command line entry point, which processes one image or all images
+ * in a directory without starting the ImageJ user interface.
+ *
+ * A SciJava context is only created if a macro is given, which needs the {@link ScriptService}.
+ *
+ * Usage:
+ * java -cp spindle3d.jar:... de.embl.cba.spindle3d.command.Spindle3DHeadless
+ *   --input image.tif|directory --output directory
+ *   [--dna-channel 2] [--spindle-channel 1] [--macro macro.ijm] [--smooth-spindle]
+ *   [--no-output-image] [--skip-extra-channels] [--file-regexp .*\.tif] [--workers n] [--threads n] [--memory-per-image-mb 2000] [--instrument]
+ */
+public class Spindle3DHeadless extends Spindle3DProcessor
+{
+	public File input;
+	public String fileNameRegExp = ".*\\.tif";
+	public int numWorkers = 1;
+	public long memoryBudgetPerImageMB = 2000;
+
+	public static void main( String[] args )
+	{
+		System.setProperty( "java.awt.headless", "true" );
+
+		final Spindle3DHeadless headless = new Spindle3DHeadless();
+
+		try
+		{
+			headless.parseArguments( args );
+		}
+		catch ( IllegalArgumentException e )
+		{
+			System.err.println( e.getMessage() );
+			printUsage();
+			System.exit( 1 );
+		}
+
+		final Context context = headless.createContext();
+		try
+		{
+			headless.run();
+		}
+		finally
+		{
+			if ( context != null ) context.dispose();
+		}
+
+		System.exit( 0 );
+	}
+
+	private static void printUsage()
+	{
+		System.err.println( "Usage: Spindle3DHeadless --input <image file or directory> --output <directory>\n" +
+				"  [--dna-channel <one-based index, default 2>]\n" +
+				"  [--spindle-channel <one-based index, default 1>]\n" +
+				"  [--macro <ROI detection macro>]\n" +
+				"  [--smooth-spindle]\n" +
+				"  [--no-output-image]\n" +
+				"  [--skip-extra-channels]\n" +
+				"  [--file-regexp <regular expression for the image files in a directory, default .*\\.tif>]\n" +
+				"  [--workers <number of images processed in parallel, default 1>]\n" +
+				"  [--threads <number of threads per image, default: number of processors>]\n" +
+				"  [--memory-per-image-mb <memory budget per image, default 2000>]\n" +
+				"  [--instrument (record time and memory per analysis stage)]" );
+	}
+
+	public void parseArguments( String[] args )
+	{
+		for ( int i = 0; i < args.length; i++ )
+		{
+			switch ( args[ i ] )
+			{
+				case "--input":
+					input = new File( value( args, ++i ) );
+					break;
+				case "--output":
+					outputDirectory = new File( value( args, ++i ) );
+					break;
+				case "--dna-channel":
+					dnaChannelIndexOneBased = Long.parseLong( value( args, ++i ) );
+					break;
+				case "--spindle-channel":
+					spindleChannelIndexOneBased = Long.parseLong( value( args, ++i ) );
+					break;
+				case "--macro":
+					settings.roiDetectionMacro = new File( value( args, ++i ) );
+					break;
+				case "--smooth-spindle":
+					settings.smoothSpindle = true;
+					break;
+				case "--no-output-image":
+					saveOutputImage = false;
+					settings.skipExtraChannels = true;
+					break;
+				case "--skip-extra-channels":
+					settings.skipExtraChannels = true;
+					break;
+				case "--file-regexp":
+					fileNameRegExp = value( args, ++i );
+					break;
+				case "--workers":
+					numWorkers = Integer.parseInt( value( args, ++i ) );
+					break;
+				case "--threads":
+					settings.numThreads = Integer.parseInt( value( args, ++i ) );
+					break;
+				case "--instrument":
+					settings.instrumentStages = true;
+					break;
+				case "--memory-per-image-mb":
+					memoryBudgetPerImageMB = Long.parseLong( value( args, ++i ) );
+					break;
+				default:
+					throw new IllegalArgumentException( "Unknown argument: " + args[ i ] );
+			}
+		}
+
+		if ( input == null ) throw new IllegalArgumentException( "Missing argument: --input" );
+		if ( outputDirectory == null ) throw new IllegalArgumentException( "Missing argument: --output" );
+	}
+
+	private static String value( String[] args, int i )
+	{
+		if ( i >= args.length ) throw new IllegalArgumentException( "Missing value for argument: " + args[ i - 1 ] );
+		return args[ i ];
+	}
+
+	/**
+	 * Creates a SciJava context with only the {@link ScriptService}, if a macro is given.
+	 *
+	 * @return the context, which should be disposed after processing, or null if no macro is given
+	 */
+	public Context createContext()
+	{
+		if ( settings.roiDetectionMacro == null ) return null;
+
+		final Context context = new Context( ScriptService.class );
+		scriptService = context.getService( ScriptService.class );
+
+		return context;
+	}
+
+	public void run()
+	{
+		setSettings();
+		outputDirectory.mkdirs();
+
+		if ( input.isDirectory() )
+		{
+			inputImageFilesParentDirectory = input;
+
+			final List< File > imageFiles = Spindle3DBatchProcessor.getImageFiles( input, fileNameRegExp );
+			final Spindle3DMeasurementsWriter measurementsWriter = new Spindle3DMeasurementsWriter( new File( outputDirectory, "measurements.txt" ), settings.instrumentStages );
+			new Spindle3DBatchProcessor( this, numWorkers, memoryBudgetPerImageMB ).process( imageFiles, measurementsWriter );
+		}
+		else
+		{
+			inputImageFilesParentDirectory = input.getAbsoluteFile().getParentFile();
+			processFile( input );
+		}
+
+		IJ.log( "Spindle3D headless processing done: " + input );
+	}
+}
@@ -1,6 +1,7 @@
 package de.embl.cba.spindle3d.command;
 
 import de.embl.cba.spindle3d.Spindle3DMeasurements;
+import de.embl.cba.spindle3d.Spindle3DMeasurementsWriter;
 import de.embl.cba.spindle3d.Spindle3DMorphometry;
 import de.embl.cba.spindle3d.Spindle3DSettings;
 import de.embl.cba.spindle3d.Spindle3DVersion;
@@ -12,7 +13,6 @@ import ij.ImagePlus;
 import ij.gui.PointRoi;
 import ij.gui.Roi;
 import loci.common.DebugTools;
-import net.imagej.ops.OpService;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.converter.Converters;
 import net.imglib2.img.display.imagej.ImageJFunctions;
@@ -24,7 +24,6 @@ import org.scijava.plugin.Parameter;
 import org.scijava.script.ScriptService;
 import org.scijava.widget.Button;
 
-import javax.swing.*;
 import java.awt.*;
 import java.io.File;
 import java.nio.file.Path;
@@ -35,9 +34,6 @@ public abstract class Spindle3DProcessor
 {
 	public Spindle3DSettings settings = new Spindle3DSettings();
 
-	@Parameter
-	public OpService opService;
-
 	@Parameter
 	public ScriptService scriptService;
 
@@ -63,6 +59,7 @@ public abstract class Spindle3DProcessor
 	public boolean showIntermediatePlots = false;
 
 	public boolean saveResults = true;
+	public boolean saveOutputImage = true;
 
 	protected File inputImageFilesParentDirectory = new File("/" );
 	protected String imageName;
@@ -126,37 +123,44 @@ public abstract class Spindle3DProcessor
 
 		setSpindlePolePositions( imagePlus );
 
-		Spindle3DMorphometry morphometry = new Spindle3DMorphometry( settings, opService, scriptService );
-
-		final String log = morphometry.run( raiXYCZ );
+		try ( Spindle3DMorphometry morphometry = new Spindle3DMorphometry( settings, scriptService ) )
+		{
+			final String log = morphometry.run( raiXYCZ );
 
-		IJ.log( log );
+			IJ.log( log );
 
-		objectMeasurements = morphometry.getObjectMeasurements();
+			objectMeasurements = morphometry.getObjectMeasurements();
 
-		addImagePathToMeasurements(
-				inputImageFilesParentDirectory.toPath(),
-				new File( imagePlus.getOriginalFileInfo().directory, imagePlus.getOriginalFileInfo().fileName ),
-				objectMeasurements,
-				"Path_InputImage" );
+			addImagePathToMeasurements(
+					inputImageFilesParentDirectory.toPath(),
+					new File( imagePlus.getOriginalFileInfo().directory, imagePlus.getOriginalFileInfo().fileName ),
+					objectMeasurements,
+					Spindle3DMeasurements.PATH_INPUT_IMAGE );
 
-		if ( saveResults ) new File( getOutputDirectory() ).mkdirs();
+			if ( saveResults ) new File( getOutputDirectory() ).mkdirs();
 
-		if ( log.equals( Spindle3DMeasurements.ANALYSIS_FINISHED ))
-		{
-			if ( this.settings.showOutputImage || saveResults )
+			if ( log.equals( Spindle3DMeasurements.ANALYSIS_FINISHED ))
 			{
-				final CompositeImage outputImage = morphometry.createOutputImage( 36, 0.5 );
+				if ( this.settings.showOutputImage || ( saveResults && saveOutputImage ) )
+				{
+					morphometry.getInstrumentation().start( "OutputImage" );
+					final CompositeImage outputImage = morphometry.createOutputImage( 36, 0.5 );
+					morphometry.getInstrumentation().stop();
+					morphometry.getInstrumentation().addMeasurements( objectMeasurements );
 
-				if ( this.settings.showOutputImage )
-					outputImage.show();
+					if ( this.settings.showOutputImage )
+						outputImage.show();
 
-				if ( saveResults )
-					saveOutputImageAndAddImagePathsToMeasurements( outputImage );
+					if ( saveResults && saveOutputImage )
+						saveOutputImageAndAddImagePathsToMeasurements( outputImage );
+				}
 			}
-		}
 
-		if ( saveResults ) saveMeasurements( );
+			if ( saveResults ) saveMeasurements( );
+
+			if ( saveResults && morphometry.getInstrumentation().isEnabled() )
+				morphometry.getInstrumentation().saveJson( new File( getOutputDirectory() + "stages.json" ) );
+		}
 
 		logEnd();
 	}
@@ -229,13 +233,11 @@ public abstract class Spindle3DProcessor
 
 	protected void saveMeasurements( )
 	{
-		final JTable jTable = Spindle3DMeasurements.asTable( objectMeasurements );
-
 		final File tableOutputFile = new File( getOutputDirectory() + "measurements.txt" );
 
 		IJ.log( "Saving measurements table:\n" + tableOutputFile );
 
-		Utils.saveTable( jTable, tableOutputFile );
+		new Spindle3DMeasurementsWriter( tableOutputFile, settings.instrumentStages ).write( objectMeasurements, 0 );
 	}
 
 	protected String getOutputDirectory()
@@ -259,7 +261,7 @@ public abstract class Spindle3DProcessor
 
 		final File outputImageFile = new File( getOutputDirectory() + imageName + "-out.zip" );
 
-		addImagePathToMeasurements( parentPath, outputImageFile, objectMeasurements, "Path_OutputImage" );
+		addImagePathToMeasurements( parentPath, outputImageFile, objectMeasurements, Spindle3DMeasurements.PATH_OUTPUT_IMAGE );
 
 		IJ.log( "Saving output image:\n" + outputImageFile );
 		IJ.saveAs( imagePlus, "ZIP", outputImageFile.toString() );
@@ -0,0 +1,192 @@
+package de.embl.cba.spindle3d.ellipsoids;
+
+import Jama.EigenvalueDecomposition;
+import Jama.Matrix;
+import de.embl.cba.spindle3d.util.Parallel;
+import de.embl.cba.spindle3d.util.RunLengthMask;
+import mcib3d.geom.Vector3D;
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Fits an ellipsoid to a 3D mask from the first and second moments of its voxel coordinates,
+ * as in {@link EllipsoidsMLJ#computeParametersFromBinaryImage}.
+ *
+ * The moments are accumulated in integer arithmetic, row by row, with slabs of planes
+ * processed concurrently; for a {@link RunLengthMask}, from the runs in closed form.
+ * The result follows the convention of {@link Ellipsoids3DImageSuite}: the axes are
+ * the eigenvectors of the covariance matrix, and each axis length is twice the radius
+ * sqrt( 5 * eigenvalue ) of the solid ellipsoid with the same moments.
+ */
+public abstract class EllipsoidsMoments
+{
+	private static final int COUNT = 0, X = 1, Y = 2, Z = 3, XX = 4, YY = 5, ZZ = 6, XY = 7, XZ = 8, YZ = 9;
+
+	/**
+	 * @param mask
+	 * @param executorService
+	 * 			may be null
+	 * @return the ellipsoid, with the center in the coordinates of the mask and the lengths in pixels,
+	 * 			or null if the mask is empty
+	 */
+	public static EllipsoidVectors fitEllipsoid( RandomAccessibleInterval< BitType > mask, ExecutorService executorService )
+	{
+		final long[] moments = computeMoments( mask, executorService );
+
+		final double n = moments[ COUNT ];
+		if ( n == 0 ) return null;
+
+		// coordinates relative to the mask minimum
+		final double cx = moments[ X ] / n;
+		final double cy = moments[ Y ] / n;
+		final double cz = moments[ Z ] / n;
+
+		final Matrix covariance = new Matrix( 3, 3 );
+		covariance.set( 0, 0, moments[ XX ] / n - cx * cx );
+		covariance.set( 1, 1, moments[ YY ] / n - cy * cy );
+		covariance.set( 2, 2, moments[ ZZ ] / n - cz * cz );
+		covariance.set( 0, 1, moments[ XY ] / n - cx * cy );
+		covariance.set( 0, 2, moments[ XZ ] / n - cx * cz );
+		covariance.set( 1, 2, moments[ YZ ] / n - cy * cz );
+		covariance.set( 1, 0, covariance.get( 0, 1 ) );
+		covariance.set( 2, 0, covariance.get( 0, 2 ) );
+		covariance.set( 2, 1, covariance.get( 1, 2 ) );
+
+		// for symmetric matrices, the eigenvalues are in ascending order
+		final EigenvalueDecomposition eigen = new EigenvalueDecomposition( covariance );
+		final double[] eigenvalues = eigen.getRealEigenvalues();
+		final Matrix eigenvectors = eigen.getV();
+
+		final EllipsoidVectors ellipsoidVectors = new EllipsoidVectors();
+		ellipsoidVectors.center = new double[]{ mask.min( 0 ) + cx, mask.min( 1 ) + cy, mask.min( 2 ) + cz };
+		ellipsoidVectors.shortestAxis = axis( eigenvectors, 0 );
+		ellipsoidVectors.middleAxis = axis( eigenvectors, 1 );
+		ellipsoidVectors.longestAxis = axis( eigenvectors, 2 );
+		ellipsoidVectors.shortestAxisLength = 2 * radius( eigenvalues[ 0 ] );
+		ellipsoidVectors.middleAxisLength = 2 * radius( eigenvalues[ 1 ] );
+		ellipsoidVectors.longestAxisLength = 2 * radius( eigenvalues[ 2 ] );
+
+		return ellipsoidVectors;
+	}
+
+	private static Vector3D axis( Matrix eigenvectors, int column )
+	{
+		return new Vector3D( eigenvectors.get( 0, column ), eigenvectors.get( 1, column ), eigenvectors.get( 2, column ) );
+	}
+
+	private static double radius( double eigenvalue )
+	{
+		// rounding may render the eigenvalues of flat masks slightly negative
+		return Math.sqrt( 5 * Math.max( 0, eigenvalue ) );
+	}
+
+	/**
+	 * @return the number of voxels and the sums of the coordinates and their products,
+	 * 			with the coordinates relative to the mask minimum
+	 */
+	static long[] computeMoments( RandomAccessibleInterval< BitType > mask, ExecutorService executorService )
+	{
+		if ( mask instanceof RunLengthMask )
+			return computeMoments( ( RunLengthMask ) mask );
+
+		final long[] moments = new long[ 10 ];
+		final long[] min = Intervals.minAsLongArray( mask );
+		final long[] max = Intervals.maxAsLongArray( mask );
+
+		Parallel.forRanges( 0, (int) mask.dimension( 2 ), executorService, ( start, end ) ->
+		{
+			final long[] slabMin = min.clone();
+			final long[] slabMax = max.clone();
+			slabMin[ 2 ] = min[ 2 ] + start;
+			slabMax[ 2 ] = min[ 2 ] + end - 1;
+
+			final long[] slabMoments = computeMoments( mask, new FinalInterval( slabMin, slabMax ), start );
+			synchronized ( moments )
+			{
+				for ( int i = 0; i < moments.length; i++ )
+					moments[ i ] += slabMoments[ i ];
+			}
+		} );
+
+		return moments;
+	}
+
+	/**
+	 * Sums the moments of the runs in closed form.
+	 */
+	private static long[] computeMoments( RunLengthMask mask )
+	{
+		final long[] moments = new long[ 10 ];
+		final long[] min = Intervals.minAsLongArray( mask );
+
+		mask.forEachRun( ( start, length ) ->
+		{
+			final long x = start[ 0 ] - min[ 0 ];
+			final long y = start[ 1 ] - min[ 1 ];
+			final long z = start[ 2 ] - min[ 2 ];
+			final long count = length;
+
+			// sums of x + i and ( x + i )^2, for i in [ 0, length )
+			final long sumI = count * ( count - 1 ) / 2;
+			final long sumII = ( count - 1 ) * count * ( 2 * count - 1 ) / 6;
+			final long sumX = count * x + sumI;
+			final long sumXX = count * x * x + 2 * x * sumI + sumII;
+
+			add( moments, count, sumX, sumXX, y, z );
+		} );
+
+		return moments;
+	}
+
+	private static void add( long[] moments, long count, long sumX, long sumXX, long y, long z )
+	{
+		moments[ COUNT ] += count;
+		moments[ X ] += sumX;
+		moments[ Y ] += count * y;
+		moments[ Z ] += count * z;
+		moments[ XX ] += sumXX;
+		moments[ YY ] += count * y * y;
+		moments[ ZZ ] += count * z * z;
+		moments[ XY ] += sumX * y;
+		moments[ XZ ] += sumX * z;
+		moments[ YZ ] += count * y * z;
+	}
+
+	private static long[] computeMoments( RandomAccessibleInterval< BitType > mask, FinalInterval slab, long zStart )
+	{
+		final long[] moments = new long[ 10 ];
+		final int width = (int) slab.dimension( 0 );
+		final long height = slab.dimension( 1 );
+		final long depth = slab.dimension( 2 );
+
+		final Cursor< BitType > cursor = Views.flatIterable( Views.interval( mask, slab ) ).cursor();
+		for ( long z = zStart; z < zStart + depth; z++ )
+		{
+			for ( long y = 0; y < height; y++ )
+			{
+				// moments of the row, combined with y and z below
+				long count = 0, sumX = 0, sumXX = 0;
+				for ( long x = 0; x < width; x++ )
+				{
+					if ( cursor.next().get() )
+					{
+						count++;
+						sumX += x;
+						sumXX += x * x;
+					}
+				}
+
+				if ( count > 0 )
+					add( moments, count, sumX, sumXX, y, z );
+			}
+		}
+
+		return moments;
+	}
+}
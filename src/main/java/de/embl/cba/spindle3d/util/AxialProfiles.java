@@ -0,0 +1,215 @@
+package de.embl.cba.spindle3d.util;
+
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+import java.util.Arrays;
+
+/**
+ * Sum, count, minimum and maximum of the pixel values in each plane perpendicular
+ * to an axis, restricted to the pixels within a distance of the axis.
+ *
+ * All statistics are computed in one pass over the bounding box of the cylinder
+ * around the axis. Per row, the pixels within the distance are given by the chord
+ * of the row through the cylinder, such that no per pixel distance is computed.
+ */
+public class AxialProfiles
+{
+	private final long planeMin;
+	private final int numPlanes;
+	private final double[] sums;
+	private final long[] counts;
+	private final double[] minima;
+	private final double[] maxima;
+
+	/**
+	 * @param rai
+	 * @param axis
+	 * @param maxAxisDistance
+	 * 			in pixels, the axis going through the origin of the other dimensions
+	 */
+	public < T extends RealType< T > > AxialProfiles( RandomAccessibleInterval< T > rai, int axis, double maxAxisDistance )
+	{
+		this( rai, axis, maxAxisDistance, rai.min( axis ), rai.max( axis ) );
+	}
+
+	/**
+	 * @param rai
+	 * @param axis
+	 * @param maxAxisDistance
+	 * 			in pixels, the axis going through the origin of the other dimensions
+	 * @param planeMin
+	 * @param planeMax
+	 * 			planes outside of the rai are empty
+	 */
+	public < T extends RealType< T > > AxialProfiles(
+			RandomAccessibleInterval< T > rai,
+			int axis,
+			double maxAxisDistance,
+			long planeMin,
+			long planeMax )
+	{
+		this.planeMin = planeMin;
+		this.numPlanes = (int) Math.max( 0, planeMax - planeMin + 1 );
+		this.sums = new double[ numPlanes ];
+		this.counts = new long[ numPlanes ];
+		this.minima = new double[ numPlanes ];
+		this.maxima = new double[ numPlanes ];
+		Arrays.fill( minima, Double.MAX_VALUE );
+		Arrays.fill( maxima, - Double.MAX_VALUE );
+
+		if ( numPlanes > 0 && maxAxisDistance >= 0 )
+			accumulate( rai, axis, maxAxisDistance, planeMax );
+	}
+
+	private < T extends RealType< T > > void accumulate(
+			RandomAccessibleInterval< T > rai,
+			int axis,
+			double maxAxisDistance,
+			long planeMax )
+	{
+		final int n = rai.numDimensions();
+
+		// bounding box of the cylinder
+		final long[] min = new long[ n ];
+		final long[] max = new long[ n ];
+		final long radius = (long) Math.floor( maxAxisDistance );
+		for ( int d = 0; d < n; d++ )
+		{
+			min[ d ] = d == axis ? planeMin : - radius;
+			max[ d ] = d == axis ? planeMax : radius;
+		}
+
+		final FinalInterval interval = Intervals.intersect( rai, new FinalInterval( min, max ) );
+		if ( Intervals.isEmpty( interval ) ) return;
+
+		final double maxSquaredDistance = maxAxisDistance * maxAxisDistance;
+		final int width = (int) interval.dimension( 0 );
+		final long min0 = interval.min( 0 );
+		final long numRows = Intervals.numElements( interval ) / width;
+		final long[] position = Intervals.minAsLongArray( interval );
+
+		final Cursor< T > cursor = Views.flatIterable( Views.interval( rai, interval ) ).cursor();
+		long cursorIndex = -1;
+
+		for ( long r = 0; r < numRows; r++ )
+		{
+			double rowSquaredDistance = 0;
+			for ( int d = 1; d < n; d++ )
+				if ( d != axis )
+					rowSquaredDistance += position[ d ] * position[ d ];
+
+			if ( rowSquaredDistance <= maxSquaredDistance )
+			{
+				final int start;
+				final int end;
+				if ( axis == 0 )
+				{
+					start = 0;
+					end = width;
+				}
+				else
+				{
+					final long halfChord = halfChord( maxSquaredDistance - rowSquaredDistance );
+					start = (int) ( Math.max( min0, - halfChord ) - min0 );
+					end = (int) ( Math.min( min0 + width - 1, halfChord ) - min0 + 1 );
+				}
+
+				if ( start < end )
+				{
+					cursor.jumpFwd( r * width + start - cursorIndex );
+					cursorIndex = r * width + end - 1;
+
+					int plane = axis == 0 ? (int) ( min0 + start - planeMin ) : (int) ( position[ axis ] - planeMin );
+					for ( int x = start; x < end; x++ )
+					{
+						if ( x > start ) cursor.fwd();
+						final double value = cursor.get().getRealDouble();
+
+						sums[ plane ] += value;
+						counts[ plane ]++;
+						if ( value < minima[ plane ] ) minima[ plane ] = value;
+						if ( value > maxima[ plane ] ) maxima[ plane ] = value;
+
+						if ( axis == 0 ) plane++;
+					}
+				}
+			}
+
+			for ( int d = 1; d < n; d++ )
+			{
+				if ( position[ d ] < interval.max( d ) )
+				{
+					position[ d ]++;
+					break;
+				}
+				position[ d ] = interval.min( d );
+			}
+		}
+	}
+
+	/**
+	 * @return the largest x with x * x <= squaredHalfChord
+	 */
+	private static long halfChord( double squaredHalfChord )
+	{
+		long halfChord = (long) Math.sqrt( squaredHalfChord );
+		while ( halfChord * halfChord > squaredHalfChord ) halfChord--;
+		while ( ( halfChord + 1 ) * ( halfChord + 1 ) <= squaredHalfChord ) halfChord++;
+		return halfChord;
+	}
+
+	public int numPlanes()
+	{
+		return numPlanes;
+	}
+
+	public double[] getSums()
+	{
+		return sums;
+	}
+
+	public long[] getCounts()
+	{
+		return counts;
+	}
+
+	/**
+	 * @return per plane, the mean value, or NaN if the plane contains no pixel
+	 */
+	public Profile averages( double calibration )
+	{
+		final Profile profile = new Profile( numPlanes );
+		for ( int i = 0; i < numPlanes; i++ )
+			profile.set( i, ( planeMin + i ) * calibration, sums[ i ] / counts[ i ] );
+		return profile;
+	}
+
+	/**
+	 * @return per plane, the maximal value, or - Double.MAX_VALUE if the plane contains no pixel
+	 */
+	public Profile maxima( double calibration )
+	{
+		return new Profile( coordinates( calibration ), Arrays.copyOf( maxima, numPlanes ) );
+	}
+
+	/**
+	 * @return per plane, the minimal value, or Double.MAX_VALUE if the plane contains no pixel
+	 */
+	public Profile minima( double calibration )
+	{
+		return new Profile( coordinates( calibration ), Arrays.copyOf( minima, numPlanes ) );
+	}
+
+	private double[] coordinates( double calibration )
+	{
+		final double[] coordinates = new double[ numPlanes ];
+		for ( int i = 0; i < numPlanes; i++ )
+			coordinates[ i ] = ( planeMin + i ) * calibration;
+		return coordinates;
+	}
+}
@@ -0,0 +1,310 @@
+package de.embl.cba.spindle3d.util;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.neighborhood.HyperSphereShape;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Dilation, erosion and opening of 2D and 3D masks with the spherical structuring element
+ * of a {@link HyperSphereShape}, i.e. all offsets within the radius.
+ *
+ * The mask is packed into 64-bit words, row by row. The sphere is decomposed into rows:
+ * for each offset ( dy, dz ) of the rows within the radius, the neighbouring row is dilated
+ * (or eroded) along x by the half-width of the sphere at that offset, using word shifts,
+ * and combined with the output row. Slabs of rows are processed concurrently.
+ *
+ * Voxels outside of the mask interval are background; for dilation, this is equivalent
+ * to extending the border of the mask.
+ */
+public abstract class BinaryMorphology
+{
+	/**
+	 * @param mask
+	 * @param radius
+	 * 			in voxels
+	 * @param executorService
+	 * 			may be null
+	 * @return the dilated mask, with the interval of the mask
+	 */
+	public static RandomAccessibleInterval< BitType > dilate(
+			RandomAccessibleInterval< BitType > mask,
+			int radius,
+			ExecutorService executorService )
+	{
+		return BitRows.of( mask, executorService ).morph( radius, true, executorService ).asMask( executorService );
+	}
+
+	public static RandomAccessibleInterval< BitType > erode(
+			RandomAccessibleInterval< BitType > mask,
+			int radius,
+			ExecutorService executorService )
+	{
+		return BitRows.of( mask, executorService ).morph( radius, false, executorService ).asMask( executorService );
+	}
+
+	/**
+	 * Erosion followed by dilation, which removes the structures that are thinner than the sphere.
+	 *
+	 * @param mask
+	 * @param radius
+	 * 			in voxels; the mask is returned if it is not positive
+	 * @param executorService
+	 * 			may be null
+	 * @return the opened mask, with the interval of the mask
+	 */
+	public static RandomAccessibleInterval< BitType > open(
+			RandomAccessibleInterval< BitType > mask,
+			int radius,
+			ExecutorService executorService )
+	{
+		if ( radius <= 0 ) return mask;
+
+		return BitRows.of( mask, executorService )
+				.morph( radius, false, executorService )
+				.morph( radius, true, executorService )
+				.asMask( executorService );
+	}
+
+	/**
+	 * The rows of a mask, each packed into whole words, such that they can be shifted independently;
+	 * a 2D mask has a depth of one.
+	 */
+	private static class BitRows
+	{
+		private final long[] min;
+		private final long[] dimensions;
+		private final int width;
+		private final int height;
+		private final int depth;
+		private final int wordsPerRow;
+		private final long lastWordMask;
+		private final long[] words;
+
+		BitRows( long[] min, long[] dimensions )
+		{
+			if ( dimensions.length < 2 || dimensions.length > 3 )
+				throw new UnsupportedOperationException( "Only 2D and 3D masks are supported." );
+
+			this.min = min;
+			this.dimensions = dimensions;
+			this.width = (int) dimensions[ 0 ];
+			this.height = (int) dimensions[ 1 ];
+			this.depth = dimensions.length == 3 ? (int) dimensions[ 2 ] : 1;
+			this.wordsPerRow = ( width + 63 ) / 64;
+			this.lastWordMask = width % 64 == 0 ? -1L : ( 1L << ( width % 64 ) ) - 1;
+
+			final long numWords = (long) wordsPerRow * height * depth;
+			if ( numWords > Integer.MAX_VALUE - 8 )
+				throw new UnsupportedOperationException( "Masks with more than 2^37 voxels are not supported." );
+			this.words = new long[ (int) numWords ];
+		}
+
+		private BitRows( BitRows template )
+		{
+			this( template.min, template.dimensions );
+		}
+
+		static BitRows of( RandomAccessibleInterval< BitType > mask, ExecutorService executorService )
+		{
+			final BitRows rows = new BitRows( Intervals.minAsLongArray( mask ), Intervals.dimensionsAsLongArray( mask ) );
+
+			if ( mask instanceof RunLengthMask )
+			{
+				( ( RunLengthMask ) mask ).forEachRun( ( start, length ) ->
+				{
+					final long z = rows.dimensions.length == 2 ? 0 : start[ 2 ] - rows.min[ 2 ];
+					final int row = (int) ( z * rows.height + start[ 1 ] - rows.min[ 1 ] );
+					final int x = (int) ( start[ 0 ] - rows.min[ 0 ] );
+					for ( int i = x; i < x + length; i++ )
+						rows.words[ row * rows.wordsPerRow + ( i >>> 6 ) ] |= 1L << i;
+				} );
+			}
+			else
+			{
+				Parallel.forRanges( 0, rows.height * rows.depth, executorService, ( start, end ) ->
+				{
+					final Cursor< BitType > cursor = Views.flatIterable( mask ).cursor();
+					cursor.jumpFwd( (long) start * rows.width );
+					for ( int row = start; row < end; row++ )
+					{
+						final int offset = row * rows.wordsPerRow;
+						for ( int x = 0; x < rows.width; x++ )
+							if ( cursor.next().get() )
+								rows.words[ offset + ( x >>> 6 ) ] |= 1L << x;
+					}
+				} );
+			}
+
+			return rows;
+		}
+
+		BitRows morph( int radius, boolean isDilation, ExecutorService executorService )
+		{
+			final BitRows morphed = new BitRows( this );
+
+			// the row offsets within the sphere and the half-widths of the sphere along x
+			final List< int[] > rowOffsets = new ArrayList<>();
+			final int radiusZ = dimensions.length == 3 ? radius : 0;
+			for ( int dz = -radiusZ; dz <= radiusZ; dz++ )
+				for ( int dy = -radius; dy <= radius; dy++ )
+					if ( dy * dy + dz * dz <= radius * radius )
+						rowOffsets.add( new int[]{ dy, dz, (int) Math.floor( Math.sqrt( radius * radius - dy * dy - dz * dz ) ) } );
+
+			Parallel.forRanges( 0, height * depth, executorService, ( start, end ) ->
+			{
+				final long[] spread = new long[ wordsPerRow ];
+				final long[] up = new long[ wordsPerRow ];
+				final long[] down = new long[ wordsPerRow ];
+
+				for ( int row = start; row < end; row++ )
+				{
+					final int y = row % height;
+					final int z = row / height;
+					final int offset = row * wordsPerRow;
+
+					if ( ! isDilation )
+					{
+						for ( int j = 0; j < wordsPerRow; j++ )
+							morphed.words[ offset + j ] = -1L;
+						morphed.words[ offset + wordsPerRow - 1 ] = lastWordMask;
+					}
+
+					for ( int[] rowOffset : rowOffsets )
+					{
+						final int neighbourY = y + rowOffset[ 0 ];
+						final int neighbourZ = z + rowOffset[ 1 ];
+						if ( neighbourY < 0 || neighbourY >= height || neighbourZ < 0 || neighbourZ >= depth )
+						{
+							if ( isDilation ) continue;
+
+							// the neighbouring row is background
+							for ( int j = 0; j < wordsPerRow; j++ )
+								morphed.words[ offset + j ] = 0;
+							break;
+						}
+
+						spread( ( neighbourZ * height + neighbourY ) * wordsPerRow, rowOffset[ 2 ], isDilation, spread, up, down );
+
+						for ( int j = 0; j < wordsPerRow; j++ )
+							if ( isDilation )
+								morphed.words[ offset + j ] |= spread[ j ];
+							else
+								morphed.words[ offset + j ] &= spread[ j ];
+					}
+				}
+			} );
+
+			return morphed;
+		}
+
+		/**
+		 * Dilates or erodes one row along x, by combining it with copies of itself
+		 * that are shifted by doubling distances.
+		 */
+		private void spread( int offset, int halfWidth, boolean isDilation, long[] spread, long[] up, long[] down )
+		{
+			System.arraycopy( words, offset, spread, 0, wordsPerRow );
+
+			int covered = 0;
+			while ( covered < halfWidth )
+			{
+				final int shift = Math.min( covered + 1, halfWidth - covered );
+				shiftUp( spread, shift, up );
+				shiftDown( spread, shift, down );
+				for ( int j = 0; j < wordsPerRow; j++ )
+					if ( isDilation )
+						spread[ j ] |= up[ j ] | down[ j ];
+					else
+						spread[ j ] &= up[ j ] & down[ j ];
+				spread[ wordsPerRow - 1 ] &= lastWordMask;
+				covered += shift;
+			}
+		}
+
+		/**
+		 * shifted[ x ] = row[ x - shift ]
+		 */
+		private void shiftUp( long[] row, int shift, long[] shifted )
+		{
+			final int wordShift = shift >>> 6;
+			final int bitShift = shift & 63;
+			for ( int j = 0; j < wordsPerRow; j++ )
+			{
+				final int i = j - wordShift;
+				long value = i >= 0 ? row[ i ] << bitShift : 0;
+				if ( bitShift != 0 && i - 1 >= 0 ) value |= row[ i - 1 ] >>> ( 64 - bitShift );
+				shifted[ j ] = value;
+			}
+		}
+
+		/**
+		 * shifted[ x ] = row[ x + shift ]
+		 */
+		private void shiftDown( long[] row, int shift, long[] shifted )
+		{
+			final int wordShift = shift >>> 6;
+			final int bitShift = shift & 63;
+			for ( int j = 0; j < wordsPerRow; j++ )
+			{
+				final int i = j + wordShift;
+				long value = i < wordsPerRow ? row[ i ] >>> bitShift : 0;
+				if ( bitShift != 0 && i + 1 < wordsPerRow ) value |= row[ i + 1 ] << ( 64 - bitShift );
+				shifted[ j ] = value;
+			}
+		}
+
+		/**
+		 * Copies the rows into the words of a BitType ArrayImg, which stores the bits in flat iteration order,
+		 * with ranges of words processed concurrently.
+		 */
+		RandomAccessibleInterval< BitType > asMask( ExecutorService executorService )
+		{
+			final ArrayImg< BitType, LongArray > mask = ArrayImgs.bits( dimensions );
+			final long[] maskWords = mask.update( null ).getCurrentStorageArray();
+			final long numVoxels = (long) width * height * depth;
+
+			Parallel.forRanges( 0, maskWords.length, executorService, ( start, end ) ->
+			{
+				for ( int k = start; k < end; k++ )
+				{
+					long value = 0;
+					int numBits = 0;
+					while ( numBits < 64 && 64L * k + numBits < numVoxels )
+					{
+						final long index = 64L * k + numBits;
+						final int row = (int) ( index / width );
+						final int x = (int) ( index % width );
+						final int n = (int) Math.min( Math.min( 64 - numBits, width - x ), numVoxels - index );
+						value |= bits( row * wordsPerRow, x, n ) << numBits;
+						numBits += n;
+					}
+					maskWords[ k ] = value;
+				}
+			} );
+
+			return Views.translate( mask, min );
+		}
+
+		/**
+		 * @return the n bits of a row, starting at x, in the lowest bits
+		 */
+		private long bits( int offset, int x, int n )
+		{
+			final int j = x >>> 6;
+			final int bitShift = x & 63;
+			long value = words[ offset + j ] >>> bitShift;
+			if ( bitShift != 0 && j + 1 < wordsPerRow ) value |= words[ offset + j + 1 ] << ( 64 - bitShift );
+			return n == 64 ? value : value & ( ( 1L << n ) - 1 );
+		}
+	}
+}
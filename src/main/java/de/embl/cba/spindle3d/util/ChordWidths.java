@@ -0,0 +1,162 @@
+package de.embl.cba.spindle3d.util;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+import java.util.Arrays;
+
+/**
+ * Lengths of the chords of a 2D mask through a center, at arbitrary angles.
+ *
+ * The foreground is extracted once as horizontal runs of pixels. The chord length
+ * at an angle is the total length of the line through the center that lies within
+ * the pixel squares of the runs, which is computed analytically by clipping
+ * the line to each run.
+ */
+public class ChordWidths
+{
+	/**
+	 * Per run: left, right, bottom and top edge, relative to the center.
+	 */
+	private final double[] runEdges;
+	private final int numRuns;
+
+	/**
+	 * @param mask
+	 * 			2D, with the center at the origin
+	 */
+	public ChordWidths( RandomAccessibleInterval< BitType > mask )
+	{
+		this( mask, new double[]{ 0, 0 } );
+	}
+
+	public ChordWidths( RandomAccessibleInterval< BitType > mask, double[] center )
+	{
+		final int width = (int) mask.dimension( 0 );
+		final long numRows = Intervals.numElements( mask ) / width;
+		final long minX = mask.min( 0 );
+		final long minY = mask.min( 1 );
+
+		double[] edges = new double[ 4 * 64 ];
+		int count = 0;
+
+		final Cursor< BitType > cursor = Views.flatIterable( mask ).cursor();
+		for ( long row = 0; row < numRows; row++ )
+		{
+			final double y = minY + row - center[ 1 ];
+			int runStart = -1;
+			for ( int x = 0; x <= width; x++ )
+			{
+				final boolean isForeground = x < width && cursor.next().get();
+				if ( isForeground && runStart == -1 )
+				{
+					runStart = x;
+				}
+				else if ( ! isForeground && runStart != -1 )
+				{
+					if ( 4 * ( count + 1 ) > edges.length )
+						edges = Arrays.copyOf( edges, 2 * edges.length );
+
+					edges[ 4 * count ] = minX + runStart - center[ 0 ] - 0.5;
+					edges[ 4 * count + 1 ] = minX + x - 1 - center[ 0 ] + 0.5;
+					edges[ 4 * count + 2 ] = y - 0.5;
+					edges[ 4 * count + 3 ] = y + 0.5;
+					count++;
+					runStart = -1;
+				}
+			}
+		}
+
+		this.runEdges = edges;
+		this.numRuns = count;
+	}
+
+	/**
+	 * @param angle
+	 * 			in radians
+	 * @return the chord length, in pixels
+	 */
+	public double width( double angle )
+	{
+		final double ux = Math.cos( angle );
+		final double uy = Math.sin( angle );
+
+		double width = 0;
+		for ( int r = 0; r < numRuns; r++ )
+		{
+			final int i = 4 * r;
+
+			// the line parameters within the y and x extent of the run
+			double tMin = Double.NEGATIVE_INFINITY;
+			double tMax = Double.POSITIVE_INFINITY;
+
+			if ( uy == 0 )
+			{
+				if ( runEdges[ i + 2 ] > 0 || runEdges[ i + 3 ] <= 0 ) continue;
+			}
+			else
+			{
+				tMin = runEdges[ i + 2 ] / uy;
+				tMax = runEdges[ i + 3 ] / uy;
+				if ( tMin > tMax )
+				{
+					final double tmp = tMin;
+					tMin = tMax;
+					tMax = tmp;
+				}
+			}
+
+			if ( ux == 0 )
+			{
+				if ( runEdges[ i ] > 0 || runEdges[ i + 1 ] <= 0 ) continue;
+			}
+			else
+			{
+				double t0 = runEdges[ i ] / ux;
+				double t1 = runEdges[ i + 1 ] / ux;
+				if ( t0 > t1 )
+				{
+					final double tmp = t0;
+					t0 = t1;
+					t1 = tmp;
+				}
+				tMin = Math.max( tMin, t0 );
+				tMax = Math.min( tMax, t1 );
+			}
+
+			if ( tMax > tMin )
+				width += tMax - tMin;
+		}
+
+		return width;
+	}
+
+	/**
+	 * @param numAngles
+	 * @return the chord lengths at the angles i * PI / numAngles, in pixels
+	 */
+	public double[] widths( int numAngles )
+	{
+		final double[] widths = new double[ numAngles ];
+		for ( int i = 0; i < numAngles; i++ )
+			widths[ i ] = width( i * Math.PI / numAngles );
+		return widths;
+	}
+
+	/**
+	 * @param sortedValues
+	 * @param percentile
+	 * 			between 0 and 100
+	 * @return the linearly interpolated percentile
+	 */
+	public static double percentile( double[] sortedValues, double percentile )
+	{
+		final double position = percentile / 100.0 * ( sortedValues.length - 1 );
+		final int lower = (int) Math.floor( position );
+		final int upper = Math.min( lower + 1, sortedValues.length - 1 );
+		return sortedValues[ lower ] + ( position - lower ) * ( sortedValues[ upper ] - sortedValues[ lower ] );
+	}
+}
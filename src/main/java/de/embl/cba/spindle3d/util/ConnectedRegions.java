@@ -0,0 +1,388 @@
+package de.embl.cba.spindle3d.util;
+
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.labeling.ConnectedComponents;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Connected components of a 2D or 3D mask, with their size, bounding box,
+ * border contact and distance to a center, which are computed while labeling
+ * in one pass over the mask.
+ *
+ * Masks of selected regions are then created in one additional pass,
+ * without any further labeling.
+ *
+ * As in {@link ConnectedComponents}, FOUR_CONNECTED denotes the
+ * 6-neighbourhood and EIGHT_CONNECTED the 26-neighbourhood in 3D.
+ */
+public class ConnectedRegions
+{
+	public static class Region
+	{
+		public long size;
+		public long[] min;
+		public long[] max;
+
+		/**
+		 * Per dimension, whether the region touches the min or max of the mask interval.
+		 */
+		public boolean[] isTouchingBorder;
+
+		/**
+		 * Squared distance (in voxels) of the region voxel that is closest to the center;
+		 * Double.MAX_VALUE if no center was given.
+		 */
+		public double minSquaredDistanceToCenter;
+
+		private int index;
+
+		public boolean isTouchingBorder( int borderDimensions )
+		{
+			for ( int d = 0; d < borderDimensions; d++ )
+				if ( isTouchingBorder[ d ] ) return true;
+			return false;
+		}
+
+		public FinalInterval getBoundingInterval()
+		{
+			return new FinalInterval( min, max );
+		}
+	}
+
+	private final RandomAccessibleInterval< BitType > mask;
+	private final long[] maskMin;
+
+	/**
+	 * The label of each voxel, in flat iteration order; 0 is background.
+	 */
+	private final int[] labels;
+
+	/**
+	 * The region index of each label.
+	 */
+	private int[] labelToRegion;
+
+	private final List< Region > regions = new ArrayList<>();
+
+	public ConnectedRegions(
+			RandomAccessibleInterval< BitType > mask,
+			ConnectedComponents.StructuringElement structuringElement )
+	{
+		this( mask, structuringElement, null );
+	}
+
+	/**
+	 * @param mask
+	 * @param structuringElement
+	 * @param center
+	 * 			position, in the coordinates of the mask, to which the minimal squared distance
+	 * 			of each region is measured; may be null
+	 */
+	public ConnectedRegions(
+			RandomAccessibleInterval< BitType > mask,
+			ConnectedComponents.StructuringElement structuringElement,
+			double[] center )
+	{
+		if ( mask.numDimensions() > 3 )
+			throw new UnsupportedOperationException( "Only 2D and 3D masks are supported." );
+
+		final long numVoxels = Intervals.numElements( mask );
+		if ( numVoxels > Integer.MAX_VALUE - 8 )
+			throw new UnsupportedOperationException( "Masks with more than 2^31 voxels are not supported." );
+
+		this.mask = mask;
+		this.maskMin = Intervals.minAsLongArray( mask );
+		this.labels = new int[ (int) numVoxels ];
+
+		label( structuringElement == ConnectedComponents.StructuringElement.EIGHT_CONNECTED, center );
+	}
+
+	public List< Region > getRegions()
+	{
+		return regions;
+	}
+
+	public List< Region > getRegions( Predicate< Region > filter )
+	{
+		final List< Region > filtered = new ArrayList<>();
+		for ( Region region : regions )
+			if ( filter.test( region ) )
+				filtered.add( region );
+		return filtered;
+	}
+
+	/**
+	 * @param regions
+	 * @return the largest of the regions, or null if there are none
+	 */
+	public static Region getLargestRegion( List< Region > regions )
+	{
+		Region largest = null;
+		for ( Region region : regions )
+			if ( largest == null || region.size > largest.size )
+				largest = region;
+		return largest;
+	}
+
+	/**
+	 * @param region
+	 * @return a mask with the interval of the input mask, containing only the given region
+	 */
+	public RandomAccessibleInterval< BitType > createMask( Region region )
+	{
+		return createMask( r -> r == region );
+	}
+
+	/**
+	 * @param filter
+	 * @return a mask with the interval of the input mask, containing only the regions that pass the filter
+	 */
+	public RandomAccessibleInterval< BitType > createMask( Predicate< Region > filter )
+	{
+		final boolean[] isKeptRegion = new boolean[ regions.size() ];
+		for ( Region region : regions )
+			isKeptRegion[ region.index ] = filter.test( region );
+
+		final boolean[] isKeptLabel = new boolean[ labelToRegion.length ];
+		for ( int label = 1; label < labelToRegion.length; label++ )
+			isKeptLabel[ label ] = isKeptRegion[ labelToRegion[ label ] ];
+
+		final RandomAccessibleInterval< BitType > regionsMask =
+				Views.translate( ArrayImgs.bits( Intervals.dimensionsAsLongArray( mask ) ), maskMin );
+
+		// ArrayImg cursors iterate in flat order
+		final Cursor< BitType > cursor = Views.flatIterable( regionsMask ).cursor();
+		for ( int i = 0; i < labels.length; i++ )
+		{
+			cursor.fwd();
+			if ( isKeptLabel[ labels[ i ] ] )
+				cursor.get().set( true );
+		}
+
+		return regionsMask;
+	}
+
+	private void label( boolean isFullyConnected, double[] center )
+	{
+		final int n = mask.numDimensions();
+		final long[] dims = new long[]{ 1, 1, 1 };
+		for ( int d = 0; d < n; d++ )
+			dims[ d ] = mask.dimension( d );
+		final int width = (int) dims[ 0 ];
+		final int height = (int) dims[ 1 ];
+		final int depth = (int) dims[ 2 ];
+		final int planeSize = width * height;
+
+		final int[][] offsets = getPrecedingNeighbourOffsets( isFullyConnected );
+
+		final double[] centerInVoxels = new double[ 3 ];
+		if ( center != null )
+			for ( int d = 0; d < n; d++ )
+				centerInVoxels[ d ] = center[ d ] - maskMin[ d ];
+
+		final LabelStatistics statistics = new LabelStatistics();
+		final int[] neighbourLabels = new int[ offsets.length ];
+		final Cursor< BitType > cursor = Views.flatIterable( mask ).cursor();
+
+		int i = 0;
+		for ( int z = 0; z < depth; z++ )
+		{
+			final double dz2 = center == null ? 0 : ( z - centerInVoxels[ 2 ] ) * ( z - centerInVoxels[ 2 ] );
+			for ( int y = 0; y < height; y++ )
+			{
+				final double dy2 = center == null ? 0 : ( y - centerInVoxels[ 1 ] ) * ( y - centerInVoxels[ 1 ] );
+				for ( int x = 0; x < width; x++, i++ )
+				{
+					if ( ! cursor.next().get() ) continue;
+
+					int numNeighbourLabels = 0;
+					for ( int[] offset : offsets )
+					{
+						final int nx = x + offset[ 0 ];
+						final int ny = y + offset[ 1 ];
+						final int nz = z + offset[ 2 ];
+						if ( nx < 0 || nx >= width || ny < 0 || ny >= height || nz < 0 ) continue;
+
+						final int neighbourLabel = labels[ nz * planeSize + ny * width + nx ];
+						if ( neighbourLabel != 0 )
+							neighbourLabels[ numNeighbourLabels++ ] = neighbourLabel;
+					}
+
+					final int label;
+					if ( numNeighbourLabels == 0 )
+					{
+						label = statistics.newLabel();
+					}
+					else
+					{
+						label = neighbourLabels[ 0 ];
+						for ( int k = 1; k < numNeighbourLabels; k++ )
+							statistics.union( label, neighbourLabels[ k ] );
+					}
+
+					labels[ i ] = label;
+
+					final double distance = center == null ? Double.MAX_VALUE :
+							( x - centerInVoxels[ 0 ] ) * ( x - centerInVoxels[ 0 ] ) + dy2 + dz2;
+					statistics.add( label, x, y, z, distance );
+				}
+			}
+		}
+
+		collectRegions( statistics, dims );
+	}
+
+	/**
+	 * Offsets of the neighbours that precede a voxel in flat iteration order.
+	 */
+	private static int[][] getPrecedingNeighbourOffsets( boolean isFullyConnected )
+	{
+		if ( ! isFullyConnected )
+			return new int[][]{ { -1, 0, 0 }, { 0, -1, 0 }, { 0, 0, -1 } };
+
+		final List< int[] > offsets = new ArrayList<>();
+		for ( int dz = -1; dz <= 0; dz++ )
+			for ( int dy = -1; dy <= 1; dy++ )
+				for ( int dx = -1; dx <= 1; dx++ )
+					if ( dz < 0 || dy < 0 || ( dy == 0 && dx < 0 ) )
+						offsets.add( new int[]{ dx, dy, dz } );
+
+		return offsets.toArray( new int[ 0 ][] );
+	}
+
+	private void collectRegions( LabelStatistics statistics, long[] dims )
+	{
+		final int numLabels = statistics.numLabels;
+		labelToRegion = new int[ numLabels + 1 ];
+		final int[] rootToRegion = new int[ numLabels + 1 ];
+		Arrays.fill( rootToRegion, -1 );
+
+		for ( int label = 1; label <= numLabels; label++ )
+		{
+			final int root = statistics.find( label );
+			if ( rootToRegion[ root ] == -1 )
+			{
+				final Region region = new Region();
+				region.index = regions.size();
+				region.min = new long[]{ Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+				region.max = new long[]{ Long.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE };
+				region.minSquaredDistanceToCenter = Double.MAX_VALUE;
+				regions.add( region );
+				rootToRegion[ root ] = region.index;
+			}
+
+			final Region region = regions.get( rootToRegion[ root ] );
+			labelToRegion[ label ] = region.index;
+			region.size += statistics.sizes[ label ];
+			for ( int d = 0; d < 3; d++ )
+			{
+				region.min[ d ] = Math.min( region.min[ d ], statistics.mins[ 3 * label + d ] );
+				region.max[ d ] = Math.max( region.max[ d ], statistics.maxs[ 3 * label + d ] );
+			}
+			region.minSquaredDistanceToCenter = Math.min( region.minSquaredDistanceToCenter, statistics.minDistances[ label ] );
+		}
+
+		final int n = mask.numDimensions();
+		for ( Region region : regions )
+		{
+			region.isTouchingBorder = new boolean[ n ];
+			for ( int d = 0; d < n; d++ )
+				region.isTouchingBorder[ d ] = region.min[ d ] == 0 || region.max[ d ] == dims[ d ] - 1;
+
+			// from voxel indices to mask coordinates
+			final long[] min = new long[ n ];
+			final long[] max = new long[ n ];
+			for ( int d = 0; d < n; d++ )
+			{
+				min[ d ] = region.min[ d ] + maskMin[ d ];
+				max[ d ] = region.max[ d ] + maskMin[ d ];
+			}
+			region.min = min;
+			region.max = max;
+		}
+	}
+
+	/**
+	 * Union-find over provisional labels, with the statistics of the voxels
+	 * that were assigned to each provisional label.
+	 */
+	private static class LabelStatistics
+	{
+		int numLabels = 0;
+		int[] parents = new int[ 1024 ];
+		long[] sizes = new long[ 1024 ];
+		int[] mins = new int[ 3 * 1024 ];
+		int[] maxs = new int[ 3 * 1024 ];
+		double[] minDistances = new double[ 1024 ];
+
+		int newLabel()
+		{
+			final int label = ++numLabels;
+
+			if ( label >= parents.length )
+			{
+				final int capacity = 2 * parents.length;
+				parents = Arrays.copyOf( parents, capacity );
+				sizes = Arrays.copyOf( sizes, capacity );
+				mins = Arrays.copyOf( mins, 3 * capacity );
+				maxs = Arrays.copyOf( maxs, 3 * capacity );
+				minDistances = Arrays.copyOf( minDistances, capacity );
+			}
+
+			parents[ label ] = label;
+			mins[ 3 * label ] = mins[ 3 * label + 1 ] = mins[ 3 * label + 2 ] = Integer.MAX_VALUE;
+			minDistances[ label ] = Double.MAX_VALUE;
+
+			return label;
+		}
+
+		int find( int label )
+		{
+			int root = label;
+			while ( parents[ root ] != root )
+				root = parents[ root ];
+
+			while ( parents[ label ] != root )
+			{
+				final int next = parents[ label ];
+				parents[ label ] = root;
+				label = next;
+			}
+
+			return root;
+		}
+
+		void union( int label, int otherLabel )
+		{
+			final int root = find( label );
+			final int otherRoot = find( otherLabel );
+			if ( root < otherRoot )
+				parents[ otherRoot ] = root;
+			else if ( otherRoot < root )
+				parents[ root ] = otherRoot;
+		}
+
+		void add( int label, int x, int y, int z, double squaredDistance )
+		{
+			sizes[ label ]++;
+			final int i = 3 * label;
+			if ( x < mins[ i ] ) mins[ i ] = x;
+			if ( y < mins[ i + 1 ] ) mins[ i + 1 ] = y;
+			if ( z < mins[ i + 2 ] ) mins[ i + 2 ] = z;
+			if ( x > maxs[ i ] ) maxs[ i ] = x;
+			if ( y > maxs[ i + 1 ] ) maxs[ i + 1 ] = y;
+			if ( z > maxs[ i + 2 ] ) maxs[ i + 2 ] = z;
+			if ( squaredDistance < minDistances[ label ] ) minDistances[ label ] = squaredDistance;
+		}
+	}
+}
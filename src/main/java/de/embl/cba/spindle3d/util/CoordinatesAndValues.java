@@ -1,9 +0,0 @@
-package de.embl.cba.spindle3d.util;
-
-import java.util.ArrayList;
-
-public class CoordinatesAndValues
-{
-	public ArrayList< Double > coordinates = new ArrayList<>(  );
-	public ArrayList< Double > values = new ArrayList<>(  );
-}
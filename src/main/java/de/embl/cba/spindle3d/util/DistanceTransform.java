@@ -0,0 +1,294 @@
+package de.embl.cba.spindle3d.util;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.function.DoublePredicate;
+
+/**
+ * Exact Euclidean distance transform of masks with anisotropic voxels,
+ * and the mask operations that are based on it, whose cost does not depend on the distances.
+ *
+ * The squared distances are computed dimension by dimension, as the lower envelope
+ * of parabolas along each line (Felzenszwalb and Huttenlocher, 2012), in linear time;
+ * the lines of one dimension are processed concurrently.
+ *
+ * Distances to the background include the voxels outside of the mask interval, which are background.
+ */
+public abstract class DistanceTransform
+{
+	/**
+	 * @param mask
+	 * @param voxelSize
+	 * @param executorService
+	 * 			may be null
+	 * @return per voxel, the distance to the closest foreground voxel, in units of the voxel size;
+	 * 			infinite if the mask is empty
+	 */
+	public static RandomAccessibleInterval< DoubleType > distancesToForeground(
+			RandomAccessibleInterval< BitType > mask,
+			double[] voxelSize,
+			ExecutorService executorService )
+	{
+		return asDistances( mask, squaredDistances( mask, true, voxelSize, executorService ) );
+	}
+
+	/**
+	 * @return per voxel, the distance to the closest background voxel, in units of the voxel size
+	 */
+	public static RandomAccessibleInterval< DoubleType > distancesToBackground(
+			RandomAccessibleInterval< BitType > mask,
+			double[] voxelSize,
+			ExecutorService executorService )
+	{
+		return asDistances( mask, squaredDistances( mask, false, voxelSize, executorService ) );
+	}
+
+	/**
+	 * @return per foreground voxel, the diameter of the largest ball that is centered
+	 * 			on the voxel and within the foreground, in units of the voxel size; zero for the background
+	 */
+	public static RandomAccessibleInterval< DoubleType > thickness(
+			RandomAccessibleInterval< BitType > mask,
+			double[] voxelSize,
+			ExecutorService executorService )
+	{
+		final double[] squaredDistances = squaredDistances( mask, false, voxelSize, executorService );
+		for ( int i = 0; i < squaredDistances.length; i++ )
+			squaredDistances[ i ] *= 4;
+
+		return asDistances( mask, squaredDistances );
+	}
+
+	/**
+	 * @return the voxels within the distance of the foreground, as a dilation with a ball
+	 */
+	public static RandomAccessibleInterval< BitType > dilate(
+			RandomAccessibleInterval< BitType > mask,
+			double distance,
+			double[] voxelSize,
+			ExecutorService executorService )
+	{
+		final double squaredDistance = distance * distance;
+		return asMask( mask, squaredDistances( mask, true, voxelSize, executorService ),
+				d -> d <= squaredDistance, executorService );
+	}
+
+	/**
+	 * @return the foreground voxels further than the distance from the background, as an erosion with a ball
+	 */
+	public static RandomAccessibleInterval< BitType > erode(
+			RandomAccessibleInterval< BitType > mask,
+			double distance,
+			double[] voxelSize,
+			ExecutorService executorService )
+	{
+		final double squaredDistance = distance * distance;
+		return asMask( mask, squaredDistances( mask, false, voxelSize, executorService ),
+				d -> d > squaredDistance, executorService );
+	}
+
+	/**
+	 * @param minDistance
+	 * 			exclusive; zero excludes the foreground
+	 * @param maxDistance
+	 * 			inclusive
+	 * @return the voxels whose distance to the foreground is within ( minDistance, maxDistance ]
+	 */
+	public static RandomAccessibleInterval< BitType > band(
+			RandomAccessibleInterval< BitType > mask,
+			double minDistance,
+			double maxDistance,
+			double[] voxelSize,
+			ExecutorService executorService )
+	{
+		final double minSquaredDistance = minDistance * minDistance;
+		final double maxSquaredDistance = maxDistance * maxDistance;
+		return asMask( mask, squaredDistances( mask, true, voxelSize, executorService ),
+				d -> d > minSquaredDistance && d <= maxSquaredDistance, executorService );
+	}
+
+	/**
+	 * @param mask
+	 * @param toForeground
+	 * 			whether the distances to the foreground or to the background are computed
+	 * @param voxelSize
+	 * @param executorService
+	 * 			may be null
+	 * @return the squared distances, in flat iteration order
+	 */
+	static double[] squaredDistances(
+			RandomAccessibleInterval< BitType > mask,
+			boolean toForeground,
+			double[] voxelSize,
+			ExecutorService executorService )
+	{
+		final long numVoxels = Intervals.numElements( mask );
+		if ( numVoxels > Integer.MAX_VALUE - 8 )
+			throw new UnsupportedOperationException( "Masks with more than 2^31 voxels are not supported." );
+
+		final double[] squaredDistances = new double[ (int) numVoxels ];
+
+		Parallel.forRanges( 0, (int) numVoxels, executorService, ( start, end ) ->
+		{
+			final Cursor< BitType > cursor = Views.flatIterable( mask ).cursor();
+			cursor.jumpFwd( start );
+			for ( int i = start; i < end; i++ )
+				squaredDistances[ i ] = cursor.next().get() == toForeground ? 0 : Double.POSITIVE_INFINITY;
+		} );
+
+		final long[] dimensions = Intervals.dimensionsAsLongArray( mask );
+		int stride = 1;
+		for ( int d = 0; d < dimensions.length; d++ )
+		{
+			transformLines( squaredDistances, (int) dimensions[ d ], stride, voxelSize[ d ] * voxelSize[ d ], ! toForeground, executorService );
+			stride *= dimensions[ d ];
+		}
+
+		return squaredDistances;
+	}
+
+	/**
+	 * Transforms all lines along one dimension.
+	 *
+	 * @param length
+	 * 			the number of voxels along the dimension
+	 * @param stride
+	 * 			the distance of neighbouring voxels along the dimension, in flat iteration order
+	 * @param isOutsideTarget
+	 * 			whether the voxels before and after each line are sites of distance zero
+	 */
+	private static void transformLines(
+			double[] squaredDistances,
+			int length,
+			int stride,
+			double squaredSpacing,
+			boolean isOutsideTarget,
+			ExecutorService executorService )
+	{
+		final int numLines = squaredDistances.length / length;
+
+		Parallel.forRanges( 0, numLines, executorService, ( start, end ) ->
+		{
+			final double[] line = new double[ length ];
+			final double[] transformed = new double[ length ];
+			final int[] sites = new int[ length + 2 ];
+			final double[] siteValues = new double[ length + 2 ];
+			final double[] boundaries = new double[ length + 3 ];
+
+			for ( int lineIndex = start; lineIndex < end; lineIndex++ )
+			{
+				final int offset = ( lineIndex / stride ) * stride * length + lineIndex % stride;
+
+				for ( int x = 0; x < length; x++ )
+					line[ x ] = squaredDistances[ offset + x * stride ];
+
+				transformLine( line, transformed, squaredSpacing, isOutsideTarget, sites, siteValues, boundaries );
+
+				for ( int x = 0; x < length; x++ )
+					squaredDistances[ offset + x * stride ] = transformed[ x ];
+			}
+		} );
+	}
+
+	/**
+	 * Computes transformed[ x ] = min_q ( line[ q ] + squaredSpacing * ( x - q )^2 ),
+	 * from the lower envelope of the parabolas that are rooted at the finite values.
+	 */
+	private static void transformLine(
+			double[] line,
+			double[] transformed,
+			double squaredSpacing,
+			boolean isOutsideTarget,
+			int[] sites,
+			double[] siteValues,
+			double[] boundaries )
+	{
+		final int length = line.length;
+
+		// the envelope: parabola k is the lowest within ( boundaries[ k ], boundaries[ k + 1 ] ]
+		int k = -1;
+		for ( int q = isOutsideTarget ? -1 : 0; q <= ( isOutsideTarget ? length : length - 1 ); q++ )
+		{
+			final double value = q < 0 || q == length ? 0 : line[ q ];
+			if ( value == Double.POSITIVE_INFINITY ) continue;
+
+			double intersection = Double.NEGATIVE_INFINITY;
+			while ( k >= 0 )
+			{
+				intersection = ( ( value + squaredSpacing * q * q ) - ( siteValues[ k ] + squaredSpacing * sites[ k ] * sites[ k ] ) )
+						/ ( 2 * squaredSpacing * ( q - sites[ k ] ) );
+				if ( intersection > boundaries[ k ] ) break;
+				k--;
+			}
+
+			k++;
+			sites[ k ] = q;
+			siteValues[ k ] = value;
+			boundaries[ k ] = k == 0 ? Double.NEGATIVE_INFINITY : intersection;
+			boundaries[ k + 1 ] = Double.POSITIVE_INFINITY;
+		}
+
+		if ( k < 0 )
+		{
+			Arrays.fill( transformed, Double.POSITIVE_INFINITY );
+			return;
+		}
+
+		k = 0;
+		for ( int x = 0; x < length; x++ )
+		{
+			while ( boundaries[ k + 1 ] < x ) k++;
+			final double dx = x - sites[ k ];
+			transformed[ x ] = siteValues[ k ] + squaredSpacing * dx * dx;
+		}
+	}
+
+	private static RandomAccessibleInterval< DoubleType > asDistances( RandomAccessibleInterval< BitType > mask, double[] squaredDistances )
+	{
+		for ( int i = 0; i < squaredDistances.length; i++ )
+			squaredDistances[ i ] = Math.sqrt( squaredDistances[ i ] );
+
+		return Views.translate(
+				ArrayImgs.doubles( squaredDistances, Intervals.dimensionsAsLongArray( mask ) ),
+				Intervals.minAsLongArray( mask ) );
+	}
+
+	/**
+	 * Writes the words of a BitType ArrayImg, which stores the bits in flat iteration order,
+	 * with ranges of words processed concurrently.
+	 */
+	private static RandomAccessibleInterval< BitType > asMask(
+			RandomAccessibleInterval< BitType > mask,
+			double[] squaredDistances,
+			DoublePredicate isForeground,
+			ExecutorService executorService )
+	{
+		final ArrayImg< BitType, LongArray > output = ArrayImgs.bits( Intervals.dimensionsAsLongArray( mask ) );
+		final long[] words = output.update( null ).getCurrentStorageArray();
+
+		Parallel.forRanges( 0, words.length, executorService, ( start, end ) ->
+		{
+			for ( int k = start; k < end; k++ )
+			{
+				long word = 0;
+				final int last = Math.min( 64, squaredDistances.length - 64 * k );
+				for ( int b = 0; b < last; b++ )
+					if ( isForeground.test( squaredDistances[ 64 * k + b ] ) )
+						word |= 1L << b;
+				words[ k ] = word;
+			}
+		} );
+
+		return Views.translate( output, Intervals.minAsLongArray( mask ) );
+	}
+}
@@ -0,0 +1,197 @@
+package de.embl.cba.spindle3d.util;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Thresholding of a 3D image and filling of the holes of the resulting mask,
+ * as by the fillHoles of ImageJ Ops with its default 26-neighbourhood:
+ * background voxels that are not connected to the border of the image interval become foreground.
+ *
+ * The image is thresholded into a bit-packed buffer, with ranges of words processed concurrently.
+ * The background that is connected to the border is then marked by a scanline flood fill
+ * in the buffer of the output mask, which is finally inverted.
+ */
+public abstract class FillHoles
+{
+	/**
+	 * @param image
+	 * 			3D
+	 * @param threshold
+	 * 			values above the threshold are foreground
+	 * @param executorService
+	 * 			may be null
+	 * @return the filled mask, with the interval of the image
+	 */
+	public static < T extends RealType< T > > RandomAccessibleInterval< BitType > thresholdAndFillHoles(
+			RandomAccessibleInterval< T > image,
+			double threshold,
+			ExecutorService executorService )
+	{
+		if ( image.numDimensions() != 3 )
+			throw new UnsupportedOperationException( "Only 3D images are supported." );
+
+		final long numVoxels = Intervals.numElements( image );
+		if ( numVoxels / 64 > Integer.MAX_VALUE - 8 )
+			throw new UnsupportedOperationException( "Images with more than 2^37 voxels are not supported." );
+
+		final int numWords = (int) ( ( numVoxels + 63 ) / 64 );
+
+		final long[] foreground = new long[ numWords ];
+		Parallel.forRanges( 0, numWords, executorService, ( start, end ) ->
+				threshold( image, threshold, foreground, 64L * start, Math.min( 64L * end, numVoxels ) ) );
+
+		// the bits of a BitType ArrayImg are stored in flat iteration order
+		final ArrayImg< BitType, LongArray > filled = ArrayImgs.bits( Intervals.dimensionsAsLongArray( image ) );
+		final long[] words = filled.update( null ).getCurrentStorageArray();
+
+		new BorderFill( foreground, words, Intervals.dimensionsAsLongArray( image ) ).fill();
+
+		Parallel.forRanges( 0, numWords, executorService, ( start, end ) ->
+		{
+			for ( int i = start; i < end; i++ )
+				words[ i ] = ~words[ i ];
+		} );
+
+		// clear the bits beyond the last voxel
+		if ( numVoxels % 64 != 0 )
+			words[ numWords - 1 ] &= ( 1L << ( numVoxels % 64 ) ) - 1;
+
+		return Views.translate( filled, Intervals.minAsLongArray( image ) );
+	}
+
+	private static < T extends RealType< T > > void threshold(
+			RandomAccessibleInterval< T > image,
+			double threshold,
+			long[] foreground,
+			long start,
+			long end )
+	{
+		final Cursor< T > cursor = Views.flatIterable( image ).cursor();
+		cursor.jumpFwd( start );
+		for ( long i = start; i < end; i++ )
+			if ( cursor.next().getRealDouble() > threshold )
+				foreground[ (int) ( i >>> 6 ) ] |= 1L << i;
+	}
+
+	/**
+	 * Marks the background voxels that are 26-connected to the border.
+	 *
+	 * Each seed is extended to the run of unmarked background voxels along x, which is marked;
+	 * the unmarked background segments of the 8 neighbouring rows, within the run extended by one voxel,
+	 * are pushed as new seeds.
+	 */
+	private static class BorderFill
+	{
+		private final long[] foreground;
+		private final long[] marked;
+		private final long width;
+		private final long height;
+		private final long depth;
+
+		private long[] seeds = new long[ 1024 ];
+		private int numSeeds;
+
+		BorderFill( long[] foreground, long[] marked, long[] dimensions )
+		{
+			this.foreground = foreground;
+			this.marked = marked;
+			this.width = dimensions[ 0 ];
+			this.height = dimensions[ 1 ];
+			this.depth = dimensions[ 2 ];
+		}
+
+		void fill()
+		{
+			for ( long z = 0; z < depth; z++ )
+			{
+				for ( long y = 0; y < height; y++ )
+				{
+					final long rowStart = ( z * height + y ) * width;
+					if ( z == 0 || z == depth - 1 || y == 0 || y == height - 1 )
+					{
+						for ( long x = 0; x < width; x++ )
+							fill( rowStart + x );
+					}
+					else
+					{
+						fill( rowStart );
+						fill( rowStart + width - 1 );
+					}
+				}
+			}
+		}
+
+		private void fill( long seed )
+		{
+			if ( ! isUnmarkedBackground( seed ) ) return;
+
+			push( seed );
+			while ( numSeeds > 0 )
+			{
+				final long index = seeds[ --numSeeds ];
+				if ( ! isUnmarkedBackground( index ) ) continue;
+
+				final long row = index / width;
+				final long rowStart = row * width;
+
+				long x0 = index - rowStart;
+				long x1 = x0;
+				while ( x0 > 0 && isUnmarkedBackground( rowStart + x0 - 1 ) ) x0--;
+				while ( x1 < width - 1 && isUnmarkedBackground( rowStart + x1 + 1 ) ) x1++;
+
+				for ( long x = x0; x <= x1; x++ )
+					marked[ (int) ( ( rowStart + x ) >>> 6 ) ] |= 1L << ( rowStart + x );
+
+				final long y = row % height;
+				final long z = row / height;
+				final long xMin = Math.max( 0, x0 - 1 );
+				final long xMax = Math.min( width - 1, x1 + 1 );
+
+				for ( long dz = -1; dz <= 1; dz++ )
+				{
+					if ( z + dz < 0 || z + dz >= depth ) continue;
+
+					for ( long dy = -1; dy <= 1; dy++ )
+					{
+						if ( dy == 0 && dz == 0 ) continue;
+						if ( y + dy < 0 || y + dy >= height ) continue;
+
+						final long neighbourRowStart = ( ( z + dz ) * height + y + dy ) * width;
+						boolean isInSegment = false;
+						for ( long x = xMin; x <= xMax; x++ )
+						{
+							final boolean isUnmarkedBackground = isUnmarkedBackground( neighbourRowStart + x );
+							if ( isUnmarkedBackground && ! isInSegment )
+								push( neighbourRowStart + x );
+							isInSegment = isUnmarkedBackground;
+						}
+					}
+				}
+			}
+		}
+
+		private boolean isUnmarkedBackground( long index )
+		{
+			final int word = (int) ( index >>> 6 );
+			return ( ( foreground[ word ] | marked[ word ] ) & ( 1L << index ) ) == 0;
+		}
+
+		private void push( long index )
+		{
+			if ( numSeeds == seeds.length )
+				seeds = Arrays.copyOf( seeds, 2 * seeds.length );
+			seeds[ numSeeds++ ] = index;
+		}
+	}
+}
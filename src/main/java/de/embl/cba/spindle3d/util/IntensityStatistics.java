@@ -0,0 +1,497 @@
+package de.embl.cba.spindle3d.util;
+
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.type.numeric.IntegerType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Count, sum, sum of squares, minimum and maximum of intensities, and optionally
+ * their distribution, for the percentiles, median absolute deviation and Otsu threshold.
+ *
+ * If the distribution is kept, the values of integer types with at most {@link #MAX_HISTOGRAM_BINS} values
+ * are counted in a histogram with one bin per value; otherwise, they are stored in a primitive array,
+ * such that the percentiles are exact in both cases.
+ *
+ * Thus, for other types, the memory grows with the number of values, as for the value lists before.
+ * Fixed histogram bins are not used for them, because the bins of the Otsu threshold are derived
+ * from the final minimum and maximum, and thus would change the threshold.
+ * Therefore, keep the distribution only for small regions, such as the DNA periphery.
+ */
+public class IntensityStatistics
+{
+	public static final int MAX_HISTOGRAM_BINS = 1 << 16;
+	public static final int OTSU_BINS = 256;
+
+	private long count;
+	private double sum;
+	private double sumOfSquares;
+	private double min = Double.MAX_VALUE;
+	private double max = - Double.MAX_VALUE;
+
+	private final long[] histogram;
+	private final long histogramMin;
+	private double[] values;
+
+	/**
+	 * Keeps only the count, sum, sum of squares, minimum and maximum.
+	 */
+	public IntensityStatistics()
+	{
+		histogramMin = 0;
+		histogram = null;
+		values = null;
+	}
+
+	/**
+	 * Also keeps the distribution of the values.
+	 *
+	 * @param type
+	 * 			determines whether the values are counted in a histogram or, e.g. for float types, stored
+	 */
+	public < T extends RealType< T > > IntensityStatistics( T type )
+	{
+		if ( type instanceof IntegerType && type.getMaxValue() - type.getMinValue() < MAX_HISTOGRAM_BINS )
+		{
+			histogramMin = (long) type.getMinValue();
+			histogram = new long[ (int) ( type.getMaxValue() - type.getMinValue() ) + 1 ];
+		}
+		else
+		{
+			histogramMin = 0;
+			histogram = null;
+			values = new double[ 1024 ];
+		}
+	}
+
+	public void add( double value )
+	{
+		if ( histogram != null )
+		{
+			histogram[ (int) ( (long) value - histogramMin ) ]++;
+		}
+		else if ( values != null )
+		{
+			if ( count == values.length )
+				values = Arrays.copyOf( values, 2 * values.length );
+			values[ (int) count ] = value;
+		}
+
+		count++;
+		sum += value;
+		sumOfSquares += value * value;
+		if ( value < min ) min = value;
+		if ( value > max ) max = value;
+	}
+
+	public void add( IntensityStatistics other )
+	{
+		if ( isDistributionKept() && ! other.isDistributionKept() )
+			throw new IllegalArgumentException( "The statistics to be added do not keep the distribution of their values." );
+
+		if ( histogram != null )
+		{
+			for ( int i = 0; i < histogram.length; i++ )
+				histogram[ i ] += other.histogram[ i ];
+		}
+		else if ( values != null )
+		{
+			if ( count + other.count > values.length )
+				values = Arrays.copyOf( values, (int) Math.max( 2 * values.length, count + other.count ) );
+			System.arraycopy( other.values, 0, values, (int) count, (int) other.count );
+		}
+
+		count += other.count;
+		sum += other.sum;
+		sumOfSquares += other.sumOfSquares;
+		min = Math.min( min, other.min );
+		max = Math.max( max, other.max );
+	}
+
+	public boolean isDistributionKept()
+	{
+		return histogram != null || values != null;
+	}
+
+	public long count()
+	{
+		return count;
+	}
+
+	public double sum()
+	{
+		return sum;
+	}
+
+	public double min()
+	{
+		return min;
+	}
+
+	public double max()
+	{
+		return max;
+	}
+
+	public double mean()
+	{
+		return sum / count;
+	}
+
+	/**
+	 * @return the standard deviation, normalised by the number of values, as {@link Utils#sdev}
+	 */
+	public double sdev()
+	{
+		final double mean = mean();
+		return Math.sqrt( Math.max( 0, sumOfSquares / count - mean * mean ) );
+	}
+
+	/**
+	 * @param meanOffset
+	 * 			subtracted from the mean, e.g. a background intensity
+	 */
+	public double coefficientOfVariation( double meanOffset )
+	{
+		return sdev() / ( mean() - meanOffset );
+	}
+
+	/**
+	 * @return the histogram with one bin per value, starting at {@link #histogramMin()},
+	 * 			or null if the values are not counted in a histogram
+	 */
+	public long[] histogram()
+	{
+		return histogram;
+	}
+
+	public long histogramMin()
+	{
+		return histogramMin;
+	}
+
+	/**
+	 * @param percentile
+	 * 			between 0 and 100
+	 * @return the percentile, linearly interpolated between the sorted values
+	 */
+	public double percentile( double percentile )
+	{
+		checkDistributionIsKept();
+		if ( count == 0 ) return Double.NaN;
+
+		if ( histogram == null )
+			return ChordWidths.percentile( sortedValues(), percentile );
+
+		return histogramMin + percentile( histogram, count, percentile );
+	}
+
+	/**
+	 * @return the median, as {@link Utils#median}
+	 */
+	public double median()
+	{
+		return percentile( 50 );
+	}
+
+	/**
+	 * @return the median absolute deviation from the median, as {@link Utils#mad}
+	 */
+	public double mad()
+	{
+		checkDistributionIsKept();
+		if ( count == 0 ) return Double.NaN;
+
+		final double median = median();
+
+		if ( histogram == null )
+		{
+			final double[] deviations = new double[ (int) count ];
+			for ( int i = 0; i < count; i++ )
+				deviations[ i ] = Math.abs( values[ i ] - median );
+			Arrays.sort( deviations );
+			return ChordWidths.percentile( deviations, 50 );
+		}
+
+		// the median of integers is a multiple of 0.5, thus twice the deviations are integers
+		final long twiceMedian = Math.round( 2 * ( median - histogramMin ) );
+		final long[] twiceDeviations = new long[ 2 * histogram.length + 1 ];
+		for ( int i = 0; i < histogram.length; i++ )
+			twiceDeviations[ (int) Math.abs( 2L * i - twiceMedian ) ] += histogram[ i ];
+
+		return percentile( twiceDeviations, count, 50 ) / 2.0;
+	}
+
+	/**
+	 * Computes Otsu's threshold as {@link Utils#thresholdOtsu}, but from the
+	 * accumulated values: these are binned into {@link #OTSU_BINS} bins,
+	 * with the first and last bin centered on the minimum and maximum as by the
+	 * {@link net.imglib2.histogram.Real1dBinMapper}, and the bin maximising the
+	 * between-class variance is determined as by the {@link net.imagej.ops.threshold.otsu.ComputeOtsuThreshold}.
+	 *
+	 * @return the center of the threshold bin, or NaN if there are no values
+	 */
+	public double thresholdOtsu()
+	{
+		checkDistributionIsKept();
+		if ( count == 0 ) return Double.NaN;
+
+		final long[] bins = new long[ OTSU_BINS ];
+		if ( histogram != null )
+		{
+			for ( int i = 0; i < histogram.length; i++ )
+				if ( histogram[ i ] > 0 )
+					bins[ otsuBin( histogramMin + i ) ] += histogram[ i ];
+		}
+		else
+		{
+			for ( int i = 0; i < count; i++ )
+				bins[ otsuBin( values[ i ] ) ]++;
+		}
+
+		return min + otsuThresholdBin( bins ) * ( max - min ) / ( OTSU_BINS - 1 );
+	}
+
+	private void checkDistributionIsKept()
+	{
+		if ( ! isDistributionKept() )
+			throw new UnsupportedOperationException( "The distribution of the values is not kept." );
+	}
+
+	private int otsuBin( double value )
+	{
+		if ( max == min ) return 0;
+		return (int) Math.round( ( value - min ) / ( max - min ) * ( OTSU_BINS - 1 ) );
+	}
+
+	private static int otsuThresholdBin( long[] bins )
+	{
+		double sum = 0;
+		long n = 0;
+		for ( int k = 0; k < bins.length; k++ )
+		{
+			sum += (double) k * bins[ k ];
+			n += bins[ k ];
+		}
+
+		// the end points need not be checked
+		double sumK = 0;
+		long n1 = bins[ 0 ];
+		double maxBetweenClassVariance = 0;
+		int thresholdBin = 0;
+		for ( int k = 1; k < bins.length - 1; k++ )
+		{
+			sumK += (double) k * bins[ k ];
+			n1 += bins[ k ];
+
+			final double denominator = (double) n1 * ( n - n1 );
+			double betweenClassVariance = 0;
+			if ( denominator != 0 )
+			{
+				final double numerator = ( (double) n1 / n ) * sum - sumK;
+				betweenClassVariance = numerator * numerator / denominator;
+			}
+
+			if ( betweenClassVariance >= maxBetweenClassVariance )
+			{
+				maxBetweenClassVariance = betweenClassVariance;
+				thresholdBin = k;
+			}
+		}
+
+		return thresholdBin;
+	}
+
+	private double[] sortedValues()
+	{
+		final double[] sorted = Arrays.copyOf( values, (int) count );
+		Arrays.sort( sorted );
+		return sorted;
+	}
+
+	/**
+	 * @return the percentile of the bin indices, linearly interpolated
+	 */
+	private static double percentile( long[] histogram, long count, double percentile )
+	{
+		final double position = percentile / 100.0 * ( count - 1 );
+		final long lower = (long) Math.floor( position );
+		final long upper = Math.min( lower + 1, count - 1 );
+
+		final long lowerIndex = indexAtRank( histogram, lower );
+		final long upperIndex = indexAtRank( histogram, upper );
+		return lowerIndex + ( position - lower ) * ( upperIndex - lowerIndex );
+	}
+
+	private static long indexAtRank( long[] histogram, long rank )
+	{
+		long cumulativeCount = 0;
+		for ( int i = 0; i < histogram.length; i++ )
+		{
+			cumulativeCount += histogram[ i ];
+			if ( cumulativeCount > rank )
+				return i;
+		}
+		return histogram.length - 1;
+	}
+
+	/**
+	 * Computes the statistics of the image within several masks in one traversal,
+	 * in which each image voxel is read at most once, and only if it is within any mask.
+	 * The traversal is restricted to the foreground bounding interval of {@link RunLengthMask}s,
+	 * and parallelised over slabs along the last dimension.
+	 *
+	 * @param image
+	 * @param masks
+	 * 			voxels outside of the mask interval are background
+	 * @param executorService
+	 * 			may be null
+	 * @return per mask, the statistics of the image values within the mask and the image interval,
+	 * 			without their distribution
+	 */
+	public static < T extends RealType< T > > List< IntensityStatistics > measure(
+			RandomAccessibleInterval< T > image,
+			List< RandomAccessibleInterval< BitType > > masks,
+			ExecutorService executorService )
+	{
+		return measure( image, masks, false, executorService );
+	}
+
+	/**
+	 * As {@link #measure(RandomAccessibleInterval, List, ExecutorService)}, optionally with the distribution
+	 * of the values, which, for integer types, allocates a histogram per mask and slab.
+	 */
+	public static < T extends RealType< T > > List< IntensityStatistics > measure(
+			RandomAccessibleInterval< T > image,
+			List< RandomAccessibleInterval< BitType > > masks,
+			boolean isDistributionKept,
+			ExecutorService executorService )
+	{
+		final T type = isDistributionKept ? Util.getTypeFromInterval( image ) : null;
+
+		final List< IntensityStatistics > statistics = new ArrayList<>();
+		for ( int m = 0; m < masks.size(); m++ )
+			statistics.add( create( type ) );
+
+		final FinalInterval interval = traversedInterval( image, masks );
+		if ( interval == null ) return statistics;
+
+		final int n = image.numDimensions();
+		final int lastDimension = n - 1;
+
+		Parallel.forRanges( 0, (int) interval.dimension( lastDimension ), executorService, ( start, end ) ->
+		{
+			final long[] min = Intervals.minAsLongArray( interval );
+			final long[] max = Intervals.maxAsLongArray( interval );
+			min[ lastDimension ] = interval.min( lastDimension ) + start;
+			max[ lastDimension ] = interval.min( lastDimension ) + end - 1;
+
+			final List< IntensityStatistics > slabStatistics = measureSlab( image, masks, type, new FinalInterval( min, max ) );
+
+			synchronized ( statistics )
+			{
+				for ( int m = 0; m < masks.size(); m++ )
+					statistics.get( m ).add( slabStatistics.get( m ) );
+			}
+		} );
+
+		return statistics;
+	}
+
+	private static < T extends RealType< T > > List< IntensityStatistics > measureSlab(
+			RandomAccessibleInterval< T > image,
+			List< RandomAccessibleInterval< BitType > > masks,
+			T type,
+			FinalInterval interval )
+	{
+		final int numMasks = masks.size();
+		final int n = interval.numDimensions();
+
+		final List< IntensityStatistics > statistics = new ArrayList<>();
+		final List< RandomAccess< BitType > > maskAccesses = new ArrayList<>();
+		for ( RandomAccessibleInterval< BitType > mask : masks )
+		{
+			statistics.add( create( type ) );
+			maskAccesses.add( Views.extendValue( mask, false ).randomAccess() );
+		}
+
+		final RandomAccess< T > imageAccess = image.randomAccess( interval );
+		final boolean[] isInside = new boolean[ numMasks ];
+		final long[] position = Intervals.minAsLongArray( interval );
+		final long numElements = Intervals.numElements( interval );
+
+		for ( long i = 0; i < numElements; i++ )
+		{
+			boolean isInsideAny = false;
+			for ( int m = 0; m < numMasks; m++ )
+			{
+				final RandomAccess< BitType > maskAccess = maskAccesses.get( m );
+				maskAccess.setPosition( position );
+				isInside[ m ] = maskAccess.get().get();
+				isInsideAny |= isInside[ m ];
+			}
+
+			if ( isInsideAny )
+			{
+				imageAccess.setPosition( position );
+				final double value = imageAccess.get().getRealDouble();
+				for ( int m = 0; m < numMasks; m++ )
+					if ( isInside[ m ] )
+						statistics.get( m ).add( value );
+			}
+
+			for ( int d = 0; d < n; d++ )
+			{
+				if ( position[ d ] < interval.max( d ) )
+				{
+					position[ d ]++;
+					break;
+				}
+				position[ d ] = interval.min( d );
+			}
+		}
+
+		return statistics;
+	}
+
+	/**
+	 * @param type
+	 * 			null, if only the count, sum, sum of squares, minimum and maximum are kept
+	 */
+	private static < T extends RealType< T > > IntensityStatistics create( T type )
+	{
+		return type == null ? new IntensityStatistics() : new IntensityStatistics( type );
+	}
+
+	/**
+	 * @return the intersection of the image interval with the union of the
+	 * 			(foreground bounding) intervals of the masks, or null if it is empty
+	 */
+	private static FinalInterval traversedInterval( RandomAccessibleInterval< ? > image, List< RandomAccessibleInterval< BitType > > masks )
+	{
+		FinalInterval union = null;
+		for ( RandomAccessibleInterval< BitType > mask : masks )
+		{
+			final FinalInterval maskInterval = mask instanceof RunLengthMask
+					? ( ( RunLengthMask ) mask ).foregroundBoundingInterval()
+					: new FinalInterval( mask );
+			if ( maskInterval == null ) continue;
+			union = union == null ? maskInterval : Intervals.union( union, maskInterval );
+		}
+
+		if ( union == null ) return null;
+
+		final FinalInterval interval = Intervals.intersect( image, union );
+		return Intervals.isEmpty( interval ) ? null : interval;
+	}
+}
@@ -0,0 +1,146 @@
+package de.embl.cba.spindle3d.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+public abstract class Parallel
+{
+	private static final AtomicInteger poolCount = new AtomicInteger();
+
+	/**
+	 * Creates a thread pool with daemon threads, which terminate when idle,
+	 * such that a pool that is not shut down does not keep the JVM alive.
+	 * Owners should still shut the pool down when they are done with it.
+	 *
+	 * @param numThreads
+	 * @return the executor service
+	 */
+	public static ExecutorService createExecutorService( int numThreads )
+	{
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+				Math.max( 1, numThreads ),
+				Math.max( 1, numThreads ),
+				10, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(),
+				new DaemonThreadFactory( "spindle3d-" + poolCount.incrementAndGet() + "-" ) );
+		executor.allowCoreThreadTimeOut( true );
+
+		return executor;
+	}
+
+	/**
+	 * @param executorService
+	 * @return the live threads of an executor service that was created with {@link #createExecutorService},
+	 * 			or an empty list for other executor services
+	 */
+	public static List< Thread > getThreads( ExecutorService executorService )
+	{
+		if ( executorService instanceof ThreadPoolExecutor )
+		{
+			final ThreadFactory threadFactory = ( ( ThreadPoolExecutor ) executorService ).getThreadFactory();
+			if ( threadFactory instanceof DaemonThreadFactory )
+				return ( ( DaemonThreadFactory ) threadFactory ).getLiveThreads();
+		}
+
+		return new ArrayList<>();
+	}
+
+	public static int numThreads( ExecutorService executorService )
+	{
+		if ( executorService instanceof ThreadPoolExecutor )
+			return ( ( ThreadPoolExecutor ) executorService ).getMaximumPoolSize();
+		else
+			return Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Splits [ start, end ) into contiguous ranges and processes them concurrently.
+	 * The calling thread waits until all ranges are processed.
+	 * Must not be called from within a task of the same executor service.
+	 *
+	 * @param start
+	 * @param end
+	 * @param executorService
+	 * 			if null, the whole range is processed in the calling thread
+	 * @param rangeConsumer
+	 * 			accepts the start (inclusive) and end (exclusive) of one range
+	 */
+	public static void forRanges( int start, int end, ExecutorService executorService, BiConsumer< Integer, Integer > rangeConsumer )
+	{
+		final int size = end - start;
+		if ( size <= 0 ) return;
+
+		final int numRanges = executorService == null ? 1 : Math.min( size, 4 * numThreads( executorService ) );
+
+		if ( numRanges == 1 )
+		{
+			rangeConsumer.accept( start, end );
+			return;
+		}
+
+		final List< Future< ? > > futures = new ArrayList<>();
+		for ( int i = 0; i < numRanges; i++ )
+		{
+			final int rangeStart = start + (int) ( (long) size * i / numRanges );
+			final int rangeEnd = start + (int) ( (long) size * ( i + 1 ) / numRanges );
+			futures.add( executorService.submit( () -> rangeConsumer.accept( rangeStart, rangeEnd ) ) );
+		}
+
+		waitFor( futures );
+	}
+
+	public static void waitFor( List< Future< ? > > futures )
+	{
+		try
+		{
+			for ( Future< ? > future : futures )
+				future.get();
+		}
+		catch ( InterruptedException | ExecutionException e )
+		{
+			throw new RuntimeException( e );
+		}
+	}
+
+	private static class DaemonThreadFactory implements ThreadFactory
+	{
+		private final String namePrefix;
+		private final AtomicInteger threadCount = new AtomicInteger();
+		private final Queue< Thread > threads = new ConcurrentLinkedQueue<>();
+
+		DaemonThreadFactory( String namePrefix )
+		{
+			this.namePrefix = namePrefix;
+		}
+
+		@Override
+		public Thread newThread( Runnable runnable )
+		{
+			final Thread thread = new Thread( runnable, namePrefix + threadCount.incrementAndGet() );
+			thread.setDaemon( true );
+			threads.removeIf( t -> t.getState() == Thread.State.TERMINATED );
+			threads.add( thread );
+			return thread;
+		}
+
+		List< Thread > getLiveThreads()
+		{
+			final List< Thread > liveThreads = new ArrayList<>();
+			for ( Thread thread : threads )
+				if ( thread.isAlive() )
+					liveThreads.add( thread );
+			return liveThreads;
+		}
+	}
+}
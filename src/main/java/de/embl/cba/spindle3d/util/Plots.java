@@ -47,13 +47,13 @@ public class Plots
 		plot.show();
 	}
 
-	public static void plot( CoordinatesAndValues cv, String xLab, String yLab )
+	public static void plot( Profile profile, String xLab, String yLab )
 	{
 		Plot plot = new Plot("",
 				xLab,
 				yLab,
-				cv.coordinates.stream().mapToDouble(d -> d).toArray(),
-				cv.values.stream().mapToDouble( d -> d ).toArray() );
+				profile.coordinatesAsArray(),
+				profile.valuesAsArray() );
 
 		plot.show();
 	}
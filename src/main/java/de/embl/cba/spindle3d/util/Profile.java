@@ -0,0 +1,171 @@
+package de.embl.cba.spindle3d.util;
+
+import java.util.Arrays;
+
+/**
+ * Values at increasing coordinates, e.g. intensities along an axis or
+ * at increasing distances from a center, backed by primitive arrays.
+ *
+ * Views share the arrays of the profile they were created from.
+ */
+public class Profile
+{
+	private final double[] coordinates;
+	private final double[] values;
+	private final int offset;
+	private int size;
+
+	public Profile( int size )
+	{
+		this( new double[ size ], new double[ size ], 0, size );
+	}
+
+	public Profile( double[] coordinates, double[] values )
+	{
+		this( coordinates, values, 0, values.length );
+	}
+
+	private Profile( double[] coordinates, double[] values, int offset, int size )
+	{
+		this.coordinates = coordinates;
+		this.values = values;
+		this.offset = offset;
+		this.size = size;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public double coordinate( int i )
+	{
+		return coordinates[ offset + i ];
+	}
+
+	public double value( int i )
+	{
+		return values[ offset + i ];
+	}
+
+	public void set( int i, double coordinate, double value )
+	{
+		coordinates[ offset + i ] = coordinate;
+		values[ offset + i ] = value;
+	}
+
+	/**
+	 * @return a view on the elements [ from, to ), sharing the arrays of this profile
+	 */
+	public Profile view( int from, int to )
+	{
+		return new Profile( coordinates, values, offset + from, to - from );
+	}
+
+	public double[] coordinatesAsArray()
+	{
+		return Arrays.copyOfRange( coordinates, offset, offset + size );
+	}
+
+	public double[] valuesAsArray()
+	{
+		return Arrays.copyOfRange( values, offset, offset + size );
+	}
+
+	public Profile copy()
+	{
+		return new Profile( coordinatesAsArray(), valuesAsArray() );
+	}
+
+	/**
+	 * The difference of the values di / 2 elements to the right and to the left,
+	 * at the coordinates in between; the profile is shortened by di / 2 + 1 elements at both ends.
+	 */
+	public Profile derivative( int di )
+	{
+		return copy().derivativeInPlace( di );
+	}
+
+	/**
+	 * As {@link #derivative}, but overwrites the values of this profile.
+	 *
+	 * @return a view on the derivative, sharing the arrays of this profile
+	 */
+	public Profile derivativeInPlace( int di )
+	{
+		final int halfWidth = di / 2;
+		final int margin = halfWidth + 1;
+		final int derivativeSize = Math.max( 0, size - 2 * margin );
+
+		// element j is written after the elements j + 1 and j + 2 * halfWidth + 1 are read
+		for ( int j = 0; j < derivativeSize; j++ )
+		{
+			final int i = offset + j + margin;
+			coordinates[ offset + j ] = coordinates[ i ];
+			values[ offset + j ] = values[ i + halfWidth ] - values[ i - halfWidth ];
+		}
+
+		size = derivativeSize;
+		return this;
+	}
+
+	/**
+	 * @param coordinateMin
+	 * @param coordinateMax
+	 * @return the index of the first maximal value with a coordinate within [ min, max ], or -1 if there is none
+	 */
+	public int argMax( double coordinateMin, double coordinateMax )
+	{
+		int argMax = -1;
+		double max = - Double.MAX_VALUE;
+
+		final int end = offset + size;
+		for ( int i = offset; i < end; i++ )
+		{
+			final double coordinate = coordinates[ i ];
+			final double value = values[ i ];
+			if ( value > max && coordinate >= coordinateMin && coordinate <= coordinateMax )
+			{
+				max = value;
+				argMax = i - offset;
+			}
+		}
+
+		return argMax;
+	}
+
+	/**
+	 * @param coordinateMin
+	 * @param coordinateMax
+	 * @return the index of the first minimal value with a coordinate within [ min, max ], or -1 if there is none
+	 */
+	public int argMin( double coordinateMin, double coordinateMax )
+	{
+		int argMin = -1;
+		double min = Double.MAX_VALUE;
+
+		final int end = offset + size;
+		for ( int i = offset; i < end; i++ )
+		{
+			final double coordinate = coordinates[ i ];
+			final double value = values[ i ];
+			if ( value < min && coordinate >= coordinateMin && coordinate <= coordinateMax )
+			{
+				min = value;
+				argMin = i - offset;
+			}
+		}
+
+		return argMin;
+	}
+
+	public int argMax()
+	{
+		return argMax( - Double.MAX_VALUE, Double.MAX_VALUE );
+	}
+
+	public int argMin()
+	{
+		return argMin( - Double.MAX_VALUE, Double.MAX_VALUE );
+	}
+}
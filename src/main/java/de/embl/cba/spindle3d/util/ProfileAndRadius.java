@@ -2,7 +2,7 @@ package de.embl.cba.spindle3d.util;
 
 public class ProfileAndRadius
 {
-	public CoordinatesAndValues profile;
+	public Profile profile;
 	public Double radius;
 	public int radiusIndex;
 }
@@ -31,37 +31,82 @@ package de.embl.cba.spindle3d.util;
 import net.imglib2.Cursor;
 import net.imglib2.FinalInterval;
 import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.img.ImgFactory;
+import net.imglib2.img.array.ArrayImg;
 import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.transform.integer.MixedTransform;
 import net.imglib2.type.NativeType;
+import net.imglib2.type.logic.BitType;
 import net.imglib2.type.numeric.RealType;
 import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.IntervalView;
+import net.imglib2.view.MixedTransformView;
 import net.imglib2.view.Views;
 
 import java.util.Arrays;
-
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Projections of an image along one dimension.
+ *
+ * Except for the median, the input is read once, in flat iteration order, and accumulated
+ * into the output plane, such that the input is read in storage order for ArrayImgs.
+ * The input is split into tiles along its last non-projected dimension, which are
+ * projected concurrently if an executor service is given.
+ *
+ * Maximum projections of BitType ArrayImgs along their last dimension OR 64 pixels at once.
+ *
+ * A projection range that does not intersect the input projects to zero, in all modes.
+ */
 public class Projection< T extends RealType< T > & NativeType< T > >
 {
+    private enum Mode
+    {
+        Sum,
+        Average,
+        Minimum,
+        Maximum
+    }
+
     private int[] inputAxesExcludingProjectionAxis;
     private int projectionDimension;
     private RandomAccessibleInterval< T > output;
     private int numOutputDimensions;
-    private RandomAccess< T > inputAccess;
     private RandomAccessibleInterval< T > input;
     private FinalInterval projectionInterval;
     private long[] outputDimensions;
+    private ExecutorService executorService;
 
 
     public Projection( RandomAccessibleInterval< T > input, int projectionDimension )
     {
-        init( input, projectionDimension, fullProjectionInterval( input, projectionDimension ) );
+        this( input, projectionDimension, ( ExecutorService ) null );
     }
 
+    public Projection( RandomAccessibleInterval< T > input, int projectionDimension, ExecutorService executorService )
+    {
+        this.executorService = executorService;
+        init( input, projectionDimension, fullProjectionInterval( input, projectionDimension ) );
+    }
 
     public Projection( RandomAccessibleInterval< T > input, int projectionDimension, long min, long max )
     {
-        projectionInterval = new FinalInterval( new long[]{ min }, new long[]{ max }  );
+        this( input, projectionDimension, min, max, null );
+    }
+
+    public Projection( RandomAccessibleInterval< T > input, int projectionDimension, long min, long max, ExecutorService executorService )
+    {
+        this.executorService = executorService;
+
+        // planes outside of the input do not contribute
+        projectionInterval = new FinalInterval(
+                new long[]{ Math.max( min, input.min( projectionDimension ) ) },
+                new long[]{ Math.min( max, input.max( projectionDimension ) ) } );
 
         init( input, projectionDimension, projectionInterval );
     }
@@ -71,13 +116,12 @@ public class Projection< T extends RealType< T > & NativeType< T > >
         this.numOutputDimensions = input.numDimensions() - 1;
 
         this.input = input;
-        this.inputAccess = input.randomAccess( );
 
         this.projectionDimension = projectionDimension;
         this.projectionInterval = projectionInterval;
 
         configureInputAxesExcludingProjectionAxis();
-        initializeOutputArrayImg( );
+        setOutputDimensions();
     }
 
     private FinalInterval fullProjectionInterval( RandomAccessibleInterval< T > input, int projectionDimension)
@@ -88,78 +132,73 @@ public class Projection< T extends RealType< T > & NativeType< T > >
 
     public RandomAccessibleInterval< T > average( )
     {
-        final Cursor< T > outputCursor = Views.iterable( output ).localizingCursor();
-
-        while ( outputCursor.hasNext() )
-        {
-            outputCursor.fwd( );
-            setInputAccess( outputCursor );
-            setAverageProjection( outputCursor );
-        }
-
-        return output;
+        return project( Mode.Average );
     }
 
     public RandomAccessibleInterval< T > median( )
     {
-        final Cursor< T > outputCursor = Views.iterable( output ).localizingCursor();
+        initializeOutputArrayImg();
+
+        if ( Intervals.isEmpty( projectionInterval ) )
+            return output;
 
-        while ( outputCursor.hasNext() )
+        final long[] outputMin = Intervals.minAsLongArray( output );
+        final long[] outputMax = Intervals.maxAsLongArray( output );
+        final int tileDimension = numOutputDimensions - 1;
+
+        Parallel.forRanges( 0, (int) output.dimension( tileDimension ), executorService, ( start, end ) ->
         {
-            outputCursor.fwd();
-            setInputAccess( outputCursor );
-            setMedianProjection( outputCursor );
-        }
+            final long[] tileMin = outputMin.clone();
+            final long[] tileMax = outputMax.clone();
+            tileMin[ tileDimension ] = outputMin[ tileDimension ] + start;
+            tileMax[ tileDimension ] = outputMin[ tileDimension ] + end - 1;
+
+            final RandomAccess< T > inputAccess = input.randomAccess();
+            final double[] values = new double[ (int) projectionInterval.dimension( 0 ) ];
+            final int min = (int) projectionInterval.min( 0 );
+            final int max = (int) projectionInterval.max( 0 );
+
+            final Cursor< T > outputCursor = Views.interval( output, tileMin, tileMax ).localizingCursor();
+            while ( outputCursor.hasNext() )
+            {
+                outputCursor.fwd();
+                for ( int d = 0; d < numOutputDimensions; ++d )
+                    inputAccess.setPosition( outputCursor.getLongPosition( d ), inputAxesExcludingProjectionAxis[ d ] );
+
+                for ( int i = min; i <= max; ++i )
+                {
+                    inputAccess.setPosition( i, projectionDimension );
+                    values[ i - min ] = inputAccess.get().getRealDouble();
+                }
+
+                outputCursor.get().setReal( getMedian( values ) );
+            }
+        } );
 
         return output;
     }
 
     public RandomAccessibleInterval< T > sum( )
     {
-        final Cursor< T > outputCursor = Views.iterable( output ).localizingCursor();
-
-        while ( outputCursor.hasNext() )
-        {
-            outputCursor.fwd();
-            setInputAccess( outputCursor );
-            setSumProjection( outputCursor );
-        }
-
-        return output;
+        return project( Mode.Sum );
     }
 
     public RandomAccessibleInterval< T > maximum( )
     {
-        final Cursor< T > outputCursor = Views.iterable( output ).localizingCursor();
-
-        while ( outputCursor.hasNext() )
-        {
-            outputCursor.fwd();
-            setInputAccess( outputCursor );
-            setMaximumProjection( outputCursor );
-        }
+        if ( projectBitsWithOr() )
+            return output;
 
-        return output;
+        return project( Mode.Maximum );
     }
 
     public RandomAccessibleInterval< T > minimum( )
     {
-        final Cursor< T > outputCursor = Views.iterable( output ).localizingCursor();
-
-        while ( outputCursor.hasNext() )
-        {
-            outputCursor.fwd();
-            setInputAccess( outputCursor );
-            setMinimumProjection( outputCursor );
-        }
-
-        return output;
+        return project( Mode.Minimum );
     }
 
     private void initializeOutputArrayImg()
     {
-        setOutputDimensions();
-        final ImgFactory< T > factory = new ArrayImgFactory< >( input.randomAccess().get().createVariable() );
+        final ImgFactory< T > factory = new ArrayImgFactory< >( Util.getTypeFromInterval( input ).createVariable() );
         output = factory.create( outputDimensions );
         output = Views.translate( output,  outputOffset() );
     }
@@ -184,81 +223,218 @@ public class Projection< T extends RealType< T > & NativeType< T > >
         }
     }
 
-    private void setSumProjection( Cursor< T > outputCursor )
+    private RandomAccessibleInterval< T > project( Mode mode )
     {
-        outputCursor.get().setZero();
+        initializeOutputArrayImg();
+
+        final int numOutputPixels = (int) Intervals.numElements( output );
+        final double[] projected = new double[ numOutputPixels ];
 
-        for ( long d = projectionInterval.min(0); d <= projectionInterval.max(0 ); ++d )
+        if ( ! Intervals.isEmpty( projectionInterval ) )
         {
-            inputAccess.setPosition( d, projectionDimension );
-            outputCursor.get().add( inputAccess.get() );
+            if ( mode == Mode.Minimum )
+                Arrays.fill( projected, Double.MAX_VALUE );
+            else if ( mode == Mode.Maximum )
+                Arrays.fill( projected, -Double.MAX_VALUE );
+
+            final long[] inputMin = Intervals.minAsLongArray( input );
+            final long[] inputMax = Intervals.maxAsLongArray( input );
+            inputMin[ projectionDimension ] = projectionInterval.min( 0 );
+            inputMax[ projectionDimension ] = projectionInterval.max( 0 );
+
+            final int tileDimension = inputAxesExcludingProjectionAxis[ numOutputDimensions - 1 ];
+
+            // tiles cover disjoint parts of the output
+            Parallel.forRanges( 0, (int) input.dimension( tileDimension ), executorService, ( start, end ) ->
+            {
+                final long[] tileMin = inputMin.clone();
+                final long[] tileMax = inputMax.clone();
+                tileMin[ tileDimension ] = inputMin[ tileDimension ] + start;
+                tileMax[ tileDimension ] = inputMin[ tileDimension ] + end - 1;
+                projectTile( new FinalInterval( tileMin, tileMax ), mode, projected );
+            } );
+
+            if ( mode == Mode.Average )
+            {
+                final long count = projectionInterval.dimension( 0 );
+                for ( int i = 0; i < numOutputPixels; i++ )
+                    projected[ i ] /= count;
+            }
         }
-    }
 
+        final Cursor< T > outputCursor = Views.flatIterable( output ).cursor();
+        for ( int i = 0; i < numOutputPixels; i++ )
+            outputCursor.next().setReal( projected[ i ] );
+
+        return output;
+    }
 
-    private void setAverageProjection( Cursor< T > outputCursor )
+    /**
+     * Reads the tile row by row; along dimension 0 the input rows map to contiguous output rows,
+     * unless the projection is along dimension 0, where each row maps to one output pixel.
+     */
+    private void projectTile( FinalInterval tile, Mode mode, double[] projected )
     {
-        double average = 0;
-        long count = 0;
+        final int n = input.numDimensions();
+        final long[] outputStrides = new long[ n ]; // per input dimension; 0 for the projection dimension
+        long stride = 1;
+        for ( int d = 0; d < numOutputDimensions; ++d )
+        {
+            outputStrides[ inputAxesExcludingProjectionAxis[ d ] ] = stride;
+            stride *= outputDimensions[ d ];
+        }
+
+        final int width = (int) tile.dimension( 0 );
+        final long numRows = Intervals.numElements( tile ) / width;
+        final long[] position = Intervals.minAsLongArray( tile );
+        final Cursor< T > cursor = Views.flatIterable( Views.interval( input, tile ) ).cursor();
 
-        for ( long position = projectionInterval.min(0 ); position <= projectionInterval.max(0 ); ++position )
+        for ( long r = 0; r < numRows; r++ )
         {
-            inputAccess.setPosition( position, projectionDimension );
-            average += inputAccess.get().getRealDouble();
-            count++;
+            int outputIndex = 0;
+            for ( int d = 0; d < n; d++ )
+                outputIndex += ( position[ d ] - input.min( d ) ) * outputStrides[ d ];
+            final int outputIncrement = projectionDimension == 0 ? 0 : 1;
+
+            switch ( mode )
+            {
+                case Sum:
+                case Average:
+                    for ( int x = 0; x < width; x++, outputIndex += outputIncrement )
+                        projected[ outputIndex ] += cursor.next().getRealDouble();
+                    break;
+                case Minimum:
+                    for ( int x = 0; x < width; x++, outputIndex += outputIncrement )
+                    {
+                        final double value = cursor.next().getRealDouble();
+                        if ( value < projected[ outputIndex ] ) projected[ outputIndex ] = value;
+                    }
+                    break;
+                case Maximum:
+                    for ( int x = 0; x < width; x++, outputIndex += outputIncrement )
+                    {
+                        final double value = cursor.next().getRealDouble();
+                        if ( value > projected[ outputIndex ] ) projected[ outputIndex ] = value;
+                    }
+                    break;
+            }
+
+            for ( int d = 1; d < n; d++ )
+            {
+                if ( position[ d ] < tile.max( d ) )
+                {
+                    position[ d ]++;
+                    break;
+                }
+                position[ d ] = tile.min( d );
+            }
         }
+    }
 
-        average /= count;
+    /**
+     * ORs the 64 bit words of the planes of a BitType ArrayImg that is projected along its last dimension.
+     *
+     * @return false, if the input is not such an image
+     */
+    @SuppressWarnings( "unchecked" )
+    private boolean projectBitsWithOr()
+    {
+        if ( projectionDimension != numOutputDimensions ) return false;
+        if ( ! ( Util.getTypeFromInterval( input ) instanceof BitType ) ) return false;
 
-        outputCursor.get().setReal( average );
+        final long[] inputWords = getBitWords( input );
+        if ( inputWords == null ) return false;
 
+        final long planeSize = Intervals.numElements( outputDimensions );
+        final ArrayImg< BitType, LongArray > bits = ArrayImgs.bits( outputDimensions );
+        final long[] outputWords = bits.update( null ).getCurrentStorageArray();
+        final int numWords = (int) ( ( planeSize + 63 ) / 64 );
+
+        final long firstPlane = projectionInterval.min( 0 ) - input.min( projectionDimension );
+        final long numPlanes = Intervals.isEmpty( projectionInterval ) ? 0 : projectionInterval.dimension( 0 );
+
+        Parallel.forRanges( 0, numWords, executorService, ( start, end ) ->
+        {
+            for ( long plane = firstPlane; plane < firstPlane + numPlanes; plane++ )
+            {
+                final long planeOffset = plane * planeSize;
+                for ( int w = start; w < end; w++ )
+                    outputWords[ w ] |= getWord( inputWords, planeOffset + 64L * w );
+            }
+
+            // clear the bits of the next plane that were read into the last word
+            if ( end == numWords && planeSize % 64 != 0 )
+                outputWords[ numWords - 1 ] &= ( 1L << ( planeSize % 64 ) ) - 1;
+        } );
+
+        output = ( RandomAccessibleInterval ) Views.translate( bits, outputOffset() );
+        return true;
     }
 
-    private void setMedianProjection( Cursor< T > outputCursor )
+    /**
+     * @return the 64 bits starting at the given bit index
+     */
+    private static long getWord( long[] words, long bitIndex )
     {
-        double[] values = new double[ (int) projectionInterval.dimension( 0 ) ];
-        int min = (int) projectionInterval.min( 0 );
-        int max = (int) projectionInterval.max( 0 );
+        final int k = (int) ( bitIndex >>> 6 );
+        final int shift = (int) ( bitIndex & 63 );
 
-        for ( int i = min; i <= max; ++i )
-        {
-            inputAccess.setPosition( i, projectionDimension );
-            values[ i - min ] = inputAccess.get().getRealDouble();
-        }
+        long word = words[ k ] >>> shift;
+        if ( shift != 0 && k + 1 < words.length )
+            word |= words[ k + 1 ] << ( 64 - shift );
 
-        outputCursor.get().setReal( getMedian( values ) );
+        return word;
     }
 
-    private void setMinimumProjection( Cursor< T > outputCursor )
+    /**
+     * @return the words of a BitType ArrayImg, which may be translated, or null for other images
+     */
+    private static long[] getBitWords( RandomAccessibleInterval< ? > rai )
     {
-        double minValue = Double.MAX_VALUE;
-        double value;
+        Object source = rai;
 
-        for ( int i = (int) projectionInterval.min(0); i <= (int) projectionInterval.max(0 ); ++i )
+        if ( rai instanceof IntervalView )
         {
-            inputAccess.setPosition( i, projectionDimension );
-            value = inputAccess.get().getRealDouble();
-            minValue = value < minValue ? value : minValue;
+            RandomAccessible< ? > intervalSource = ( ( IntervalView< ? > ) rai ).getSource();
+            if ( intervalSource instanceof MixedTransformView )
+            {
+                if ( ! isTranslation( ( ( MixedTransformView< ? > ) intervalSource ).getTransformToSource() ) )
+                    return null;
+                intervalSource = ( ( MixedTransformView< ? > ) intervalSource ).getSource();
+            }
+            source = intervalSource;
+
+            if ( ! ( source instanceof ArrayImg ) ||
+                    ! Arrays.equals( Intervals.dimensionsAsLongArray( ( ArrayImg< ?, ? > ) source ), Intervals.dimensionsAsLongArray( rai ) ) )
+                return null;
         }
 
-        outputCursor.get().setReal( minValue );
+        if ( ! ( source instanceof ArrayImg ) ) return null;
+
+        final Object access = ( ( ArrayImg< ?, ? > ) source ).update( null );
+        if ( ! ( access instanceof LongArray ) ) return null;
+
+        return ( ( LongArray ) access ).getCurrentStorageArray();
     }
 
-    private void setMaximumProjection( Cursor< T > outputCursor )
+    private static boolean isTranslation( MixedTransform transform )
     {
-        double maxValue = Double.MIN_VALUE;
-        double value;
+        final int n = transform.numSourceDimensions();
+        if ( transform.numTargetDimensions() != n ) return false;
 
-        for ( int i = (int) projectionInterval.min(0); i <= (int) projectionInterval.max(0 ); ++i )
-        {
-            inputAccess.setPosition( i, projectionDimension );
-            value = inputAccess.get().getRealDouble();
-            maxValue = value > maxValue ? value : maxValue;
-        }
+        final boolean[] zero = new boolean[ n ];
+        final boolean[] inversion = new boolean[ n ];
+        final int[] mapping = new int[ n ];
+        transform.getComponentZero( zero );
+        transform.getComponentInversion( inversion );
+        transform.getComponentMapping( mapping );
 
-        outputCursor.get().setReal( maxValue );
-    }
+        for ( int d = 0; d < n; d++ )
+            if ( zero[ d ] || inversion[ d ] || mapping[ d ] != d )
+                return false;
 
+        return true;
+    }
 
     public double getMedian( double[] values) {
 
@@ -275,12 +451,6 @@ public class Projection< T extends RealType< T > & NativeType< T > >
         }
     }
 
-    private void setInputAccess( Cursor< T > cursorOutput )
-    {
-        for ( int d = 0; d < numOutputDimensions; ++d )
-            inputAccess.setPosition( cursorOutput.getLongPosition( d ), inputAxesExcludingProjectionAxis[ d ] );
-    }
-
     private void configureInputAxesExcludingProjectionAxis()
     {
         inputAxesExcludingProjectionAxis = new int[ numOutputDimensions ];
@@ -0,0 +1,155 @@
+package de.embl.cba.spindle3d.util;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+/**
+ * Mean intensities in rings (2D) or shells (3D) of constant width around
+ * one or several centers, computed in one pass over the image.
+ *
+ * The image is traversed row by row in flat iteration order, which, for ArrayImgs,
+ * is the order of the underlying array. Per row, only the pixels that are within
+ * the maximal distance of any center are visited.
+ */
+public abstract class RadialProfiles
+{
+	/**
+	 * @param image
+	 * @param centers
+	 * 			in the coordinates of the image
+	 * @param binWidth
+	 * 			in pixels
+	 * @param numBins
+	 * @return for each center, the mean intensity of the pixels whose distance to the center,
+	 * 			divided by the bin width, is in [ bin, bin + 1 ); NaN for bins without pixels
+	 */
+	public static < T extends RealType< T > > double[][] computeMeans(
+			RandomAccessibleInterval< T > image,
+			double[][] centers,
+			double binWidth,
+			int numBins )
+	{
+		final double[][] sums = new double[ centers.length ][ numBins ];
+		final long[][] counts = new long[ centers.length ][ numBins ];
+
+		accumulate( image, centers, binWidth, sums, counts );
+
+		final double[][] means = new double[ centers.length ][ numBins ];
+		for ( int c = 0; c < centers.length; c++ )
+			for ( int bin = 0; bin < numBins; bin++ )
+				means[ c ][ bin ] = sums[ c ][ bin ] / counts[ c ][ bin ];
+
+		return means;
+	}
+
+	/**
+	 * Adds, for each center and bin, the sum and the number of pixel values.
+	 */
+	public static < T extends RealType< T > > void accumulate(
+			RandomAccessibleInterval< T > image,
+			double[][] centers,
+			double binWidth,
+			double[][] sums,
+			long[][] counts )
+	{
+		final int n = image.numDimensions();
+		final int numCenters = centers.length;
+		final int numBins = sums[ 0 ].length;
+		final double maxDistance = numBins * binWidth;
+		final double maxSquaredDistance = maxDistance * maxDistance;
+		final double binsPerPixel = 1.0 / binWidth;
+
+		final int width = (int) image.dimension( 0 );
+		final long min0 = image.min( 0 );
+
+		// squared distances along the rows, per center
+		final double[][] dx2 = new double[ numCenters ][ width ];
+		for ( int c = 0; c < numCenters; c++ )
+			for ( int x = 0; x < width; x++ )
+			{
+				final double dx = x + min0 - centers[ c ][ 0 ];
+				dx2[ c ][ x ] = dx * dx;
+			}
+
+		final long[] position = Intervals.minAsLongArray( image );
+		final long numRows = Intervals.numElements( image ) / width;
+
+		final int[] starts = new int[ numCenters ];
+		final int[] ends = new int[ numCenters ];
+		final double[] rowSquaredDistances = new double[ numCenters ];
+		final double[] row = new double[ width ];
+
+		final Cursor< T > cursor = Views.flatIterable( image ).cursor();
+		long cursorIndex = -1; // flat index of the cursor position
+
+		for ( long r = 0; r < numRows; r++ )
+		{
+			// pixel range of this row that is within the maximal distance of any center
+			int rowStart = width;
+			int rowEnd = 0;
+			for ( int c = 0; c < numCenters; c++ )
+			{
+				double squaredDistance = 0;
+				for ( int d = 1; d < n; d++ )
+				{
+					final double delta = position[ d ] - centers[ c ][ d ];
+					squaredDistance += delta * delta;
+				}
+				rowSquaredDistances[ c ] = squaredDistance;
+
+				if ( squaredDistance >= maxSquaredDistance )
+				{
+					starts[ c ] = ends[ c ] = 0;
+					continue;
+				}
+
+				final double halfChord = Math.sqrt( maxSquaredDistance - squaredDistance );
+				starts[ c ] = (int) Math.max( 0, Math.floor( centers[ c ][ 0 ] - halfChord - min0 ) );
+				ends[ c ] = (int) Math.min( width, Math.ceil( centers[ c ][ 0 ] + halfChord - min0 ) + 1 );
+				rowStart = Math.min( rowStart, starts[ c ] );
+				rowEnd = Math.max( rowEnd, ends[ c ] );
+			}
+
+			if ( rowStart < rowEnd )
+			{
+				final long rowStartIndex = r * width + rowStart;
+				cursor.jumpFwd( rowStartIndex - cursorIndex );
+				row[ rowStart ] = cursor.get().getRealDouble();
+				for ( int x = rowStart + 1; x < rowEnd; x++ )
+					row[ x ] = cursor.next().getRealDouble();
+				cursorIndex = r * width + rowEnd - 1;
+
+				for ( int c = 0; c < numCenters; c++ )
+				{
+					final double[] centerDx2 = dx2[ c ];
+					final double[] centerSums = sums[ c ];
+					final long[] centerCounts = counts[ c ];
+					final double rowSquaredDistance = rowSquaredDistances[ c ];
+
+					for ( int x = starts[ c ]; x < ends[ c ]; x++ )
+					{
+						final int bin = (int) ( Math.sqrt( centerDx2[ x ] + rowSquaredDistance ) * binsPerPixel );
+						if ( bin < numBins )
+						{
+							centerSums[ bin ] += row[ x ];
+							centerCounts[ bin ]++;
+						}
+					}
+				}
+			}
+
+			for ( int d = 1; d < n; d++ )
+			{
+				if ( position[ d ] < image.max( d ) )
+				{
+					position[ d ]++;
+					break;
+				}
+				position[ d ] = image.min( d );
+			}
+		}
+	}
+}
@@ -0,0 +1,300 @@
+package de.embl.cba.spindle3d.util;
+
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.realtransform.Scale;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Rescales 3D images approximately as {@link Utils#createRescaledArrayImg},
+ * i.e. Gaussian blurring with sigma = 0.5 / scalingFactor, border extension
+ * and n-linear interpolation at the positions of the output grid.
+ *
+ * The results are not identical: the filter weights are stored as float,
+ * and the blurred values are not rounded to the pixel type before the interpolation.
+ * For integer pixel types, the rescaled values can therefore differ by one.
+ *
+ * Blurring and interpolation are fused into one separable filter per dimension,
+ * which is only evaluated at the output grid positions. The input is streamed
+ * plane by plane, such that, apart from the output, only a buffer of the size
+ * of the xy-rescaled input needs to be allocated.
+ */
+public abstract class Resampler
+{
+	public static < T extends RealType< T > & NativeType< T > >
+	RandomAccessibleInterval< T > createRescaledArrayImg(
+			RandomAccessibleInterval< T > input,
+			double[] scalingFactors )
+	{
+		return createRescaledArrayImg( input, scalingFactors, ( ExecutorService ) null );
+	}
+
+	public static < T extends RealType< T > & NativeType< T > >
+	RandomAccessibleInterval< T > createRescaledArrayImg(
+			RandomAccessibleInterval< T > input,
+			double[] scalingFactors,
+			ExecutorService executorService )
+	{
+		return createRescaledArrayImg(
+				input,
+				scalingFactors,
+				Utils.createScaledInterval( input, new Scale( scalingFactors ) ),
+				executorService );
+	}
+
+	public static < T extends RealType< T > & NativeType< T > >
+	RandomAccessibleInterval< T > createRescaledArrayImg(
+			RandomAccessibleInterval< T > input,
+			double[] scalingFactors,
+			Interval outputInterval )
+	{
+		return createRescaledArrayImg( input, scalingFactors, outputInterval, null );
+	}
+
+	/**
+	 * Computes the rescaled image only within the given output interval.
+	 * The values are identical to the corresponding values of the rescaled full image.
+	 *
+	 * @param input
+	 * @param scalingFactors
+	 * @param outputInterval
+	 * 			interval in the coordinates of the rescaled image
+	 * @param executorService
+	 * 			used to process the planes and rows concurrently; if null, the calling thread is used
+	 * @return rescaled image with the given output interval
+	 */
+	public static < T extends RealType< T > & NativeType< T > >
+	RandomAccessibleInterval< T > createRescaledArrayImg(
+			RandomAccessibleInterval< T > input,
+			double[] scalingFactors,
+			Interval outputInterval,
+			ExecutorService executorService )
+	{
+		if ( input.numDimensions() != 3 )
+			throw new UnsupportedOperationException( "Only 3D images can be rescaled; number of dimensions: " + input.numDimensions() );
+
+		final AxisSampling x = new AxisSampling( input, outputInterval, scalingFactors, 0 );
+		final AxisSampling y = new AxisSampling( input, outputInterval, scalingFactors, 1 );
+		final AxisSampling z = new AxisSampling( input, outputInterval, scalingFactors, 2 );
+
+		if ( (long) x.numOutput * y.numOutput * z.numInput > Integer.MAX_VALUE )
+			throw new UnsupportedOperationException( "Image is too large to be rescaled: " + Util.printInterval( input ) );
+
+		final float[] xyRescaledPlanes = new float[ x.numOutput * y.numOutput * z.numInput ];
+		Parallel.forRanges( 0, z.numInput, executorService, ( zStart, zEnd ) ->
+				resamplePlanes( input, x, y, z, xyRescaledPlanes, zStart, zEnd ) );
+
+		final T type = Util.getTypeFromInterval( input ).createVariable();
+		final ArrayImg< T, ? > output = new ArrayImgFactory<>( type ).create( x.numOutput, y.numOutput, z.numOutput );
+		// types with several pixels per storage entity, e.g. BitType, cannot be written concurrently
+		final ExecutorService outputExecutorService = type.getEntitiesPerPixel().getRatio() < 1 ? null : executorService;
+		Parallel.forRanges( 0, y.numOutput, outputExecutorService, ( yStart, yEnd ) ->
+				resampleAlongZ( xyRescaledPlanes, x, y, z, output, yStart, yEnd ) );
+
+		return Views.translate( output, Intervals.minAsLongArray( outputInterval ) );
+	}
+
+	/**
+	 * Resamples the input planes [ zStart, zEnd ) along x and y.
+	 */
+	private static < T extends RealType< T > > void resamplePlanes(
+			RandomAccessibleInterval< T > input,
+			AxisSampling x,
+			AxisSampling y,
+			AxisSampling z,
+			float[] xyRescaledPlanes,
+			int zStart,
+			int zEnd )
+	{
+		final RandomAccess< T > access = input.randomAccess();
+		final double[] line = new double[ Math.max( x.numInput, y.numInput ) ];
+		final float[] xRescaledPlane = new float[ x.numOutput * y.numInput ];
+		final int planeSize = x.numOutput * y.numOutput;
+
+		for ( int zi = zStart; zi < zEnd; zi++ )
+		{
+			// along x
+			for ( int yi = 0; yi < y.numInput; yi++ )
+			{
+				access.setPosition( x.inputMin, 0 );
+				access.setPosition( y.inputMin + yi, 1 );
+				access.setPosition( z.inputMin + zi, 2 );
+				for ( int xi = 0; xi < x.numInput; xi++ )
+				{
+					line[ xi ] = access.get().getRealDouble();
+					access.fwd( 0 );
+				}
+
+				x.resample( line, xRescaledPlane, yi * x.numOutput, 1 );
+			}
+
+			// along y
+			for ( int xo = 0; xo < x.numOutput; xo++ )
+			{
+				for ( int yi = 0; yi < y.numInput; yi++ )
+					line[ yi ] = xRescaledPlane[ yi * x.numOutput + xo ];
+
+				y.resample( line, xyRescaledPlanes, zi * planeSize + xo, x.numOutput );
+			}
+		}
+	}
+
+	/**
+	 * Resamples the xy-rescaled planes along z, for the output rows [ yStart, yEnd ).
+	 */
+	private static < T extends RealType< T > > void resampleAlongZ(
+			float[] xyRescaledPlanes,
+			AxisSampling x,
+			AxisSampling y,
+			AxisSampling z,
+			RandomAccessibleInterval< T > output,
+			int yStart,
+			int yEnd )
+	{
+		final RandomAccess< T > access = output.randomAccess();
+		final double[] line = new double[ z.numInput ];
+		final float[] resampled = new float[ z.numOutput ];
+		final int planeSize = x.numOutput * y.numOutput;
+
+		for ( int yo = yStart; yo < yEnd; yo++ )
+		{
+			for ( int xo = 0; xo < x.numOutput; xo++ )
+			{
+				final int offset = yo * x.numOutput + xo;
+				for ( int zi = 0; zi < z.numInput; zi++ )
+					line[ zi ] = xyRescaledPlanes[ zi * planeSize + offset ];
+
+				z.resample( line, resampled, 0, 1 );
+
+				access.setPosition( xo, 0 );
+				access.setPosition( yo, 1 );
+				access.setPosition( 0, 2 );
+				for ( int zo = 0; zo < z.numOutput; zo++ )
+				{
+					access.get().setReal( resampled[ zo ] );
+					access.fwd( 2 );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Precomputed weights for the fused blurring and linear interpolation along one dimension.
+	 */
+	static class AxisSampling
+	{
+		final long inputMin; // first input coordinate that is needed for the output
+		final int numInput;
+		final int numOutput;
+		final int[] firstIndex; // for each output, the index of the first input that contributes
+		final float[][] weights; // for each output, the weights of the contributing inputs
+
+		AxisSampling( Interval input, Interval output, double[] scalingFactors, int d )
+		{
+			this( input.min( d ), input.max( d ), output.min( d ), output.max( d ), scalingFactors[ d ] );
+		}
+
+		AxisSampling( long imageMin, long imageMax, long outputMin, long outputMax, double scalingFactor )
+		{
+			numOutput = (int) ( outputMax - outputMin + 1 );
+			final double[] halfKernel = halfKernel( 0.5 / scalingFactor );
+			final int k = halfKernel.length - 1;
+
+			final long[] first = new long[ numOutput ];
+			weights = new float[ numOutput ][];
+
+			long min = Long.MAX_VALUE;
+			long max = Long.MIN_VALUE;
+
+			for ( int i = 0; i < numOutput; i++ )
+			{
+				// linear interpolation of the border extended blurred image at x
+				final double x = ( outputMin + i ) / scalingFactor;
+				final long j0 = (long) Math.floor( x );
+				final double fraction = x - j0;
+				final long c0 = clamp( j0, imageMin, imageMax );
+				final long c1 = clamp( j0 + 1, imageMin, imageMax );
+
+				// blurring of the border extended input at c0 and c1
+				first[ i ] = clamp( c0 - k, imageMin, imageMax );
+				final long last = clamp( c1 + k, imageMin, imageMax );
+				final double[] w = new double[ (int) ( last - first[ i ] + 1 ) ];
+				for ( int j = -k; j <= k; j++ )
+				{
+					w[ (int) ( clamp( c0 + j, imageMin, imageMax ) - first[ i ] ) ] += ( 1.0 - fraction ) * halfKernel[ Math.abs( j ) ];
+					if ( fraction > 0 )
+						w[ (int) ( clamp( c1 + j, imageMin, imageMax ) - first[ i ] ) ] += fraction * halfKernel[ Math.abs( j ) ];
+				}
+
+				weights[ i ] = new float[ w.length ];
+				for ( int j = 0; j < w.length; j++ )
+					weights[ i ][ j ] = (float) w[ j ];
+
+				min = Math.min( min, first[ i ] );
+				max = Math.max( max, last );
+			}
+
+			inputMin = min;
+			numInput = (int) ( max - min + 1 );
+			firstIndex = new int[ numOutput ];
+			for ( int i = 0; i < numOutput; i++ )
+				firstIndex[ i ] = (int) ( first[ i ] - inputMin );
+		}
+
+		/**
+		 * @param input
+		 * 			the needed inputs, starting at inputMin
+		 * @param output
+		 * @param offset
+		 * 			index of the first output value
+		 * @param stride
+		 * 			distance between the output values
+		 */
+		void resample( double[] input, float[] output, int offset, int stride )
+		{
+			for ( int i = 0; i < numOutput; i++ )
+			{
+				final float[] w = weights[ i ];
+				final int first = firstIndex[ i ];
+				double value = 0;
+				for ( int j = 0; j < w.length; j++ )
+					value += w[ j ] * input[ first + j ];
+				output[ offset + i * stride ] = (float) value;
+			}
+		}
+
+		private static long clamp( long position, long min, long max )
+		{
+			return Math.max( min, Math.min( max, position ) );
+		}
+
+		/**
+		 * Normalised Gaussian half kernel of the same size as the one used by Gauss3.
+		 */
+		static double[] halfKernel( double sigma )
+		{
+			final int size = Math.max( 2, (int) ( 3 * sigma + 0.5 ) + 1 );
+			final double[] kernel = new double[ size ];
+			kernel[ 0 ] = 1;
+			double sum = 0.5;
+			for ( int x = 1; x < size; ++x )
+			{
+				kernel[ x ] = Math.exp( - ( x * x ) / ( 2 * sigma * sigma ) );
+				sum += kernel[ x ];
+			}
+			sum *= 2;
+			for ( int x = 0; x < size; ++x )
+				kernel[ x ] /= sum;
+			return kernel;
+		}
+	}
+}
@@ -0,0 +1,428 @@
+package de.embl.cba.spindle3d.util;
+
+import net.imglib2.AbstractInterval;
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.Point;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * A read-only mask that stores, for each row along the first dimension,
+ * the runs of foreground voxels.
+ *
+ * The number of foreground voxels, the foreground bounding interval and
+ * the values of an image within the mask are computed from the runs,
+ * such that the background is never visited.
+ * Voxels outside of the interval of the mask are background.
+ */
+public class RunLengthMask extends AbstractInterval implements RandomAccessibleInterval< BitType >
+{
+	/**
+	 * Per row, the index of its first run; the last element is the number of runs.
+	 */
+	private final int[] rowOffsets;
+
+	/**
+	 * Per run, the first and one after the last foreground voxel, relative to the mask minimum.
+	 */
+	private final int[] runs;
+
+	private final long[] rowStrides;
+	private final long numForegroundVoxels;
+
+	public interface RunConsumer
+	{
+		/**
+		 * @param start
+		 * 			position of the first voxel of the run; the array is reused for all runs
+		 * @param length
+		 */
+		void accept( long[] start, int length );
+	}
+
+	private RunLengthMask( Interval interval, RunsBuilder builder )
+	{
+		super( interval );
+		this.rowOffsets = builder.rowOffsets;
+		this.runs = builder.runs();
+
+		rowStrides = new long[ n ];
+		for ( int d = 1; d < n; d++ )
+			rowStrides[ d ] = d == 1 ? 1 : rowStrides[ d - 1 ] * dimension( d - 1 );
+
+		long count = 0;
+		for ( int r = 0; r < rowOffsets[ rowOffsets.length - 1 ]; r++ )
+			count += runs[ 2 * r + 1 ] - runs[ 2 * r ];
+		numForegroundVoxels = count;
+	}
+
+	/**
+	 * Encodes the mask in one pass in flat iteration order.
+	 *
+	 * @param mask
+	 * @return the mask itself, if it is already run length encoded
+	 */
+	public static RunLengthMask of( RandomAccessibleInterval< BitType > mask )
+	{
+		return of( mask, null );
+	}
+
+	/**
+	 * As {@link #of(RandomAccessibleInterval)}, with slabs along the last dimension encoded concurrently.
+	 *
+	 * @param mask
+	 * @param executorService
+	 * 			may be null
+	 */
+	public static RunLengthMask of( RandomAccessibleInterval< BitType > mask, ExecutorService executorService )
+	{
+		if ( mask instanceof RunLengthMask ) return ( RunLengthMask ) mask;
+
+		final int n = mask.numDimensions();
+		if ( n == 1 || Intervals.isEmpty( mask ) )
+			return new RunLengthMask( mask, encode( mask ) );
+
+		final int lastDimension = n - 1;
+		final int numSlices = (int) mask.dimension( lastDimension );
+		final int rowsPerSlice = (int) ( Intervals.numElements( mask ) / mask.dimension( 0 ) / numSlices );
+		final RunsBuilder[] slabBuilders = new RunsBuilder[ numSlices ];
+
+		Parallel.forRanges( 0, numSlices, executorService, ( start, end ) ->
+		{
+			final long[] min = Intervals.minAsLongArray( mask );
+			final long[] max = Intervals.maxAsLongArray( mask );
+			min[ lastDimension ] = mask.min( lastDimension ) + start;
+			max[ lastDimension ] = mask.min( lastDimension ) + end - 1;
+			slabBuilders[ start ] = encode( Views.interval( mask, new FinalInterval( min, max ) ) );
+		} );
+
+		// concatenate the slabs, which consist of consecutive rows
+		final RunsBuilder builder = new RunsBuilder( numSlices * rowsPerSlice );
+		int row = 0;
+		for ( RunsBuilder slabBuilder : slabBuilders )
+		{
+			if ( slabBuilder == null ) continue;
+
+			final int numSlabRows = slabBuilder.rowOffsets.length - 1;
+			for ( int slabRow = 0; slabRow < numSlabRows; slabRow++ )
+			{
+				for ( int r = slabBuilder.rowOffsets[ slabRow ]; r < slabBuilder.rowOffsets[ slabRow + 1 ]; r++ )
+					builder.add( slabBuilder.runs[ 2 * r ], slabBuilder.runs[ 2 * r + 1 ] );
+				builder.endRow( row++ );
+			}
+		}
+
+		return new RunLengthMask( mask, builder );
+	}
+
+	private static RunsBuilder encode( RandomAccessibleInterval< BitType > mask )
+	{
+		final int width = (int) mask.dimension( 0 );
+		final int numRows = Intervals.isEmpty( mask ) ? 0 : (int) ( Intervals.numElements( mask ) / width );
+		final RunsBuilder builder = new RunsBuilder( numRows );
+
+		final Cursor< BitType > cursor = Views.flatIterable( mask ).cursor();
+		for ( int row = 0; row < numRows; row++ )
+		{
+			int runStart = -1;
+			for ( int x = 0; x <= width; x++ )
+			{
+				final boolean isForeground = x < width && cursor.next().get();
+				if ( isForeground && runStart == -1 )
+				{
+					runStart = x;
+				}
+				else if ( ! isForeground && runStart != -1 )
+				{
+					builder.add( runStart, x );
+					runStart = -1;
+				}
+			}
+			builder.endRow( row );
+		}
+
+		return builder;
+	}
+
+	public long numForegroundVoxels()
+	{
+		return numForegroundVoxels;
+	}
+
+	/**
+	 * @return the smallest interval containing all foreground voxels, or null if the mask is empty
+	 */
+	public FinalInterval foregroundBoundingInterval()
+	{
+		if ( numForegroundVoxels == 0 ) return null;
+
+		final long[] min = new long[ n ];
+		final long[] max = new long[ n ];
+		Arrays.fill( min, Long.MAX_VALUE );
+		Arrays.fill( max, Long.MIN_VALUE );
+
+		forEachRun( ( start, length ) ->
+		{
+			for ( int d = 0; d < n; d++ )
+			{
+				if ( start[ d ] < min[ d ] ) min[ d ] = start[ d ];
+				if ( start[ d ] > max[ d ] ) max[ d ] = start[ d ];
+			}
+			if ( start[ 0 ] + length - 1 > max[ 0 ] ) max[ 0 ] = start[ 0 ] + length - 1;
+		} );
+
+		return new FinalInterval( min, max );
+	}
+
+	/**
+	 * Visits the runs in flat iteration order.
+	 */
+	public void forEachRun( RunConsumer consumer )
+	{
+		final long[] position = new long[ n ];
+		min( position );
+		final long min0 = min( 0 );
+		final int numRows = rowOffsets.length - 1;
+
+		for ( int row = 0; row < numRows; row++ )
+		{
+			for ( int r = rowOffsets[ row ]; r < rowOffsets[ row + 1 ]; r++ )
+			{
+				position[ 0 ] = min0 + runs[ 2 * r ];
+				consumer.accept( position, runs[ 2 * r + 1 ] - runs[ 2 * r ] );
+			}
+
+			for ( int d = 1; d < n; d++ )
+			{
+				if ( position[ d ] < max( d ) )
+				{
+					position[ d ]++;
+					break;
+				}
+				position[ d ] = min( d );
+			}
+		}
+	}
+
+	/**
+	 * Visits the values of an image at the foreground voxels that are within the image interval,
+	 * in flat iteration order.
+	 */
+	public < T > void forEachForegroundValue( RandomAccessibleInterval< T > image, Consumer< T > consumer )
+	{
+		final RandomAccess< T > access = image.randomAccess();
+		final long imageMin0 = image.min( 0 );
+		final long imageMax0 = image.max( 0 );
+
+		forEachRun( ( start, length ) ->
+		{
+			for ( int d = 1; d < n; d++ )
+				if ( start[ d ] < image.min( d ) || start[ d ] > image.max( d ) )
+					return;
+
+			final long runMin = Math.max( start[ 0 ], imageMin0 );
+			final long runMax = Math.min( start[ 0 ] + length - 1, imageMax0 );
+			if ( runMin > runMax ) return;
+
+			access.setPosition( start );
+			access.setPosition( runMin, 0 );
+			for ( long x = runMin; x <= runMax; x++ )
+			{
+				consumer.accept( access.get() );
+				access.fwd( 0 );
+			}
+		} );
+	}
+
+	public RunLengthMask and( RunLengthMask other )
+	{
+		return combine( other, ( a, b ) -> a && b );
+	}
+
+	public RunLengthMask or( RunLengthMask other )
+	{
+		return combine( other, ( a, b ) -> a || b );
+	}
+
+	public RunLengthMask andNot( RunLengthMask other )
+	{
+		return combine( other, ( a, b ) -> a && ! b );
+	}
+
+	private interface BooleanOperation
+	{
+		boolean apply( boolean a, boolean b );
+	}
+
+	/**
+	 * Merges the runs of both masks row by row, by sweeping over the run boundaries.
+	 * The operation must map two background voxels to background.
+	 */
+	private RunLengthMask combine( RunLengthMask other, BooleanOperation operation )
+	{
+		if ( ! Intervals.equals( this, other ) )
+			throw new IllegalArgumentException( "Masks must have the same interval, but are " +
+					Arrays.toString( Intervals.minAsLongArray( this ) ) + "-" + Arrays.toString( Intervals.maxAsLongArray( this ) ) + " and " +
+					Arrays.toString( Intervals.minAsLongArray( other ) ) + "-" + Arrays.toString( Intervals.maxAsLongArray( other ) ) );
+
+		final int numRows = rowOffsets.length - 1;
+		final RunsBuilder builder = new RunsBuilder( numRows );
+
+		for ( int row = 0; row < numRows; row++ )
+		{
+			// indices of the next run boundary; even indices are run starts, odd indices run ends
+			int a = 2 * rowOffsets[ row ];
+			final int aEnd = 2 * rowOffsets[ row + 1 ];
+			int b = 2 * other.rowOffsets[ row ];
+			final int bEnd = 2 * other.rowOffsets[ row + 1 ];
+
+			boolean inA = false;
+			boolean inB = false;
+			boolean inResult = false;
+			int resultStart = 0;
+
+			while ( a < aEnd || b < bEnd )
+			{
+				final int x = Math.min(
+						a < aEnd ? runs[ a ] : Integer.MAX_VALUE,
+						b < bEnd ? other.runs[ b ] : Integer.MAX_VALUE );
+
+				if ( a < aEnd && runs[ a ] == x )
+				{
+					inA = ! inA;
+					a++;
+				}
+
+				if ( b < bEnd && other.runs[ b ] == x )
+				{
+					inB = ! inB;
+					b++;
+				}
+
+				final boolean isForeground = operation.apply( inA, inB );
+				if ( isForeground && ! inResult )
+					resultStart = x;
+				else if ( ! isForeground && inResult )
+					builder.add( resultStart, x );
+				inResult = isForeground;
+			}
+
+			builder.endRow( row );
+		}
+
+		return new RunLengthMask( this, builder );
+	}
+
+	boolean isForeground( long[] position )
+	{
+		for ( int d = 0; d < n; d++ )
+			if ( position[ d ] < min[ d ] || position[ d ] > max[ d ] )
+				return false;
+
+		long row = 0;
+		for ( int d = 1; d < n; d++ )
+			row += ( position[ d ] - min[ d ] ) * rowStrides[ d ];
+
+		final int x = (int) ( position[ 0 ] - min[ 0 ] );
+
+		// the last run of the row that starts at or before x
+		int low = rowOffsets[ (int) row ];
+		int high = rowOffsets[ (int) row + 1 ] - 1;
+		while ( low <= high )
+		{
+			final int mid = ( low + high ) >>> 1;
+			if ( runs[ 2 * mid ] <= x )
+				low = mid + 1;
+			else
+				high = mid - 1;
+		}
+
+		return high >= rowOffsets[ (int) row ] && x < runs[ 2 * high + 1 ];
+	}
+
+	@Override
+	public RandomAccess< BitType > randomAccess()
+	{
+		return new RunLengthMaskAccess();
+	}
+
+	@Override
+	public RandomAccess< BitType > randomAccess( Interval interval )
+	{
+		return randomAccess();
+	}
+
+	public BitType getType()
+	{
+		return new BitType();
+	}
+
+	private class RunLengthMaskAccess extends Point implements RandomAccess< BitType >
+	{
+		private final BitType value = new BitType();
+
+		RunLengthMaskAccess()
+		{
+			super( RunLengthMask.this.numDimensions() );
+		}
+
+		RunLengthMaskAccess( RunLengthMaskAccess access )
+		{
+			super( access );
+		}
+
+		@Override
+		public BitType get()
+		{
+			value.set( isForeground( position ) );
+			return value;
+		}
+
+		@Override
+		public RunLengthMaskAccess copy()
+		{
+			return new RunLengthMaskAccess( this );
+		}
+	}
+
+	private static class RunsBuilder
+	{
+		final int[] rowOffsets;
+		int[] runs = new int[ 2 * 64 ];
+		private int numRuns = 0;
+
+		RunsBuilder( int numRows )
+		{
+			rowOffsets = new int[ numRows + 1 ];
+		}
+
+		void add( int start, int end )
+		{
+			if ( 2 * ( numRuns + 1 ) > runs.length )
+				runs = Arrays.copyOf( runs, 2 * runs.length );
+
+			runs[ 2 * numRuns ] = start;
+			runs[ 2 * numRuns + 1 ] = end;
+			numRuns++;
+		}
+
+		void endRow( int row )
+		{
+			rowOffsets[ row + 1 ] = numRuns;
+		}
+
+		int[] runs()
+		{
+			return Arrays.copyOf( runs, 2 * numRuns );
+		}
+	}
+}
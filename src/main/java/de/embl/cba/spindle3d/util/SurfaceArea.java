@@ -0,0 +1,169 @@
+package de.embl.cba.spindle3d.util;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.view.Views;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Surface area of a 3D mask, estimated with the discrete Crofton formula
+ * in 13 directions (Lehmann and Legland, 2012; as in MorphoLibJ).
+ *
+ * For each direction, the foreground-background transitions between neighbouring voxels are counted;
+ * the surface area is twice the weighted sum of these counts times the area per line of the lattice.
+ * Voxels outside of the mask interval are background.
+ *
+ * The mask is read plane by plane, with slabs of planes processed concurrently.
+ */
+public abstract class SurfaceArea
+{
+	/**
+	 * The 13 directions, all with a non-negative z component.
+	 */
+	private static final int[][] DIRECTIONS = {
+			{ 1, 0, 0 }, { 0, 1, 0 }, { 0, 0, 1 },
+			{ 1, 1, 0 }, { 1, -1, 0 }, { 1, 0, 1 }, { -1, 0, 1 }, { 0, 1, 1 }, { 0, -1, 1 },
+			{ 1, 1, 1 }, { -1, -1, 1 }, { 1, -1, 1 }, { -1, 1, 1 } };
+
+	/**
+	 * The fractions of the unit sphere that are closest to the axis, face diagonal
+	 * and cube diagonal directions, for isotropic voxels.
+	 */
+	private static final double AXIS_WEIGHT = 0.09155578240952;
+	private static final double FACE_DIAGONAL_WEIGHT = 0.07396125575216;
+	private static final double CUBE_DIAGONAL_WEIGHT = 0.07039127956464;
+
+	/**
+	 * Padding of the planes, such that the neighbours of the voxels adjacent to the mask are within the planes.
+	 */
+	private static final int PADDING = 2;
+
+	/**
+	 * @param mask
+	 * @param voxelSize
+	 * 			the weights of the directions assume isotropic voxels
+	 * @param executorService
+	 * 			may be null
+	 * @return the surface area, in units of the voxel size squared
+	 */
+	public static double measure( RandomAccessibleInterval< BitType > mask, double[] voxelSize, ExecutorService executorService )
+	{
+		final long[] transitions = countTransitions( mask, executorService );
+
+		final double voxelVolume = voxelSize[ 0 ] * voxelSize[ 1 ] * voxelSize[ 2 ];
+
+		double area = 0;
+		for ( int i = 0; i < DIRECTIONS.length; i++ )
+		{
+			final int[] v = DIRECTIONS[ i ];
+			final double length = Math.sqrt(
+					Math.pow( v[ 0 ] * voxelSize[ 0 ], 2 ) +
+					Math.pow( v[ 1 ] * voxelSize[ 1 ], 2 ) +
+					Math.pow( v[ 2 ] * voxelSize[ 2 ], 2 ) );
+
+			area += weight( v ) * transitions[ i ] * voxelVolume / length;
+		}
+
+		return 2 * area;
+	}
+
+	private static double weight( int[] direction )
+	{
+		final int numNonZero = Math.abs( direction[ 0 ] ) + Math.abs( direction[ 1 ] ) + Math.abs( direction[ 2 ] );
+		if ( numNonZero == 1 ) return AXIS_WEIGHT;
+		else if ( numNonZero == 2 ) return FACE_DIAGONAL_WEIGHT;
+		else return CUBE_DIAGONAL_WEIGHT;
+	}
+
+	/**
+	 * @return per direction, the number of voxel pairs with one foreground and one background voxel
+	 */
+	static long[] countTransitions( RandomAccessibleInterval< BitType > mask, ExecutorService executorService )
+	{
+		final long[] transitions = new long[ DIRECTIONS.length ];
+		final long minZ = mask.min( 2 );
+		final int depth = (int) mask.dimension( 2 );
+
+		// pairs are counted for the plane of their voxel with the smaller z,
+		// which includes the empty plane below the mask
+		Parallel.forRanges( -1, depth, executorService, ( start, end ) ->
+		{
+			final long[] slabTransitions = countTransitions( mask, minZ + start, minZ + end );
+			synchronized ( transitions )
+			{
+				for ( int i = 0; i < transitions.length; i++ )
+					transitions[ i ] += slabTransitions[ i ];
+			}
+		} );
+
+		return transitions;
+	}
+
+	private static long[] countTransitions( RandomAccessibleInterval< BitType > mask, long zStart, long zEnd )
+	{
+		final int width = (int) mask.dimension( 0 );
+		final int height = (int) mask.dimension( 1 );
+		final int paddedWidth = width + 2 * PADDING;
+		final int paddedHeight = height + 2 * PADDING;
+
+		final int[] offsets = new int[ DIRECTIONS.length ];
+		for ( int i = 0; i < DIRECTIONS.length; i++ )
+			offsets[ i ] = DIRECTIONS[ i ][ 1 ] * paddedWidth + DIRECTIONS[ i ][ 0 ];
+
+		byte[] plane = new byte[ paddedWidth * paddedHeight ];
+		byte[] nextPlane = new byte[ paddedWidth * paddedHeight ];
+		readPlane( mask, zStart, plane, paddedWidth );
+
+		final long[] transitions = new long[ DIRECTIONS.length ];
+
+		for ( long z = zStart; z < zEnd; z++ )
+		{
+			readPlane( mask, z + 1, nextPlane, paddedWidth );
+
+			// all voxels whose neighbours may be within the mask
+			for ( int y = PADDING - 1; y < PADDING + height + 1; y++ )
+			{
+				for ( int x = PADDING - 1; x < PADDING + width + 1; x++ )
+				{
+					final int index = y * paddedWidth + x;
+					final byte value = plane[ index ];
+					for ( int i = 0; i < DIRECTIONS.length; i++ )
+					{
+						final byte neighbour = DIRECTIONS[ i ][ 2 ] == 0 ? plane[ index + offsets[ i ] ] : nextPlane[ index + offsets[ i ] ];
+						if ( value != neighbour ) transitions[ i ]++;
+					}
+				}
+			}
+
+			final byte[] tmp = plane;
+			plane = nextPlane;
+			nextPlane = tmp;
+		}
+
+		return transitions;
+	}
+
+	/**
+	 * Reads a plane of the mask into the center of a padded plane; planes outside of the mask are empty.
+	 */
+	private static void readPlane( RandomAccessibleInterval< BitType > mask, long z, byte[] plane, int paddedWidth )
+	{
+		Arrays.fill( plane, ( byte ) 0 );
+
+		if ( z < mask.min( 2 ) || z > mask.max( 2 ) ) return;
+
+		final int width = (int) mask.dimension( 0 );
+		final int height = (int) mask.dimension( 1 );
+		final Cursor< BitType > cursor = Views.flatIterable( Views.hyperSlice( mask, 2, z ) ).cursor();
+		for ( int y = 0; y < height; y++ )
+		{
+			final int rowStart = ( y + PADDING ) * paddedWidth + PADDING;
+			for ( int x = 0; x < width; x++ )
+				if ( cursor.next().get() )
+					plane[ rowStart + x ] = 1;
+		}
+	}
+}
@@ -6,17 +6,13 @@ import ij.measure.Calibration;
 import loci.plugins.in.ImagePlusReader;
 import loci.plugins.in.ImportProcess;
 import loci.plugins.in.ImporterOptions;
-import net.imagej.ops.OpService;
 import net.imagej.ops.threshold.otsu.ComputeOtsuThreshold;
 import net.imglib2.*;
 import net.imglib2.RandomAccess;
 import net.imglib2.algorithm.gauss3.Gauss3;
 import net.imglib2.algorithm.labeling.ConnectedComponents;
-import net.imglib2.algorithm.morphology.Dilation;
-import net.imglib2.algorithm.morphology.Opening;
 import net.imglib2.algorithm.neighborhood.HyperSphereShape;
 import net.imglib2.algorithm.neighborhood.Neighborhood;
-import net.imglib2.algorithm.neighborhood.Shape;
 import net.imglib2.converter.Converters;
 import net.imglib2.histogram.Histogram1d;
 import net.imglib2.histogram.Real1dBinMapper;
@@ -34,6 +30,7 @@ import net.imglib2.interpolation.randomaccess.ClampingNLinearInterpolatorFactory
 import net.imglib2.interpolation.randomaccess.NearestNeighborInterpolatorFactory;
 import net.imglib2.loops.LoopBuilder;
 import net.imglib2.outofbounds.OutOfBounds;
+import net.imglib2.parallel.Parallelization;
 import net.imglib2.realtransform.AffineTransform3D;
 import net.imglib2.realtransform.InvertibleRealTransform;
 import net.imglib2.realtransform.RealViews;
@@ -63,6 +60,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 import static de.embl.cba.spindle3d.ellipsoids.EllipsoidsMLJ.*;
 
@@ -116,6 +114,18 @@ public class Utils
 
 	public static <T extends RealType<T> > Pair<Double, Double> getMinMaxValues( RandomAccessibleInterval<T> rai, RandomAccessibleInterval< BitType > mask )
 	{
+		if ( mask instanceof RunLengthMask )
+		{
+			final double[] minMax = { Double.MAX_VALUE, - Double.MAX_VALUE };
+			( ( RunLengthMask ) mask ).forEachForegroundValue( rai, t ->
+			{
+				final double value = t.getRealDouble();
+				if ( value > minMax[ 1 ] ) minMax[ 1 ] = value;
+				if ( value < minMax[ 0 ] ) minMax[ 0 ] = value;
+			} );
+			return new ValuePair<>( minMax[ 0 ], minMax[ 1 ] );
+		}
+
 		final Cursor<T> cursor = Views.iterable( rai ).localizingCursor();
 		final RandomAccess< BitType > maskAccess = mask.randomAccess();
 
@@ -192,47 +202,6 @@ public class Utils
 		return size - numRegionsTouchingBorder;
 	}
 
-	public static RandomAccessibleInterval< BitType > openFast( RandomAccessibleInterval< BitType > dnaAlignedSpindleMask )
-	{
-		final RandomAccessibleInterval< BitType > downSampled = createNearestNeighborResampledArrayImg( dnaAlignedSpindleMask, new double[]{ 0.2, 0.2, 0.2 } );
-
-		final RandomAccessibleInterval< BitType > opened = open( downSampled, 2 );
-
-		final RandomAccessibleInterval< BitType > openedUpSampled = createNearestNeighborResampledArrayImg( opened, new double[]{ 1 / 0.2, 1 / 0.2, 1 / 0.2 } );
-
-		return openedUpSampled;
-	}
-
-	public static RandomAccessibleInterval< BitType > open(
-			RandomAccessibleInterval< BitType > mask,
-			int radius )
-	{
-		if ( radius <= 0 ) return mask;
-
-		// TODO: Bug(?!) in imglib2 makes enlargement necessary,
-		//  otherwise one gets weird results at boundaries
-
-		RandomAccessibleInterval< BitType > morphed =
-				ArrayImgs.bits( Intervals.dimensionsAsLongArray( mask ) );
-
-		morphed = Views.translate( morphed, Intervals.minAsLongArray( mask ) );
-
-		final RandomAccessibleInterval< BitType > enlargedMask =
-				getEnlargedRai( mask, radius );
-		final RandomAccessibleInterval< BitType > enlargedMorphed =
-				getEnlargedRai( morphed, radius );
-
-		Shape shape = new HyperSphereShape( radius );
-
-		Opening.open(
-				Views.extendZero( enlargedMask ),
-				Views.iterable( enlargedMorphed ),
-				shape,
-				4 );
-
-		return Views.interval( enlargedMorphed, mask );
-	}
-
 	public static < T extends RealType< T > & NativeType< T > >
 	RandomAccessibleInterval< T > createNearestNeighborResampledArrayImg(
 			RandomAccessibleInterval< T > input,
@@ -285,22 +254,6 @@ public class Utils
 		return transformedInterval;
 	}
 
-	public static < R extends RealType< R > & NativeType< R > >
-	RandomAccessibleInterval< R > dilate(
-			RandomAccessibleInterval< R > image,
-			int radius )
-	{
-		final RandomAccessibleInterval< R > morphed = createEmptyCopy( image );
-
-		if ( radius > 0 )
-		{
-			Shape shape = new HyperSphereShape( radius );
-			Dilation.dilate( Views.extendBorder( image ), Views.iterable( morphed ), shape, 1 );
-		}
-
-		return morphed;
-	}
-
 	public static AffineTransform3D createShortestAxisAlignmentTransform( double[] center, double[] array )
 	{
 		AffineTransform3D translation = new AffineTransform3D();
@@ -365,22 +318,16 @@ public class Utils
 		return rotation;
 	}
 
+	/**
+	 * @return the mask of the values above the threshold, with filled holes, see {@link FillHoles}
+	 */
 	public static < T extends RealType< T > & NativeType< T > >
-	RandomAccessibleInterval< BitType > createMask(
+	RandomAccessibleInterval< BitType > createFilledMask(
 			RandomAccessibleInterval< T > rai,
 			double threshold,
-			OpService opService )
+			ExecutorService executorService )
 	{
-		RandomAccessibleInterval< BitType > mask
-				= Converters.convert( rai, ( i, o ) ->
-				o.set( i.getRealDouble() > threshold ), new BitType() );
-
-		// "Bug" in Ops requires a Views.zeroMin().
-		mask = opService.morphology().fillHoles( Views.zeroMin( mask ) );
-
-		mask = getWithAdjustedOrigin( rai, mask );
-
-		return mask;
+		return FillHoles.thresholdAndFillHoles( rai, threshold, executorService );
 	}
 
 	public static < T extends Type< T > >
@@ -586,45 +533,85 @@ public class Utils
 	}
 
 	public static < T extends RealType< T > & NativeType< T > >
-	CoordinatesAndValues computeRadialProfile(
+	Profile computeRadialProfile(
 			RandomAccessibleInterval< T > image,
 			double[] center,
 			double spacing,
 			double maxDistanceInMicrometer )
 	{
-		final Cursor< T > cursor = Views.iterable( image ).cursor();
-		final int numDimensions = image.numDimensions();
+		final int maxBin = ( int ) ( maxDistanceInMicrometer / spacing );
 
-		final double[] position = new double[ numDimensions ];
+		/*
+		 * Each pixel value is binned at the position of the preceding pixel in flat iteration order,
+		 * as the original loop localized its cursor before advancing it.
+		 * Within a row, this is the pixel to the left, which is the same as moving the center one pixel
+		 * to the right. The first pixel of each row is then moved to the last pixel of the preceding row.
+		 */
+		final double[] shiftedCenter = center.clone();
+		shiftedCenter[ 0 ] += 1;
+
+		final double[][] sums = new double[ 1 ][ maxBin ];
+		final long[][] counts = new long[ 1 ][ maxBin ];
+		RadialProfiles.accumulate( image, new double[][]{ shiftedCenter }, 1.0, sums, counts );
+
+		final int n = image.numDimensions();
+		final RandomAccess< T > access = image.randomAccess();
+		final long[] position = Intervals.minAsLongArray( image );
+		double previousRowSquaredDistance = Double.NaN;
+		while ( true )
+		{
+			double rowSquaredDistance = 0;
+			for ( int d = 1; d < n; d++ )
+			{
+				final double delta = position[ d ] - center[ d ];
+				rowSquaredDistance += delta * delta;
+			}
 
-		int maxBin = ( int ) ( maxDistanceInMicrometer / spacing );
-		double[] counts = new double[ maxBin ];
-		double[] values = new double[ maxBin ];
+			if ( ! Double.isNaN( previousRowSquaredDistance ) )
+			{
+				access.setPosition( position );
+				final double value = access.get().getRealDouble();
 
-		while ( cursor.hasNext() )
-		{
-			cursor.localize( position );
-			final double distance = LinAlgHelpers.distance( center, position ) * spacing;
-			final double value = cursor.next().getRealDouble();
+				final double dx = image.min( 0 ) - shiftedCenter[ 0 ];
+				final int bin = ( int ) Math.sqrt( dx * dx + rowSquaredDistance );
+				if ( bin < maxBin )
+				{
+					sums[ 0 ][ bin ] -= value;
+					counts[ 0 ][ bin ]--;
+				}
+
+				final double previousDx = image.max( 0 ) - center[ 0 ];
+				final int previousBin = ( int ) Math.sqrt( previousDx * previousDx + previousRowSquaredDistance );
+				if ( previousBin < maxBin )
+				{
+					sums[ 0 ][ previousBin ] += value;
+					counts[ 0 ][ previousBin ]++;
+				}
+			}
+			previousRowSquaredDistance = rowSquaredDistance;
 
-			final int bin = ( int ) ( distance / spacing );
-			if ( bin < maxBin )
+			int d = 1;
+			for ( ; d < n; d++ )
 			{
-				counts[ bin ] += 1;
-				values[ bin ] += value;
+				if ( position[ d ] < image.max( d ) )
+				{
+					position[ d ]++;
+					break;
+				}
+				position[ d ] = image.min( d );
 			}
+			if ( d == n ) break;
 		}
 
-		final CoordinatesAndValues radialProfileOld = new CoordinatesAndValues();
-		final CoordinateToValue radialProfile = new CoordinateToValue();
+		final double[] profile = new double[ maxBin ];
 		for ( int bin = 0; bin < maxBin; bin++ )
-		{
-			radialProfileOld.values.add( values[ bin ] / counts[ bin ] );
-			radialProfileOld.coordinates.add( bin * spacing );
-			radialProfile.put( bin * spacing, values[ bin ] / counts[ bin ] );
-		}
+			profile[ bin ] = counts[ 0 ][ bin ] == 0 ? Double.NaN : sums[ 0 ][ bin ] / counts[ 0 ][ bin ];
+
+		final double[] coordinates = new double[ maxBin ];
+		for ( int bin = 0; bin < maxBin; bin++ )
+			coordinates[ bin ] = bin * spacing;
 
-		return radialProfileOld;
+		return new Profile( coordinates, profile );
 	}
 
 	public static double[] copy( double[] values )
@@ -644,19 +631,11 @@ public class Utils
 	}
 
 	public static < T extends RealType< T > & NativeType< T > >
-	CoordinatesAndValues computeMaximumIntensitiesAlongAxis(
+	Profile computeMaximumIntensitiesAlongAxis(
 			RandomAccessibleInterval< T > rai, double maxAxisDist, int axis, double calibration )
 	{
-		final CoordinatesAndValues coordinatesAndValues = new CoordinatesAndValues();
-
-		for ( long coordinate = rai.min( axis ); coordinate <= rai.max( axis ); ++coordinate )
-		{
-			final IntervalView< T > intensitySlice = Views.hyperSlice( rai, axis, coordinate );
-			coordinatesAndValues.coordinates.add( (double) coordinate * calibration );
-			coordinatesAndValues.values.add( computeMaximum( intensitySlice, maxAxisDist ) );
-		}
-
-		return coordinatesAndValues;
+		// as in computeMaximum, maxAxisDist is in pixels
+		return new AxialProfiles( rai, axis, maxAxisDist ).maxima( calibration );
 	}
 
 	public static < T extends RealType< T > & NativeType< T > >
@@ -697,21 +676,13 @@ public class Utils
 		return norm;
 	}
 
-	public static IndexAndValue maximumIndexAndValue( CoordinatesAndValues coordinatesAndValues )
+	public static IndexAndValue maximumIndexAndValue( Profile profile )
 	{
-		final int n = coordinatesAndValues.coordinates.size();
+		final int argMax = profile.argMax();
 
 		final IndexAndValue indexAndValue = new IndexAndValue();
-		indexAndValue.value = - Double.MAX_VALUE;
-
-		for ( int i = 0; i < n; i++ )
-		{
-			if ( coordinatesAndValues.values.get( i ) > indexAndValue.value )
-			{
-				indexAndValue.value = coordinatesAndValues.values.get( i );
-				indexAndValue.index = i;
-			}
-		}
+		indexAndValue.index = Math.max( 0, argMax );
+		indexAndValue.value = argMax == -1 ? - Double.MAX_VALUE : profile.value( argMax );
 
 		return indexAndValue;
 	}
@@ -790,14 +761,43 @@ public class Utils
 			RandomAccessibleInterval< T > rai,
 			double sigma,
 			double scaling )
+	{
+		return createBlurredRai( rai, sigma, scaling, null );
+	}
+
+	public static < T extends RealType< T > & NativeType< T > >
+	RandomAccessibleInterval< T > createBlurredRai(
+			RandomAccessibleInterval< T > rai,
+			double sigma,
+			double scaling,
+			ExecutorService executorService )
+	{
+		return createBlurredRai( rai, rai, sigma, scaling, executorService );
+	}
+
+	/**
+	 * Blurs the image only within the interval; the kernel reads
+	 * the image around the interval, with the border of the image extended.
+	 *
+	 * @return the blurred image, with the interval
+	 */
+	public static < T extends RealType< T > & NativeType< T > >
+	RandomAccessibleInterval< T > createBlurredRai(
+			RandomAccessibleInterval< T > rai,
+			Interval interval,
+			double sigma,
+			double scaling,
+			ExecutorService executorService )
 	{
 		ImgFactory< T > imgFactory = new ArrayImgFactory( rai.randomAccess().get()  );
 
-		RandomAccessibleInterval< T > blurred = imgFactory.create( Intervals.dimensionsAsLongArray( rai ) );
+		RandomAccessibleInterval< T > blurred = imgFactory.create( Intervals.dimensionsAsLongArray( interval ) );
 
-		blurred = Views.translate( blurred, Intervals.minAsLongArray( rai ) );
+		blurred = Views.translate( blurred, Intervals.minAsLongArray( interval ) );
 
-		Gauss3.gauss( sigma / scaling, Views.extendBorder( rai ), blurred ) ;
+		final double[] sigmas = new double[ rai.numDimensions() ];
+		Arrays.fill( sigmas, sigma / scaling );
+		gauss( sigmas, Views.extendBorder( rai ), blurred, executorService );
 
 		return blurred;
 	}
@@ -806,6 +806,15 @@ public class Utils
 	RandomAccessibleInterval< T > createGaussFilteredArrayImg(
 			RandomAccessibleInterval< T > rai,
 			double[] sigmas )
+	{
+		return createGaussFilteredArrayImg( rai, sigmas, null );
+	}
+
+	public static < T extends RealType< T > & NativeType< T > >
+	RandomAccessibleInterval< T > createGaussFilteredArrayImg(
+			RandomAccessibleInterval< T > rai,
+			double[] sigmas,
+			ExecutorService executorService )
 	{
 		ImgFactory< T > imgFactory = new ArrayImgFactory( rai.randomAccess().get()  );
 
@@ -813,12 +822,29 @@ public class Utils
 
 		blurred = Views.translate( blurred, Intervals.minAsLongArray( rai ) );
 
-		Gauss3.gauss( sigmas, Views.extendBorder( rai ), blurred ) ;
+		gauss( sigmas, Views.extendBorder( rai ), blurred, executorService );
 
 		return blurred;
 	}
 
 
+	/**
+	 * Runs Gauss3 on the given executor service,
+	 * or in Gauss3's default {@link Parallelization} context if the executor service is null.
+	 */
+	public static < T extends NumericType< T > >
+	void gauss(
+			double[] sigmas,
+			RandomAccessible< T > source,
+			RandomAccessibleInterval< T > target,
+			ExecutorService executorService )
+	{
+		if ( executorService == null )
+			Gauss3.gauss( sigmas, source, target );
+		else
+			Parallelization.runWithExecutor( executorService, () -> Gauss3.gauss( sigmas, source, target ) );
+	}
+
 	public static  < T extends RealType< T > & NativeType< T > >
 	void applyMask(
 			RandomAccessibleInterval< T > rai,
@@ -838,7 +864,7 @@ public class Utils
 	}
 	
 	public static < T extends RealType< T > & NativeType< T > >
-	CoordinatesAndValues computeAverageIntensitiesAlongAxis(
+	Profile computeAverageIntensitiesAlongAxis(
 			RandomAccessibleInterval< T > rai,
 			double maxAxisDist,
 			int axis,
@@ -846,18 +872,14 @@ public class Utils
 			double axisMax,
 			double calibration )
 	{
-		final CoordinatesAndValues coordinatesAndValues = new CoordinatesAndValues();
-
-		final double xMin = axisMin / calibration;
-		final double xMax = axisMax / calibration;
-		for ( long x = ( long ) xMin; x <= ( long ) xMax; ++x )
-		{
-			final IntervalView< T > intensitySlice = Views.hyperSlice( rai, axis, x );
-			coordinatesAndValues.coordinates.add( (double) x * calibration );
-			coordinatesAndValues.values.add( computeAverage( intensitySlice, maxAxisDist, calibration ) );
-		}
+		final AxialProfiles axialProfiles = new AxialProfiles(
+				rai,
+				axis,
+				maxAxisDist / calibration,
+				( long ) ( axisMin / calibration ),
+				( long ) ( axisMax / calibration ) );
 
-		return coordinatesAndValues;
+		return axialProfiles.averages( calibration );
 	}
 
 	public static < T extends RealType< T > & NativeType< T > >
@@ -890,7 +912,7 @@ public class Utils
 	}
 
 	public static < T extends RealType< T > & NativeType< T > >
-	CoordinatesAndValues computeAverageIntensitiesAlongAxis(
+	Profile computeAverageIntensitiesAlongAxis(
 			RandomAccessibleInterval< T > rai,
 			double maxAxisDist,
 			int axis,
@@ -900,30 +922,12 @@ public class Utils
 	}
 
 
-	public static CoordinatesAndValues derivative( CoordinatesAndValues coordinatesAndValues, int di )
+	public static Profile derivative( Profile profile, int di )
 	{
-		final CoordinatesAndValues derivative = new CoordinatesAndValues();
-
-		for ( int i = di / 2 + 1; i < coordinatesAndValues.values.size() - ( di / 2 + 1 ); ++i )
-		{
-
-			final int center = i;
-			final int right = i + di / 2;
-			final int left = i - di / 2;
-
-			derivative.values.add(
-					coordinatesAndValues.values.get( right )
-							- coordinatesAndValues.values.get( left ) );
-
-			derivative.coordinates.add( coordinatesAndValues.coordinates.get( center ) );
-		}
-
-		return derivative;
+		return profile.derivative( di );
 	}
 
-
-	public static ArrayList< CoordinateAndValue >
-	leftMaxAndRightMinLoc( CoordinatesAndValues coordinatesAndValues )
+	public static ArrayList< CoordinateAndValue > leftMaxAndRightMinLoc( Profile profile )
 	{
 		Double[] rangeMinMax = new Double[ 2 ];
 
@@ -932,89 +936,46 @@ public class Utils
 		// left
 		rangeMinMax[ 0 ] = - Double.MAX_VALUE;
 		rangeMinMax[ 1 ] = 0.0;
-		extrema.add( maximum( coordinatesAndValues, rangeMinMax ) );
+		extrema.add( maximum( profile, rangeMinMax ) );
 
 		// right
 		rangeMinMax[ 0 ] = 0.0;
 		rangeMinMax[ 1 ] = Double.MAX_VALUE;
-		extrema.add( minimum( coordinatesAndValues, rangeMinMax ) );
+		extrema.add( minimum( profile, rangeMinMax ) );
 
 		return extrema;
 	}
 
-	public static CoordinateAndValue maximum( CoordinatesAndValues coordinatesAndValues )
+	public static CoordinateAndValue maximum( Profile profile )
 	{
-		return maximum( coordinatesAndValues, null );
+		return maximum( profile, null );
 	}
 
-	public static CoordinateAndValue maximum(
-			CoordinatesAndValues coordinatesAndValues,
-			Double[] coordinateRangeMinMax )
+	public static CoordinateAndValue maximum( Profile profile, Double[] coordinateRangeMinMax )
 	{
-		final ArrayList< Double > coordinates = coordinatesAndValues.coordinates;
-		final ArrayList< Double > values = coordinatesAndValues.values;
-		final int n = values.size();
-
-		Double max = - Double.MAX_VALUE;
-		Double maxLoc = coordinates.get( 0 );
-
-		for ( int i = 0; i < n; ++i )
-		{
-			if ( coordinateRangeMinMax != null )
-			{
-				if ( coordinates.get( i ) < coordinateRangeMinMax[ 0 ] ) continue;
-				if ( coordinates.get( i ) > coordinateRangeMinMax[ 1 ] ) continue;
-			}
-
-			if ( values.get( i ) > max )
-			{
-				max = values.get( i );
-				maxLoc = coordinates.get( i );
-			}
-		}
+		final int argMax = coordinateRangeMinMax == null ?
+				profile.argMax() : profile.argMax( coordinateRangeMinMax[ 0 ], coordinateRangeMinMax[ 1 ] );
 
 		final CoordinateAndValue coordinateAndValue = new CoordinateAndValue();
-		coordinateAndValue.value = max;
-		coordinateAndValue.coordinate = maxLoc;
+		coordinateAndValue.value = argMax == -1 ? - Double.MAX_VALUE : profile.value( argMax );
+		coordinateAndValue.coordinate = profile.coordinate( Math.max( 0, argMax ) );
 
 		return coordinateAndValue;
 	}
 
-	public static CoordinateAndValue minimum( CoordinatesAndValues coordinatesAndValues )
+	public static CoordinateAndValue minimum( Profile profile )
 	{
-		return minimum( coordinatesAndValues, null );
+		return minimum( profile, null );
 	}
 
-	public static CoordinateAndValue minimum(
-			CoordinatesAndValues coordinatesAndValues, Double[] coordinateRangeMinMax )
+	public static CoordinateAndValue minimum( Profile profile, Double[] coordinateRangeMinMax )
 	{
-		final int n = coordinatesAndValues.coordinates.size();
-		final ArrayList< Double > coordinates = coordinatesAndValues.coordinates;
-		final ArrayList< Double > values = coordinatesAndValues.values;
-
-		final IndexAndValue minLocIndexAndValue = new IndexAndValue();
-		minLocIndexAndValue.value = Double.MAX_VALUE;
-
-		for ( int i = 0; i < n; i++ )
-		{
-
-			if ( coordinateRangeMinMax != null )
-			{
-				if ( coordinates.get( i ) < coordinateRangeMinMax[ 0 ] ) continue;
-				if ( coordinates.get( i ) > coordinateRangeMinMax[ 1 ] ) continue;
-			}
-
-			if ( values.get( i ) < minLocIndexAndValue.value )
-			{
-				minLocIndexAndValue.value = coordinatesAndValues.values.get( i );
-				minLocIndexAndValue.index = i;
-			}
-		}
+		final int argMin = coordinateRangeMinMax == null ?
+				profile.argMin() : profile.argMin( coordinateRangeMinMax[ 0 ], coordinateRangeMinMax[ 1 ] );
 
 		final CoordinateAndValue coordinateAndValue = new CoordinateAndValue();
-		coordinateAndValue.coordinate =
-				coordinatesAndValues.coordinates.get( minLocIndexAndValue.index );
-		coordinateAndValue.value = minLocIndexAndValue.value;
+		coordinateAndValue.value = argMin == -1 ? Double.MAX_VALUE : profile.value( argMin );
+		coordinateAndValue.coordinate = profile.coordinate( Math.max( 0, argMin ) );
 
 		return coordinateAndValue;
 	}
@@ -1033,6 +994,32 @@ public class Utils
 		return copy;
 	}
 
+	/**
+	 * As {@link #copyAsArrayImg(RandomAccessibleInterval)}, with slabs along the last dimension copied concurrently.
+	 */
+	public static < T extends RealType< T > & NativeType< T > >
+	RandomAccessibleInterval< T > copyAsArrayImg( RandomAccessibleInterval< T > orig, ExecutorService executorService )
+	{
+		final RandomAccessibleInterval< T > copy =
+				Views.translate(
+						new ArrayImgFactory( Util.getTypeFromInterval( orig ) ).create( orig ),
+						Intervals.minAsLongArray( orig ) );
+
+		final int lastDimension = orig.numDimensions() - 1;
+		Parallel.forRanges( 0, (int) orig.dimension( lastDimension ), executorService, ( start, end ) ->
+		{
+			final long[] min = Intervals.minAsLongArray( orig );
+			final long[] max = Intervals.maxAsLongArray( orig );
+			min[ lastDimension ] = orig.min( lastDimension ) + start;
+			max[ lastDimension ] = orig.min( lastDimension ) + end - 1;
+			final FinalInterval slab = new FinalInterval( min, max );
+
+			LoopBuilder.setImages( Views.interval( copy, slab ), Views.interval( orig, slab ) ).forEachPixel( Type::set );
+		} );
+
+		return copy;
+	}
+
 	public static < T extends RealType< T > >
 	Pair< Double, Double > getMinMaxValues( RandomAccessibleInterval< T > rai )
 	{
@@ -1056,6 +1043,15 @@ public class Utils
 	RandomAccessibleInterval< T > createRescaledArrayImg(
 			RandomAccessibleInterval< T > input,
 			double[] scalingFactors )
+	{
+		return createRescaledArrayImg( input, scalingFactors, null );
+	}
+
+	public static < T extends RealType< T > & NativeType< T > >
+	RandomAccessibleInterval< T > createRescaledArrayImg(
+			RandomAccessibleInterval< T > input,
+			double[] scalingFactors,
+			ExecutorService executorService )
 	{
 		assert scalingFactors.length == input.numDimensions();
 
@@ -1076,7 +1072,7 @@ public class Utils
 		 */
 
 		final RandomAccessibleInterval< T > blurred =
-				createOptimallyBlurredArrayImg( input, scalingFactors );
+				createOptimallyBlurredArrayImg( input, scalingFactors, executorService );
 
 		/*
 		 * Sample values from blurred image
@@ -1092,6 +1088,15 @@ public class Utils
 	RandomAccessibleInterval< T > createRescaledCellImg(
 			RandomAccessibleInterval< T > input,
 			double[] scalingFactors )
+	{
+		return createRescaledCellImg( input, scalingFactors, null );
+	}
+
+	public static < T extends RealType< T > & NativeType< T > >
+	RandomAccessibleInterval< T > createRescaledCellImg(
+			RandomAccessibleInterval< T > input,
+			double[] scalingFactors,
+			ExecutorService executorService )
 	{
 		assert scalingFactors.length == input.numDimensions();
 
@@ -1112,7 +1117,7 @@ public class Utils
 		 */
 
 		final RandomAccessibleInterval< T > blurred =
-				createOptimallyBlurredCellImg( input, scalingFactors );
+				createOptimallyBlurredCellImg( input, scalingFactors, executorService );
 
 		/*
 		 * Sample values from blurred image
@@ -1157,7 +1162,8 @@ public class Utils
 	private static < T extends RealType< T > & NativeType< T > >
 	RandomAccessibleInterval< T > createOptimallyBlurredArrayImg(
 			RandomAccessibleInterval< T > input,
-			double[] scalingFactors )
+			double[] scalingFactors,
+			ExecutorService executorService )
 	{
 		/**
 		 * - https://en.wikipedia.org/wiki/Decimation_(signal_processing)
@@ -1173,7 +1179,7 @@ public class Utils
 		RandomAccessibleInterval< T > output = createEmptyArrayImg( input );
 
 		// blur input image and write into output image
-		Gauss3.gauss( sigmas, Views.extendBorder( input ), output ) ;
+		gauss( sigmas, Views.extendBorder( input ), output, executorService );
 
 		return output;
 	}
@@ -1189,7 +1195,8 @@ public class Utils
 	private static < T extends RealType< T > & NativeType< T > >
 	RandomAccessibleInterval< T > createOptimallyBlurredCellImg(
 			RandomAccessibleInterval< T > input,
-			double[] scalingFactors )
+			double[] scalingFactors,
+			ExecutorService executorService )
 	{
 		/**
 		 * - https://en.wikipedia.org/wiki/Decimation_(signal_processing)
@@ -1205,7 +1212,7 @@ public class Utils
 		RandomAccessibleInterval< T > output = createEmptyCellImg( input );
 
 		// blur input image and write into output image
-		Gauss3.gauss( sigmas, Views.extendBorder( input ), output ) ;
+		gauss( sigmas, Views.extendBorder( input ), output, executorService );
 
 		return output;
 	}
@@ -1313,6 +1320,17 @@ public class Utils
 	double computeAverage( final RandomAccessibleInterval< T > rai,
 						   final RandomAccessibleInterval< BitType > mask )
 	{
+		if ( mask instanceof RunLengthMask )
+		{
+			final double[] sumAndCount = new double[ 2 ];
+			( ( RunLengthMask ) mask ).forEachForegroundValue( rai, t ->
+			{
+				sumAndCount[ 0 ] += t.getRealDouble();
+				sumAndCount[ 1 ]++;
+			} );
+			return sumAndCount[ 0 ] / sumAndCount[ 1 ];
+		}
+
 		final Cursor< BitType > cursor = Views.iterable( mask ).cursor();
 		final RandomAccess< T > randomAccess = rai.randomAccess();
 
@@ -1367,6 +1385,39 @@ public class Utils
 		return new FinalInterval( boundingMin, boundingMax );
 	}
 
+	/**
+	 * @param mask
+	 * @return the smallest interval containing all foreground voxels, or null if the mask is empty
+	 */
+	public static FinalInterval getForegroundBoundingInterval( RandomAccessibleInterval< BitType > mask )
+	{
+		if ( mask instanceof RunLengthMask )
+			return ( ( RunLengthMask ) mask ).foregroundBoundingInterval();
+
+		final int n = mask.numDimensions();
+		final long[] min = new long[ n ];
+		final long[] max = new long[ n ];
+		Arrays.fill( min, Long.MAX_VALUE );
+		Arrays.fill( max, Long.MIN_VALUE );
+
+		final Cursor< BitType > cursor = Views.iterable( mask ).localizingCursor();
+		boolean isEmpty = true;
+		while ( cursor.hasNext() )
+		{
+			if ( ! cursor.next().get() ) continue;
+
+			isEmpty = false;
+			for ( int d = 0; d < n; d++ )
+			{
+				final long position = cursor.getLongPosition( d );
+				if ( position < min[ d ] ) min[ d ] = position;
+				if ( position > max[ d ] ) max[ d ] = position;
+			}
+		}
+
+		return isEmpty ? null : new FinalInterval( min, max );
+	}
+
 	private static void adjustBoundingRange( long[] min, long[] max, double[] transformedCorner )
 	{
 		for ( int d = 0; d < transformedCorner.length; ++d )
@@ -1685,6 +1736,8 @@ public class Utils
 
 	public static long measureSizeInPixels( RandomAccessibleInterval< BitType > mask )
 	{
+		if ( mask instanceof RunLengthMask )
+			return ( ( RunLengthMask ) mask ).numForegroundVoxels();
 
 		final Cursor< BitType > cursor = Views.iterable( mask ).cursor();
 		long size = 0;
@@ -1784,13 +1837,19 @@ public class Utils
 			final RandomAccessibleInterval< T > rai,
 			final RandomAccessibleInterval< BitType > mask )
 	{
+		final ArrayList< Double > doubles = new ArrayList<>();
+
+		if ( mask instanceof RunLengthMask )
+		{
+			( ( RunLengthMask ) mask ).forEachForegroundValue( rai, t -> doubles.add( t.getRealDouble() ) );
+			return doubles;
+		}
+
 		final Cursor< BitType > maskCursor = Views.iterable( mask ).cursor();
 		final RandomAccess< T > intensityAccess = rai.randomAccess();
 
 		intensityAccess.setPosition( maskCursor );
 
-		final ArrayList< Double > doubles = new ArrayList<>();
-
 		while ( maskCursor.hasNext() )
 		{
 			if ( maskCursor.next().get() )
@@ -0,0 +1,83 @@
+package de.embl.cba.spindle3d;
+
+import de.embl.cba.spindle3d.ellipsoids.EllipsoidVectors;
+import de.embl.cba.spindle3d.ellipsoids.Ellipsoids3DImageSuite;
+import de.embl.cba.spindle3d.ellipsoids.EllipsoidsMoments;
+import de.embl.cba.spindle3d.util.Utils;
+import ij.IJ;
+import ij.ImagePlus;
+import loci.common.DebugTools;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.display.imagej.ImageJFunctions;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.util.LinAlgHelpers;
+import net.imglib2.view.Views;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares the DNA ellipsoid fitted from the voxel moments with the ellipsoid of the 3D ImageSuite,
+ * which was fitted before, on the initial DNA mask of a reference image.
+ *
+ * This test is in the package of {@link Spindle3DMorphometry}, to access its intermediate results.
+ */
+public class TestDnaEllipsoidFit
+{
+	public static void main( String[] args )
+	{
+		new TestDnaEllipsoidFit().test();
+	}
+
+	@Test
+	public void test()
+	{
+		DebugTools.setRootLevel( "OFF" );
+
+		final ImagePlus imagePlus = IJ.openImage( "src/test/resources/test/references/ZeissLSM_40x_R1EmESC_01.tif" );
+
+		final Spindle3DSettings settings = new Spindle3DSettings();
+		settings.inputVoxelSize = Utils.getCalibration( imagePlus );
+		settings.imagePlusCalibration = imagePlus.getCalibration();
+		settings.inputDataSetName = imagePlus.getTitle();
+		settings.dnaChannelIndex = 0;
+		settings.tubulinChannelIndex = 1;
+
+		final RandomAccessibleInterval< BitType > mask;
+		try ( Spindle3DMorphometry morphometry = new Spindle3DMorphometry( settings, null ) )
+		{
+			morphometry.run( ImageJFunctions.wrapReal( imagePlus ) );
+			mask = morphometry.getInitialDnaMask();
+		}
+
+		final EllipsoidVectors expected = Ellipsoids3DImageSuite.fitEllipsoid( Utils.asImagePlus( Views.zeroMin( mask ), "" ) );
+		for ( int d = 0; d < 3; d++ )
+			expected.center[ d ] += mask.min( d );
+
+		final EllipsoidVectors actual = EllipsoidsMoments.fitEllipsoid( mask, null );
+
+		Assert.assertArrayEquals( expected.center, actual.center, 1E-6 );
+
+		Assert.assertEquals( expected.longestAxisLength, actual.longestAxisLength, 0.01 * expected.longestAxisLength );
+		Assert.assertEquals( expected.middleAxisLength, actual.middleAxisLength, 0.01 * expected.middleAxisLength );
+		Assert.assertEquals( expected.shortestAxisLength, actual.shortestAxisLength, 0.01 * expected.shortestAxisLength );
+
+		// the DNA is aligned along the shortest axis
+		assertSameAxis( expected.shortestAxis.getArray(), actual.shortestAxis.getArray() );
+
+		// the other axes are only defined if their lengths differ
+		if ( expected.longestAxisLength - expected.middleAxisLength > 0.05 * expected.longestAxisLength )
+		{
+			assertSameAxis( expected.longestAxis.getArray(), actual.longestAxis.getArray() );
+			assertSameAxis( expected.middleAxis.getArray(), actual.middleAxis.getArray() );
+		}
+	}
+
+	/**
+	 * The signs of the axes are arbitrary.
+	 */
+	private static void assertSameAxis( double[] expected, double[] actual )
+	{
+		final double cosine = LinAlgHelpers.dot( expected, actual ) / ( LinAlgHelpers.length( expected ) * LinAlgHelpers.length( actual ) );
+		Assert.assertEquals( 1, Math.abs( cosine ), 1E-3 );
+	}
+}
@@ -0,0 +1,142 @@
+package test;
+
+import de.embl.cba.spindle3d.util.AxialProfiles;
+import de.embl.cba.spindle3d.util.Profile;
+import de.embl.cba.spindle3d.util.Utils;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.Views;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Compares the axial profiles with the loops over the planes perpendicular to the axis,
+ * which called {@link Utils#computeAverage(RandomAccessibleInterval, double, double)}
+ * and {@link Utils#computeMaximum} for each plane.
+ */
+public class TestAxialProfiles
+{
+	private static final double TOLERANCE = 1E-9;
+
+	// the axis, through the origin of the other dimensions, passes through, along and outside of the images
+	private static final long[][] DIMENSIONS = { { 15, 12 }, { 13, 11, 9 }, { 9, 7, 12 } };
+	private static final long[][] TRANSLATIONS = { { -7, -5 }, { -6, -2, 3 }, { 2, -9, -4 } };
+
+	private static final double[] MAX_AXIS_DISTANCES = { 0, 1, 2.5, 3.7, 100 };
+
+	public static void main( String[] args )
+	{
+		new TestAxialProfiles().test();
+	}
+
+	@Test
+	public void test()
+	{
+		for ( int i = 0; i < DIMENSIONS.length; i++ )
+		{
+			final RandomAccessibleInterval< FloatType > image =
+					Views.translate( createRandomImage( DIMENSIONS[ i ], i ), TRANSLATIONS[ i ] );
+
+			for ( int axis = 0; axis < image.numDimensions(); axis++ )
+			{
+				for ( double maxAxisDistance : MAX_AXIS_DISTANCES )
+				{
+					// all planes, and plane ranges that extend beyond or lie outside of the image
+					final long[][] planeRanges = {
+							{ image.min( axis ), image.max( axis ) },
+							{ image.min( axis ) - 3, image.max( axis ) + 2 },
+							{ image.min( axis ) + 1, image.min( axis ) + 2 },
+							{ image.max( axis ) + 1, image.max( axis ) + 4 } };
+
+					for ( long[] planeRange : planeRanges )
+					{
+						final AxialProfiles profiles = new AxialProfiles( image, axis, maxAxisDistance, planeRange[ 0 ], planeRange[ 1 ] );
+						assertSameProfiles( image, axis, maxAxisDistance, planeRange[ 0 ], planeRange[ 1 ], profiles );
+					}
+
+					assertSameProfiles( image, axis, maxAxisDistance, image.min( axis ), image.max( axis ),
+							new AxialProfiles( image, axis, maxAxisDistance ) );
+				}
+			}
+		}
+	}
+
+	@Test
+	public void computesTheCalibratedAveragesAsBefore()
+	{
+		final double calibration = 0.25;
+		final RandomAccessibleInterval< FloatType > image =
+				Views.translate( createRandomImage( DIMENSIONS[ 1 ], 5 ), TRANSLATIONS[ 1 ] );
+
+		for ( int axis = 0; axis < image.numDimensions(); axis++ )
+		{
+			for ( double maxAxisDistance : new double[]{ 0.3, 0.75, 2.0 } )
+			{
+				final Profile averages = Utils.computeAverageIntensitiesAlongAxis( image, maxAxisDistance, axis, calibration );
+
+				Assert.assertEquals( image.dimension( axis ), averages.size() );
+				for ( int plane = 0; plane < averages.size(); plane++ )
+				{
+					final long coordinate = image.min( axis ) + plane;
+					Assert.assertEquals( coordinate * calibration, averages.coordinate( plane ), TOLERANCE );
+					Assert.assertEquals(
+							Utils.computeAverage( Views.hyperSlice( image, axis, coordinate ), maxAxisDistance, calibration ),
+							averages.value( plane ),
+							TOLERANCE );
+				}
+			}
+		}
+	}
+
+	private static void assertSameProfiles(
+			RandomAccessibleInterval< FloatType > image,
+			int axis,
+			double maxAxisDistance,
+			long planeMin,
+			long planeMax,
+			AxialProfiles profiles )
+	{
+		final int numPlanes = (int) ( planeMax - planeMin + 1 );
+		final Profile averages = profiles.averages( 1.0 );
+		final Profile maxima = profiles.maxima( 1.0 );
+
+		Assert.assertEquals( numPlanes, profiles.numPlanes() );
+		Assert.assertEquals( numPlanes, averages.size() );
+		Assert.assertEquals( numPlanes, maxima.size() );
+
+		for ( int plane = 0; plane < numPlanes; plane++ )
+		{
+			final long coordinate = planeMin + plane;
+			Assert.assertEquals( coordinate, averages.coordinate( plane ), 0 );
+			Assert.assertEquals( coordinate, maxima.coordinate( plane ), 0 );
+
+			if ( coordinate < image.min( axis ) || coordinate > image.max( axis ) )
+			{
+				// planes outside of the image are empty
+				Assert.assertEquals( 0, profiles.getCounts()[ plane ] );
+				Assert.assertTrue( Double.isNaN( averages.value( plane ) ) );
+				Assert.assertEquals( - Double.MAX_VALUE, maxima.value( plane ), 0 );
+			}
+			else
+			{
+				final RandomAccessibleInterval< FloatType > slice = Views.hyperSlice( image, axis, coordinate );
+				Assert.assertEquals( Utils.computeAverage( slice, maxAxisDistance, 1.0 ), averages.value( plane ), TOLERANCE );
+				Assert.assertEquals( Utils.computeMaximum( slice, maxAxisDistance ), maxima.value( plane ), 0 );
+			}
+		}
+	}
+
+	private static ArrayImg< FloatType, FloatArray > createRandomImage( long[] dimensions, long seed )
+	{
+		final ArrayImg< FloatType, FloatArray > image = ArrayImgs.floats( dimensions );
+		final Random random = new Random( seed );
+		for ( FloatType value : image )
+			value.set( random.nextFloat() );
+		return image;
+	}
+}
@@ -0,0 +1,120 @@
+package test;
+
+import de.embl.cba.spindle3d.util.BinaryMorphology;
+import de.embl.cba.spindle3d.util.Parallel;
+import de.embl.cba.spindle3d.util.RunLengthMask;
+import de.embl.cba.spindle3d.util.Utils;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.morphology.Dilation;
+import net.imglib2.algorithm.morphology.Erosion;
+import net.imglib2.algorithm.morphology.Opening;
+import net.imglib2.algorithm.neighborhood.HyperSphereShape;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Compares the word-parallel morphology with the imglib2 morphology with a {@link HyperSphereShape},
+ * as used before by Utils.open and Utils.dilate.
+ */
+public class TestBinaryMorphology
+{
+	private static final long[][] DIMENSIONS = { { 13, 11 }, { 70, 9 }, { 12, 10, 9 }, { 67, 6, 5 }, { 128, 3, 4 } };
+	private static final long[][] TRANSLATIONS = { { 2, -3 }, { 0, 0 }, { -4, 1, 2 }, { 0, 0, 0 }, { 5, 0, -1 } };
+
+	public static void main( String[] args )
+	{
+		new TestBinaryMorphology().test();
+	}
+
+	@Test
+	public void test()
+	{
+		final ExecutorService executorService = Parallel.createExecutorService( 3 );
+
+		for ( int i = 0; i < DIMENSIONS.length; i++ )
+		{
+			for ( long seed = 0; seed < 2; seed++ )
+			{
+				final RandomAccessibleInterval< BitType > voxels = Views.translate(
+						TestConnectedRegions.createRandomVoxels( DIMENSIONS[ i ], 0.15, seed ), TRANSLATIONS[ i ] );
+				final RandomAccessibleInterval< BitType > boxes = Views.translate(
+						TestConnectedRegions.createRandomBoxes( DIMENSIONS[ i ], 8, seed ), TRANSLATIONS[ i ] );
+
+				for ( RandomAccessibleInterval< BitType > mask : Arrays.asList( voxels, boxes ) )
+				{
+					for ( int radius = 1; radius <= 4; radius++ )
+					{
+						final RandomAccessibleInterval< BitType > dilated = dilateWithImglib2( mask, radius );
+						TestConnectedRegions.assertSameMask( dilated, BinaryMorphology.dilate( mask, radius, null ) );
+						TestConnectedRegions.assertSameMask( dilated, BinaryMorphology.dilate( mask, radius, executorService ) );
+						TestConnectedRegions.assertSameMask( dilated, BinaryMorphology.dilate( RunLengthMask.of( mask ), radius, null ) );
+
+						final RandomAccessibleInterval< BitType > eroded = erodeWithImglib2( mask, radius );
+						TestConnectedRegions.assertSameMask( eroded, BinaryMorphology.erode( mask, radius, null ) );
+						TestConnectedRegions.assertSameMask( eroded, BinaryMorphology.erode( mask, radius, executorService ) );
+
+						final RandomAccessibleInterval< BitType > opened = openWithImglib2( mask, radius );
+						TestConnectedRegions.assertSameMask( opened, BinaryMorphology.open( mask, radius, null ) );
+						TestConnectedRegions.assertSameMask( opened, BinaryMorphology.open( mask, radius, executorService ) );
+					}
+				}
+			}
+		}
+
+		executorService.shutdown();
+	}
+
+	@Test
+	public void doesNotOpenWithoutRadius()
+	{
+		final RandomAccessibleInterval< BitType > mask = TestConnectedRegions.createRandomVoxels( new long[]{ 5, 4 }, 0.5, 1 );
+		Assert.assertSame( mask, BinaryMorphology.open( mask, 0, null ) );
+	}
+
+	@Test( expected = UnsupportedOperationException.class )
+	public void rejectsOneDimensionalMasks()
+	{
+		BinaryMorphology.dilate( ArrayImgs.bits( 10 ), 1, null );
+	}
+
+	/**
+	 * The dilation of Utils.dilate, which extended the border of the mask.
+	 */
+	private static RandomAccessibleInterval< BitType > dilateWithImglib2( RandomAccessibleInterval< BitType > mask, int radius )
+	{
+		final RandomAccessibleInterval< BitType > dilated = createEmptyMask( mask );
+		Dilation.dilate( Views.extendBorder( mask ), Views.iterable( dilated ), new HyperSphereShape( radius ), 1 );
+		return dilated;
+	}
+
+	private static RandomAccessibleInterval< BitType > erodeWithImglib2( RandomAccessibleInterval< BitType > mask, int radius )
+	{
+		final RandomAccessibleInterval< BitType > eroded = createEmptyMask( mask );
+		Erosion.erode( Views.extendZero( mask ), Views.iterable( eroded ), new HyperSphereShape( radius ), 1 );
+		return eroded;
+	}
+
+	/**
+	 * The opening of Utils.open, which opened the mask within an interval that is enlarged by the radius,
+	 * such that the eroded voxels next to the interval are also dilated into it.
+	 */
+	private static RandomAccessibleInterval< BitType > openWithImglib2( RandomAccessibleInterval< BitType > mask, int radius )
+	{
+		final RandomAccessibleInterval< BitType > enlargedMask = Utils.getEnlargedRai( mask, radius );
+		final RandomAccessibleInterval< BitType > enlargedOpened = createEmptyMask( enlargedMask );
+		Opening.open( Views.extendZero( enlargedMask ), Views.iterable( enlargedOpened ), new HyperSphereShape( radius ), 1 );
+		return Views.interval( enlargedOpened, mask );
+	}
+
+	private static RandomAccessibleInterval< BitType > createEmptyMask( RandomAccessibleInterval< BitType > interval )
+	{
+		return Views.translate( ArrayImgs.bits( Intervals.dimensionsAsLongArray( interval ) ), Intervals.minAsLongArray( interval ) );
+	}
+}
@@ -0,0 +1,133 @@
+package test;
+
+import de.embl.cba.spindle3d.util.ChordWidths;
+import de.embl.cba.spindle3d.util.Utils;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.RealRandomAccessible;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.interpolation.randomaccess.NearestNeighborInterpolatorFactory;
+import net.imglib2.realtransform.AffineTransform2D;
+import net.imglib2.realtransform.RealViews;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.view.Views;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compares the chord widths with the analytic widths of rectangles and discs,
+ * and with the pixel counts in rotations of the mask, which define the exported min, max and average spindle width.
+ */
+public class TestChordWidths
+{
+	public static void main( String[] args )
+	{
+		new TestChordWidths().test();
+	}
+
+	@Test
+	public void test()
+	{
+		for ( int radius : new int[]{ 5, 12, 30 } )
+		{
+			final RandomAccessibleInterval< BitType > disc = createEllipse( radius, radius );
+			final ChordWidths chordWidths = new ChordWidths( disc );
+
+			for ( int i = 0; i < 18; i++ )
+			{
+				final double angle = i * Math.PI / 18;
+				final double width = chordWidths.width( angle );
+
+				// the pixels of the digital disc cover the disc of radius r - sqrt(2)/2 and are within the disc of radius r + sqrt(2)/2
+				Assert.assertEquals( 2 * radius, width, Math.sqrt( 2 ) );
+				Assert.assertEquals( countPixelsInRotation( disc, angle ), width, 1.5 );
+			}
+		}
+	}
+
+	@Test
+	public void measuresRectanglesExactly()
+	{
+		final long halfWidth = 10;
+		final long halfHeight = 4;
+		final ArrayImg< BitType, LongArray > rectangle = ArrayImgs.bits( 2 * halfWidth + 1, 2 * halfHeight + 1 );
+		for ( BitType bit : rectangle )
+			bit.set( true );
+		final ChordWidths chordWidths = new ChordWidths( Views.translate( rectangle, -halfWidth, -halfHeight ) );
+
+		final double width = 2 * halfWidth + 1;
+		final double height = 2 * halfHeight + 1;
+
+		for ( int i = 0; i < 180; i++ )
+		{
+			final double angle = i * Math.PI / 180;
+			final double expected = Math.min(
+					Math.abs( Math.cos( angle ) ) < 1E-12 ? Double.POSITIVE_INFINITY : width / Math.abs( Math.cos( angle ) ),
+					Math.abs( Math.sin( angle ) ) < 1E-12 ? Double.POSITIVE_INFINITY : height / Math.abs( Math.sin( angle ) ) );
+			Assert.assertEquals( expected, chordWidths.width( angle ), 1E-9 );
+		}
+	}
+
+	@Test
+	public void measuresAroundTheCenter()
+	{
+		final RandomAccessibleInterval< BitType > ellipse = createEllipse( 20, 8 );
+
+		final double[] widths = new ChordWidths( ellipse ).widths( 4 );
+		final double[] shiftedWidths = new ChordWidths( Views.translate( ellipse, 3, -2 ), new double[]{ 3, -2 } ).widths( 4 );
+
+		Assert.assertArrayEquals( widths, shiftedWidths, 1E-9 );
+		Assert.assertEquals( 41, widths[ 0 ], 1E-9 );
+		Assert.assertEquals( 17, widths[ 2 ], 1E-9 );
+	}
+
+	@Test
+	public void interpolatesPercentiles()
+	{
+		final double[] sortedValues = { 1, 2, 4, 8, 16 };
+
+		Assert.assertEquals( 1, ChordWidths.percentile( sortedValues, 0 ), 0 );
+		Assert.assertEquals( 4, ChordWidths.percentile( sortedValues, 50 ), 0 );
+		Assert.assertEquals( 16, ChordWidths.percentile( sortedValues, 100 ), 0 );
+		Assert.assertEquals( 1.4, ChordWidths.percentile( sortedValues, 10 ), 1E-12 );
+		Assert.assertEquals( 12.8, ChordWidths.percentile( sortedValues, 90 ), 1E-12 );
+		Assert.assertEquals( 3, ChordWidths.percentile( new double[]{ 3 }, 50 ), 0 );
+	}
+
+	/**
+	 * @return the pixels within the ellipse with the given semi-axes along x and y, centered at the origin
+	 */
+	private static RandomAccessibleInterval< BitType > createEllipse( int semiAxisX, int semiAxisY )
+	{
+		final ArrayImg< BitType, LongArray > mask = ArrayImgs.bits( 2 * semiAxisX + 5, 2 * semiAxisY + 5 );
+		final RandomAccessibleInterval< BitType > centered = Views.translate( mask, -semiAxisX - 2, -semiAxisY - 2 );
+
+		final Cursor< BitType > cursor = Views.iterable( centered ).localizingCursor();
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			final double x = cursor.getDoublePosition( 0 ) / semiAxisX;
+			final double y = cursor.getDoublePosition( 1 ) / semiAxisY;
+			cursor.get().set( x * x + y * y <= 1 );
+		}
+
+		return centered;
+	}
+
+	/**
+	 * The width definition of the min, max and average spindle width in Spindle3DMorphometry.
+	 */
+	private static long countPixelsInRotation( RandomAccessibleInterval< BitType > mask, double angle )
+	{
+		final RealRandomAccessible< BitType > rra =
+				Views.interpolate( Views.extendZero( mask ), new NearestNeighborInterpolatorFactory<>() );
+
+		final AffineTransform2D transform2D = new AffineTransform2D();
+		transform2D.rotate( angle );
+
+		return Utils.countNonZeroPixelsAlongAxis(
+				Views.interval( Views.raster( RealViews.transform( rra, transform2D ) ), mask ), 0 );
+	}
+}
@@ -0,0 +1,304 @@
+package test;
+
+import de.embl.cba.spindle3d.util.ConnectedRegions;
+import de.embl.cba.spindle3d.util.Utils;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.labeling.ConnectedComponents;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the connected regions with the labeling by ImgLabeling, as in
+ * {@link Utils#removeRegionsTouchingImageBorders} and {@link Utils#onlyKeepLargestRegion},
+ * and with a flood fill of each region.
+ */
+public class TestConnectedRegions
+{
+	public static void main( String[] args )
+	{
+		new TestConnectedRegions().test();
+	}
+
+	@Test
+	public void test()
+	{
+		int numCompared = 0;
+		for ( int seed = 0; seed < 20; seed++ )
+		{
+			final ArrayImg< BitType, LongArray > mask = createRandomBoxes( new long[]{ 24, 20, 12 }, 10, seed );
+
+			final ConnectedRegions connectedRegions = new ConnectedRegions( mask, ConnectedComponents.StructuringElement.EIGHT_CONNECTED );
+			final List< ConnectedRegions.Region > innerRegions = connectedRegions.getRegions( region -> ! region.isTouchingBorder( 2 ) );
+			if ( innerRegions.isEmpty() ) continue;
+
+			final ConnectedRegions.Region largest = ConnectedRegions.getLargestRegion( innerRegions );
+			if ( innerRegions.stream().filter( region -> region.size == largest.size ).count() > 1 ) continue;
+
+			final RandomAccessibleInterval< BitType > expected = Utils.copyAsArrayImg( mask );
+			Utils.removeRegionsTouchingImageBorders( expected, 2 );
+			Utils.onlyKeepLargestRegion( expected, ConnectedComponents.StructuringElement.EIGHT_CONNECTED );
+
+			assertSameMask( expected, connectedRegions.createMask( largest ) );
+			numCompared++;
+		}
+
+		Assert.assertTrue( numCompared > 5 );
+	}
+
+	@Test
+	public void regionsMatchFloodFill()
+	{
+		for ( int seed = 0; seed < 10; seed++ )
+		{
+			final List< RandomAccessibleInterval< BitType > > masks = new ArrayList<>();
+			masks.add( createRandomVoxels( new long[]{ 19, 11, 7 }, 0.3, seed ) );
+			masks.add( Views.translate( createRandomVoxels( new long[]{ 19, 11, 7 }, 0.08, seed ), -4, 7, 2 ) );
+			masks.add( createRandomVoxels( new long[]{ 31, 17 }, 0.4, seed ) );
+
+			for ( RandomAccessibleInterval< BitType > mask : masks )
+			{
+				final double[] center = new double[ mask.numDimensions() ];
+				for ( int d = 0; d < center.length; d++ )
+					center[ d ] = mask.min( d ) + 0.4 * mask.dimension( d );
+
+				for ( ConnectedComponents.StructuringElement structuringElement : ConnectedComponents.StructuringElement.values() )
+				{
+					final boolean isFullyConnected = structuringElement == ConnectedComponents.StructuringElement.EIGHT_CONNECTED;
+					assertSameRegions(
+							floodFillRegions( mask, isFullyConnected, center ),
+							new ConnectedRegions( mask, structuringElement, center ).getRegions() );
+				}
+			}
+		}
+	}
+
+	@Test
+	public void createsMasksOfSelectedRegions()
+	{
+		final RandomAccessibleInterval< BitType > mask = Views.translate( createRandomVoxels( new long[]{ 19, 11, 7 }, 0.1, 3 ), 5, -5, 1 );
+		final ConnectedRegions connectedRegions = new ConnectedRegions( mask, ConnectedComponents.StructuringElement.EIGHT_CONNECTED );
+
+		// all regions together are the mask
+		assertSameMask( mask, connectedRegions.createMask( region -> true ) );
+
+		// each region mask has the size and bounding box of its region
+		for ( ConnectedRegions.Region region : connectedRegions.getRegions() )
+		{
+			final RandomAccessibleInterval< BitType > regionMask = connectedRegions.createMask( region );
+			Assert.assertArrayEquals( Intervals.minAsLongArray( mask ), Intervals.minAsLongArray( regionMask ) );
+
+			long size = 0;
+			final Cursor< BitType > cursor = Views.iterable( regionMask ).localizingCursor();
+			while ( cursor.hasNext() )
+			{
+				if ( ! cursor.next().get() ) continue;
+				size++;
+				for ( int d = 0; d < 3; d++ )
+				{
+					Assert.assertTrue( cursor.getLongPosition( d ) >= region.min[ d ] );
+					Assert.assertTrue( cursor.getLongPosition( d ) <= region.max[ d ] );
+				}
+			}
+			Assert.assertEquals( region.size, size );
+		}
+	}
+
+	private static List< ConnectedRegions.Region > floodFillRegions( RandomAccessibleInterval< BitType > mask, boolean isFullyConnected, double[] center )
+	{
+		final int n = mask.numDimensions();
+		final long[] dimensions = Intervals.dimensionsAsLongArray( mask );
+		final long[] min = Intervals.minAsLongArray( mask );
+		final boolean[] isForeground = new boolean[ (int) Intervals.numElements( mask ) ];
+		final Cursor< BitType > cursor = Views.flatIterable( mask ).cursor();
+		for ( int i = 0; i < isForeground.length; i++ )
+			isForeground[ i ] = cursor.next().get();
+
+		final boolean[] isVisited = new boolean[ isForeground.length ];
+		final List< ConnectedRegions.Region > regions = new ArrayList<>();
+
+		for ( int seed = 0; seed < isForeground.length; seed++ )
+		{
+			if ( ! isForeground[ seed ] || isVisited[ seed ] ) continue;
+
+			final ConnectedRegions.Region region = new ConnectedRegions.Region();
+			region.min = new long[ n ];
+			region.max = new long[ n ];
+			Arrays.fill( region.min, Long.MAX_VALUE );
+			Arrays.fill( region.max, Long.MIN_VALUE );
+			region.minSquaredDistanceToCenter = Double.MAX_VALUE;
+
+			final ArrayDeque< Integer > queue = new ArrayDeque<>();
+			queue.add( seed );
+			isVisited[ seed ] = true;
+			while ( ! queue.isEmpty() )
+			{
+				final long[] position = toPosition( queue.poll(), dimensions );
+
+				region.size++;
+				double squaredDistance = 0;
+				for ( int d = 0; d < n; d++ )
+				{
+					region.min[ d ] = Math.min( region.min[ d ], position[ d ] + min[ d ] );
+					region.max[ d ] = Math.max( region.max[ d ], position[ d ] + min[ d ] );
+					squaredDistance += Math.pow( position[ d ] + min[ d ] - center[ d ], 2 );
+				}
+				region.minSquaredDistanceToCenter = Math.min( region.minSquaredDistanceToCenter, squaredDistance );
+
+				for ( long[] offset : neighbourOffsets( n, isFullyConnected ) )
+				{
+					final long[] neighbour = new long[ n ];
+					boolean isInside = true;
+					for ( int d = 0; d < n; d++ )
+					{
+						neighbour[ d ] = position[ d ] + offset[ d ];
+						isInside &= neighbour[ d ] >= 0 && neighbour[ d ] < dimensions[ d ];
+					}
+					if ( ! isInside ) continue;
+
+					final int index = toIndex( neighbour, dimensions );
+					if ( isForeground[ index ] && ! isVisited[ index ] )
+					{
+						isVisited[ index ] = true;
+						queue.add( index );
+					}
+				}
+			}
+
+			region.isTouchingBorder = new boolean[ n ];
+			for ( int d = 0; d < n; d++ )
+				region.isTouchingBorder[ d ] = region.min[ d ] == mask.min( d ) || region.max[ d ] == mask.max( d );
+
+			regions.add( region );
+		}
+
+		return regions;
+	}
+
+	private static List< long[] > neighbourOffsets( int n, boolean isFullyConnected )
+	{
+		final List< long[] > offsets = new ArrayList<>();
+		final int numOffsets = (int) Math.pow( 3, n );
+		for ( int k = 0; k < numOffsets; k++ )
+		{
+			final long[] offset = new long[ n ];
+			int numNonZero = 0;
+			for ( int d = 0, m = k; d < n; d++, m /= 3 )
+			{
+				offset[ d ] = m % 3 - 1;
+				if ( offset[ d ] != 0 ) numNonZero++;
+			}
+
+			if ( numNonZero > 0 && ( isFullyConnected || numNonZero == 1 ) )
+				offsets.add( offset );
+		}
+		return offsets;
+	}
+
+	private static long[] toPosition( int index, long[] dimensions )
+	{
+		final long[] position = new long[ dimensions.length ];
+		for ( int d = 0; d < dimensions.length; d++ )
+		{
+			position[ d ] = index % dimensions[ d ];
+			index /= dimensions[ d ];
+		}
+		return position;
+	}
+
+	private static int toIndex( long[] position, long[] dimensions )
+	{
+		long index = 0;
+		for ( int d = dimensions.length - 1; d >= 0; d-- )
+			index = index * dimensions[ d ] + position[ d ];
+		return (int) index;
+	}
+
+	private static void assertSameRegions( List< ConnectedRegions.Region > expected, List< ConnectedRegions.Region > actual )
+	{
+		Assert.assertEquals( expected.size(), actual.size() );
+
+		final Comparator< ConnectedRegions.Region > order = Comparator
+				.comparingLong( ( ConnectedRegions.Region region ) -> region.size )
+				.thenComparing( region -> Arrays.toString( region.min ) )
+				.thenComparing( region -> Arrays.toString( region.max ) );
+		expected.sort( order );
+		final List< ConnectedRegions.Region > sortedActual = new ArrayList<>( actual );
+		sortedActual.sort( order );
+
+		for ( int i = 0; i < expected.size(); i++ )
+		{
+			Assert.assertEquals( expected.get( i ).size, sortedActual.get( i ).size );
+			Assert.assertArrayEquals( expected.get( i ).min, sortedActual.get( i ).min );
+			Assert.assertArrayEquals( expected.get( i ).max, sortedActual.get( i ).max );
+			Assert.assertArrayEquals( expected.get( i ).isTouchingBorder, sortedActual.get( i ).isTouchingBorder );
+			Assert.assertEquals( expected.get( i ).minSquaredDistanceToCenter, sortedActual.get( i ).minSquaredDistanceToCenter, 1E-9 );
+		}
+	}
+
+	static void assertSameMask( RandomAccessibleInterval< BitType > expected, RandomAccessibleInterval< BitType > actual )
+	{
+		Assert.assertArrayEquals( Intervals.minAsLongArray( expected ), Intervals.minAsLongArray( actual ) );
+		Assert.assertArrayEquals( Intervals.maxAsLongArray( expected ), Intervals.maxAsLongArray( actual ) );
+
+		final Cursor< BitType > cursor = Views.iterable( expected ).localizingCursor();
+		final RandomAccess< BitType > access = actual.randomAccess();
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			access.setPosition( cursor );
+			Assert.assertEquals( "at " + Util.printCoordinates( cursor ), cursor.get().get(), access.get().get() );
+		}
+	}
+
+	static ArrayImg< BitType, LongArray > createRandomVoxels( long[] dimensions, double density, long seed )
+	{
+		final ArrayImg< BitType, LongArray > mask = ArrayImgs.bits( dimensions );
+		final Random random = new Random( seed );
+		for ( BitType voxel : mask )
+			voxel.set( random.nextDouble() < density );
+		return mask;
+	}
+
+	/**
+	 * Boxes with random positions and sizes, which may touch the border and each other.
+	 */
+	static ArrayImg< BitType, LongArray > createRandomBoxes( long[] dimensions, int numBoxes, long seed )
+	{
+		final ArrayImg< BitType, LongArray > mask = ArrayImgs.bits( dimensions );
+		final Random random = new Random( seed );
+		final int n = dimensions.length;
+
+		for ( int b = 0; b < numBoxes; b++ )
+		{
+			final long[] min = new long[ n ];
+			final long[] max = new long[ n ];
+			for ( int d = 0; d < n; d++ )
+			{
+				min[ d ] = random.nextInt( (int) dimensions[ d ] );
+				max[ d ] = Math.min( dimensions[ d ] - 1, min[ d ] + random.nextInt( 5 ) );
+			}
+
+			final Cursor< BitType > cursor = Views.interval( mask, min, max ).localizingCursor();
+			while ( cursor.hasNext() )
+				cursor.next().set( true );
+		}
+
+		return mask;
+	}
+}
@@ -0,0 +1,192 @@
+package test;
+
+import de.embl.cba.spindle3d.util.BinaryMorphology;
+import de.embl.cba.spindle3d.util.DistanceTransform;
+import de.embl.cba.spindle3d.util.Parallel;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Compares the distance transforms and the mask operations based on them with
+ * the distances to all voxels, computed by brute force.
+ */
+public class TestDistanceTransform
+{
+	private static final double TOLERANCE = 1E-9;
+
+	private static final long[][] DIMENSIONS = { { 17 }, { 13, 11 }, { 9, 8, 7 }, { 20, 3, 5 } };
+	private static final long[][] TRANSLATIONS = { { -2 }, { 3, -1 }, { 0, 2, -3 }, { 0, 0, 0 } };
+	private static final double[][] VOXEL_SIZES = { { 0.5 }, { 1, 2.5 }, { 1, 1, 1 }, { 0.3, 0.3, 1.2 } };
+
+	public static void main( String[] args )
+	{
+		new TestDistanceTransform().test();
+	}
+
+	@Test
+	public void test()
+	{
+		final ExecutorService executorService = Parallel.createExecutorService( 3 );
+
+		for ( int i = 0; i < DIMENSIONS.length; i++ )
+		{
+			for ( double density : new double[]{ 0, 0.05, 0.5, 1 } )
+			{
+				final RandomAccessibleInterval< BitType > mask = Views.translate(
+						TestConnectedRegions.createRandomVoxels( DIMENSIONS[ i ], density, i ), TRANSLATIONS[ i ] );
+				final double[] voxelSize = VOXEL_SIZES[ i ];
+
+				final RandomAccessibleInterval< DoubleType > toForeground = distances( mask, true, voxelSize );
+				final RandomAccessibleInterval< DoubleType > toBackground = distances( mask, false, voxelSize );
+
+				for ( ExecutorService es : new ExecutorService[]{ null, executorService } )
+				{
+					assertSameDistances( toForeground, DistanceTransform.distancesToForeground( mask, voxelSize, es ) );
+					assertSameDistances( toBackground, DistanceTransform.distancesToBackground( mask, voxelSize, es ) );
+					assertSameDistances( scale( toBackground, 2 ), DistanceTransform.thickness( mask, voxelSize, es ) );
+
+					// the distances are not distances between voxels, such that rounding cannot decide the comparisons
+					for ( double distance : new double[]{ 0, 0.95, 1.55, 2.45 } )
+					{
+						TestConnectedRegions.assertSameMask(
+								threshold( toForeground, 0, distance, true ),
+								DistanceTransform.dilate( mask, distance, voxelSize, es ) );
+						TestConnectedRegions.assertSameMask(
+								threshold( toBackground, distance, Double.POSITIVE_INFINITY, false ),
+								DistanceTransform.erode( mask, distance, voxelSize, es ) );
+						TestConnectedRegions.assertSameMask(
+								threshold( toForeground, distance, distance + 1.25, false ),
+								DistanceTransform.band( mask, distance, distance + 1.25, voxelSize, es ) );
+					}
+				}
+			}
+		}
+
+		executorService.shutdown();
+	}
+
+	@Test
+	public void dilatesAsTheSphere()
+	{
+		for ( long[] dimensions : new long[][]{ { 13, 11 }, { 70, 6, 5 } } )
+		{
+			final RandomAccessibleInterval< BitType > mask = TestConnectedRegions.createRandomVoxels( dimensions, 0.05, 3 );
+			final double[] voxelSize = new double[ dimensions.length ];
+			Arrays.fill( voxelSize, 1 );
+
+			for ( int radius = 1; radius <= 4; radius++ )
+				TestConnectedRegions.assertSameMask(
+						BinaryMorphology.dilate( mask, radius, null ),
+						DistanceTransform.dilate( mask, radius, voxelSize, null ) );
+		}
+	}
+
+	/**
+	 * @param toForeground
+	 * 			whether the distances to the foreground or to the background, which includes the voxels outside of the mask interval
+	 * @return the distances to all voxels of the target, by brute force
+	 */
+	private static RandomAccessibleInterval< DoubleType > distances( RandomAccessibleInterval< BitType > mask, boolean toForeground, double[] voxelSize )
+	{
+		final int n = mask.numDimensions();
+
+		final List< long[] > targets = new ArrayList<>();
+		final Cursor< BitType > cursor = Views.iterable( mask ).localizingCursor();
+		while ( cursor.hasNext() )
+		{
+			if ( cursor.next().get() == toForeground )
+			{
+				final long[] position = new long[ n ];
+				cursor.localize( position );
+				targets.add( position );
+			}
+		}
+
+		final RandomAccessibleInterval< DoubleType > distances = Views.translate(
+				ArrayImgs.doubles( Intervals.dimensionsAsLongArray( mask ) ), Intervals.minAsLongArray( mask ) );
+		final Cursor< DoubleType > distanceCursor = Views.iterable( distances ).localizingCursor();
+		while ( distanceCursor.hasNext() )
+		{
+			distanceCursor.fwd();
+
+			double minSquaredDistance = Double.POSITIVE_INFINITY;
+			for ( long[] target : targets )
+			{
+				double squaredDistance = 0;
+				for ( int d = 0; d < n; d++ )
+					squaredDistance += Math.pow( ( distanceCursor.getLongPosition( d ) - target[ d ] ) * voxelSize[ d ], 2 );
+				minSquaredDistance = Math.min( minSquaredDistance, squaredDistance );
+			}
+
+			// the closest voxel outside of the interval is along one of the axes
+			if ( ! toForeground )
+			{
+				for ( int d = 0; d < n; d++ )
+				{
+					final double toMin = ( distanceCursor.getLongPosition( d ) - mask.min( d ) + 1 ) * voxelSize[ d ];
+					final double toMax = ( mask.max( d ) - distanceCursor.getLongPosition( d ) + 1 ) * voxelSize[ d ];
+					minSquaredDistance = Math.min( minSquaredDistance, Math.pow( Math.min( toMin, toMax ), 2 ) );
+				}
+			}
+
+			distanceCursor.get().set( Math.sqrt( minSquaredDistance ) );
+		}
+
+		return distances;
+	}
+
+	private static RandomAccessibleInterval< DoubleType > scale( RandomAccessibleInterval< DoubleType > distances, double factor )
+	{
+		final RandomAccessibleInterval< DoubleType > scaled = Views.translate(
+				ArrayImgs.doubles( Intervals.dimensionsAsLongArray( distances ) ), Intervals.minAsLongArray( distances ) );
+		final Cursor< DoubleType > cursor = Views.flatIterable( distances ).cursor();
+		for ( DoubleType value : Views.flatIterable( scaled ) )
+			value.set( factor * cursor.next().get() );
+		return scaled;
+	}
+
+	/**
+	 * @return the voxels whose distance is within ( min, max ], or [ min, max ] if the minimum is inclusive
+	 */
+	private static RandomAccessibleInterval< BitType > threshold( RandomAccessibleInterval< DoubleType > distances, double min, double max, boolean isMinInclusive )
+	{
+		final RandomAccessibleInterval< BitType > mask = Views.translate(
+				ArrayImgs.bits( Intervals.dimensionsAsLongArray( distances ) ), Intervals.minAsLongArray( distances ) );
+		final Cursor< DoubleType > cursor = Views.flatIterable( distances ).cursor();
+		for ( BitType value : Views.flatIterable( mask ) )
+		{
+			final double distance = cursor.next().get();
+			value.set( ( isMinInclusive ? distance >= min : distance > min ) && distance <= max );
+		}
+		return mask;
+	}
+
+	private static void assertSameDistances( RandomAccessibleInterval< DoubleType > expected, RandomAccessibleInterval< DoubleType > actual )
+	{
+		Assert.assertArrayEquals( Intervals.minAsLongArray( expected ), Intervals.minAsLongArray( actual ) );
+		Assert.assertArrayEquals( Intervals.maxAsLongArray( expected ), Intervals.maxAsLongArray( actual ) );
+
+		final Cursor< DoubleType > cursor = Views.iterable( expected ).localizingCursor();
+		final RandomAccess< DoubleType > access = actual.randomAccess();
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			access.setPosition( cursor );
+			Assert.assertEquals( "at " + Util.printCoordinates( cursor ), cursor.get().get(), access.get().get(), TOLERANCE );
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package test;
+
+import de.embl.cba.spindle3d.ellipsoids.EllipsoidVectors;
+import de.embl.cba.spindle3d.ellipsoids.Ellipsoids3DImageSuite;
+import de.embl.cba.spindle3d.ellipsoids.EllipsoidsMoments;
+import de.embl.cba.spindle3d.util.Parallel;
+import de.embl.cba.spindle3d.util.RunLengthMask;
+import de.embl.cba.spindle3d.util.Utils;
+import mcib3d.geom.Vector3D;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.realtransform.AffineTransform3D;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.LinAlgHelpers;
+import net.imglib2.view.Views;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Compares the ellipsoids fitted from the voxel moments with the ellipsoids
+ * of the 3D ImageSuite, which were fitted before, and with the true ellipsoids.
+ */
+public class TestEllipsoidsMoments
+{
+	public static void main( String[] args )
+	{
+		new TestEllipsoidsMoments().test();
+	}
+
+	@Test
+	public void test()
+	{
+		final ExecutorService executorService = Parallel.createExecutorService( 3 );
+
+		final AffineTransform3D rotation = new AffineTransform3D();
+		rotation.rotate( 2, 0.4 );
+		rotation.rotate( 0, 0.7 );
+		rotation.rotate( 1, -0.3 );
+
+		final RandomAccessibleInterval< BitType > ellipsoid = createEllipsoid( new double[]{ 25, 14, 7 }, rotation, new long[]{ 4, -7, 3 } );
+
+		final EllipsoidVectors expected = Ellipsoids3DImageSuite.fitEllipsoid( Utils.asImagePlus( Views.zeroMin( ellipsoid ), "" ) );
+		for ( int d = 0; d < 3; d++ )
+			expected.center[ d ] += ellipsoid.min( d );
+
+		final EllipsoidVectors ellipsoidVectors = EllipsoidsMoments.fitEllipsoid( ellipsoid, null );
+		assertSameEllipsoid( expected, ellipsoidVectors );
+		assertSameEllipsoid( expected, EllipsoidsMoments.fitEllipsoid( ellipsoid, executorService ) );
+		assertSameEllipsoid( expected, EllipsoidsMoments.fitEllipsoid( RunLengthMask.of( ellipsoid ), null ) );
+
+		// the true ellipsoid, rotated and centered at the translation
+		Assert.assertArrayEquals( new double[]{ 4, -7, 3 }, ellipsoidVectors.center, 0.05 );
+		Assert.assertEquals( 50, ellipsoidVectors.longestAxisLength, 0.5 );
+		Assert.assertEquals( 28, ellipsoidVectors.middleAxisLength, 0.5 );
+		Assert.assertEquals( 14, ellipsoidVectors.shortestAxisLength, 0.5 );
+		assertSameAxis( rotatedAxis( rotation, 0 ), ellipsoidVectors.longestAxis );
+		assertSameAxis( rotatedAxis( rotation, 1 ), ellipsoidVectors.middleAxis );
+		assertSameAxis( rotatedAxis( rotation, 2 ), ellipsoidVectors.shortestAxis );
+
+		executorService.shutdown();
+	}
+
+	@Test
+	public void returnsNullForEmptyMasks()
+	{
+		Assert.assertNull( EllipsoidsMoments.fitEllipsoid( ArrayImgs.bits( 5, 4, 3 ), null ) );
+	}
+
+	/**
+	 * Compares the centers, the axis lengths and the axes, whose signs are arbitrary.
+	 */
+	private static void assertSameEllipsoid( EllipsoidVectors expected, EllipsoidVectors actual )
+	{
+		Assert.assertArrayEquals( expected.center, actual.center, 1E-6 );
+
+		Assert.assertEquals( expected.longestAxisLength, actual.longestAxisLength, 0.01 * expected.longestAxisLength );
+		Assert.assertEquals( expected.middleAxisLength, actual.middleAxisLength, 0.01 * expected.middleAxisLength );
+		Assert.assertEquals( expected.shortestAxisLength, actual.shortestAxisLength, 0.01 * expected.shortestAxisLength );
+
+		assertSameAxis( expected.longestAxis, actual.longestAxis );
+		assertSameAxis( expected.middleAxis, actual.middleAxis );
+		assertSameAxis( expected.shortestAxis, actual.shortestAxis );
+	}
+
+	private static void assertSameAxis( Vector3D expected, Vector3D actual )
+	{
+		final double cosine = LinAlgHelpers.dot( expected.getArray(), actual.getArray() )
+				/ ( LinAlgHelpers.length( expected.getArray() ) * LinAlgHelpers.length( actual.getArray() ) );
+		Assert.assertEquals( 1, Math.abs( cosine ), 1E-3 );
+	}
+
+	private static Vector3D rotatedAxis( AffineTransform3D rotation, int d )
+	{
+		final double[] axis = new double[ 3 ];
+		axis[ d ] = 1;
+		rotation.apply( axis, axis );
+		return new Vector3D( axis[ 0 ], axis[ 1 ], axis[ 2 ] );
+	}
+
+	/**
+	 * @return the voxels within the ellipsoid with the semi-axes along x, y and z, rotated and translated
+	 */
+	private static RandomAccessibleInterval< BitType > createEllipsoid( double[] semiAxes, AffineTransform3D rotation, long[] translation )
+	{
+		final long radius = (long) Math.ceil( semiAxes[ 0 ] ) + 2;
+		final long[] min = new long[ 3 ];
+		final long[] max = new long[ 3 ];
+		for ( int d = 0; d < 3; d++ )
+		{
+			min[ d ] = translation[ d ] - radius;
+			max[ d ] = translation[ d ] + radius;
+		}
+
+		final RandomAccessibleInterval< BitType > mask = Views.translate( ArrayImgs.bits( Intervals.dimensionsAsLongArray( Intervals.createMinMax(
+				min[ 0 ], min[ 1 ], min[ 2 ], max[ 0 ], max[ 1 ], max[ 2 ] ) ) ), min );
+
+		final double[] position = new double[ 3 ];
+		final Cursor< BitType > cursor = Views.iterable( mask ).localizingCursor();
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			for ( int d = 0; d < 3; d++ )
+				position[ d ] = cursor.getDoublePosition( d ) - translation[ d ];
+			rotation.applyInverse( position, position );
+
+			double sum = 0;
+			for ( int d = 0; d < 3; d++ )
+				sum += position[ d ] * position[ d ] / ( semiAxes[ d ] * semiAxes[ d ] );
+			cursor.get().set( sum <= 1 );
+		}
+
+		return mask;
+	}
+}
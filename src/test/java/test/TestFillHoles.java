@@ -0,0 +1,192 @@
+package test;
+
+import de.embl.cba.spindle3d.util.FillHoles;
+import de.embl.cba.spindle3d.util.Parallel;
+import de.embl.cba.spindle3d.util.Utils;
+import net.imagej.ops.OpService;
+import net.imglib2.Cursor;
+import net.imglib2.Point;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+import org.junit.Assert;
+import org.junit.Test;
+import org.scijava.Context;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Compares the thresholded and filled masks with the fillHoles of ImageJ Ops,
+ * which was used before, and with a breadth-first fill of the background from the border.
+ */
+public class TestFillHoles
+{
+	private static final long[][] DIMENSIONS = { { 9, 8, 7 }, { 70, 5, 6 }, { 1, 4, 3 }, { 65, 1, 1 } };
+
+	public static void main( String[] args )
+	{
+		new TestFillHoles().test();
+	}
+
+	@Test
+	public void test()
+	{
+		final Context context = new Context( OpService.class );
+		final OpService opService = context.getService( OpService.class );
+
+		for ( long[] dimensions : DIMENSIONS )
+		{
+			for ( double density : new double[]{ 0.3, 0.6, 0.8 } )
+			{
+				final RandomAccessibleInterval< FloatType > image = createRandomImage( dimensions, 42 );
+				final double threshold = 1 - density;
+
+				final RandomAccessibleInterval< BitType > expected =
+						opService.morphology().fillHoles( Views.zeroMin( Utils.createMask( image, threshold ) ) );
+
+				TestConnectedRegions.assertSameMask( expected, FillHoles.thresholdAndFillHoles( image, threshold, null ) );
+			}
+		}
+
+		context.dispose();
+	}
+
+	@Test
+	public void fillsTheBackgroundThatIsNotConnectedToTheBorder()
+	{
+		final ExecutorService executorService = Parallel.createExecutorService( 3 );
+
+		for ( long[] dimensions : DIMENSIONS )
+		{
+			for ( double density : new double[]{ 0, 0.3, 0.6, 0.8, 1 } )
+			{
+				final RandomAccessibleInterval< FloatType > image = Views.translate( createRandomImage( dimensions, 7 ), 3, -4, 2 );
+				final double threshold = density == 0 ? 2 : 1 - density;
+
+				final RandomAccessibleInterval< BitType > expected = fillBorderConnectedBackground( Utils.createMask( image, threshold ) );
+
+				TestConnectedRegions.assertSameMask( expected, FillHoles.thresholdAndFillHoles( image, threshold, null ) );
+				TestConnectedRegions.assertSameMask( expected, FillHoles.thresholdAndFillHoles( image, threshold, executorService ) );
+			}
+		}
+
+		executorService.shutdown();
+	}
+
+	@Test
+	public void fillsHollowBoxes()
+	{
+		final ArrayImg< FloatType, FloatArray > image = ArrayImgs.floats( 9, 9, 9 );
+		final Cursor< FloatType > cursor = image.localizingCursor();
+		final long[] position = new long[ 3 ];
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			cursor.localize( position );
+			cursor.get().set( isInBox( position, 2, 6 ) && ! isInBox( position, 3, 5 ) ? 1 : 0 );
+		}
+
+		// the closed box is filled completely
+		assertFilledBox( FillHoles.thresholdAndFillHoles( image, 0.5, null ), true );
+
+		// an edge voxel connects the inside to the outside only diagonally, which suffices with the 26-neighbourhood
+		final RandomAccess< FloatType > access = image.randomAccess();
+		access.setPosition( new long[]{ 6, 6, 4 } );
+		access.get().set( 0 );
+		final RandomAccessibleInterval< BitType > filled = FillHoles.thresholdAndFillHoles( image, 0.5, null );
+		TestConnectedRegions.assertSameMask( fillBorderConnectedBackground( Utils.createMask( image, 0.5 ) ), filled );
+		assertFilledBox( filled, false );
+	}
+
+	private static void assertFilledBox( RandomAccessibleInterval< BitType > mask, boolean isFilled )
+	{
+		final RandomAccess< BitType > access = mask.randomAccess();
+		access.setPosition( new long[]{ 4, 4, 4 } );
+		Assert.assertEquals( isFilled, access.get().get() );
+	}
+
+	private static boolean isInBox( long[] position, long min, long max )
+	{
+		for ( long p : position )
+			if ( p < min || p > max ) return false;
+		return true;
+	}
+
+	/**
+	 * @return the mask, with all background voxels that are not 26-connected to the border set to foreground
+	 */
+	private static RandomAccessibleInterval< BitType > fillBorderConnectedBackground( RandomAccessibleInterval< BitType > mask )
+	{
+		final long[] min = Intervals.minAsLongArray( mask );
+		final long[] max = Intervals.maxAsLongArray( mask );
+		final RandomAccessibleInterval< BitType > isBorderConnected = Views.translate( ArrayImgs.bits( Intervals.dimensionsAsLongArray( mask ) ), min );
+		final RandomAccess< BitType > maskAccess = mask.randomAccess();
+		final RandomAccess< BitType > connectedAccess = isBorderConnected.randomAccess();
+
+		final ArrayDeque< long[] > queue = new ArrayDeque<>();
+		final Cursor< BitType > cursor = Views.iterable( mask ).localizingCursor();
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			if ( cursor.get().get() ) continue;
+
+			final long[] position = new long[ 3 ];
+			cursor.localize( position );
+			for ( int d = 0; d < 3; d++ )
+			{
+				if ( position[ d ] == min[ d ] || position[ d ] == max[ d ] )
+				{
+					connectedAccess.setPosition( position );
+					connectedAccess.get().set( true );
+					queue.add( position );
+					break;
+				}
+			}
+		}
+
+		while ( ! queue.isEmpty() )
+		{
+			final long[] position = queue.poll();
+			for ( long dz = -1; dz <= 1; dz++ )
+				for ( long dy = -1; dy <= 1; dy++ )
+					for ( long dx = -1; dx <= 1; dx++ )
+					{
+						final long[] neighbour = { position[ 0 ] + dx, position[ 1 ] + dy, position[ 2 ] + dz };
+						if ( ! Intervals.contains( mask, new Point( neighbour ) ) ) continue;
+
+						maskAccess.setPosition( neighbour );
+						connectedAccess.setPosition( neighbour );
+						if ( maskAccess.get().get() || connectedAccess.get().get() ) continue;
+
+						connectedAccess.get().set( true );
+						queue.add( neighbour );
+					}
+		}
+
+		final Cursor< BitType > connectedCursor = Views.flatIterable( isBorderConnected ).cursor();
+		while ( connectedCursor.hasNext() )
+		{
+			final BitType value = connectedCursor.next();
+			value.set( ! value.get() );
+		}
+
+		return isBorderConnected;
+	}
+
+	private static ArrayImg< FloatType, FloatArray > createRandomImage( long[] dimensions, long seed )
+	{
+		final ArrayImg< FloatType, FloatArray > image = ArrayImgs.floats( dimensions );
+		final Random random = new Random( seed );
+		for ( FloatType value : image )
+			value.set( random.nextFloat() );
+		return image;
+	}
+}
@@ -0,0 +1,225 @@
+package test;
+
+import de.embl.cba.spindle3d.util.ChordWidths;
+import de.embl.cba.spindle3d.util.IntensityStatistics;
+import de.embl.cba.spindle3d.util.Parallel;
+import de.embl.cba.spindle3d.util.RunLengthMask;
+import de.embl.cba.spindle3d.util.Utils;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.ShortArray;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Compares the streamed statistics with the statistics of the value lists in {@link Utils},
+ * which were computed before, for values that are counted in a histogram and for values that are stored.
+ */
+public class TestIntensityStatistics
+{
+	private static final double TOLERANCE = 1E-9;
+
+	public static void main( String[] args )
+	{
+		new TestIntensityStatistics().test();
+	}
+
+	@Test
+	public void test()
+	{
+		for ( int numValues : new int[]{ 1, 2, 101, 1000 } )
+		{
+			for ( long seed = 0; seed < 3; seed++ )
+			{
+				final List< Double > values = createBimodalValues( numValues, seed );
+
+				assertSameStatistics( values, accumulate( new UnsignedShortType(), values ) );
+				assertSameStatistics( values, accumulate( new FloatType(), values ) );
+
+				// the values are merged in the same way as the statistics of the slabs
+				final IntensityStatistics merged = accumulate( new UnsignedShortType(), values.subList( 0, numValues / 2 ) );
+				merged.add( accumulate( new UnsignedShortType(), values.subList( numValues / 2, numValues ) ) );
+				assertSameStatistics( values, merged );
+			}
+		}
+	}
+
+	@Test
+	public void computesTheOtsuThresholdAsBefore()
+	{
+		for ( long seed = 0; seed < 5; seed++ )
+		{
+			final List< Double > values = createBimodalValues( 5000, seed );
+			final double expected = Utils.thresholdOtsu( new ArrayList<>( values ) );
+
+			Assert.assertEquals( expected, accumulate( new UnsignedShortType(), values ).thresholdOtsu(), TOLERANCE * expected );
+			Assert.assertEquals( expected, accumulate( new FloatType(), values ).thresholdOtsu(), TOLERANCE * expected );
+		}
+
+		final List< Double > nonIntegerValues = new ArrayList<>();
+		final Random random = new Random( 42 );
+		for ( int i = 0; i < 3000; i++ )
+			nonIntegerValues.add( random.nextGaussian() + ( i % 3 == 0 ? 5 : 0 ) );
+		Assert.assertEquals(
+				Utils.thresholdOtsu( new ArrayList<>( nonIntegerValues ) ),
+				accumulate( new FloatType(), nonIntegerValues ).thresholdOtsu(),
+				TOLERANCE );
+	}
+
+	@Test
+	public void measuresWithinMasks()
+	{
+		final ExecutorService executorService = Parallel.createExecutorService( 3 );
+
+		final ArrayImg< UnsignedShortType, ShortArray > image = ArrayImgs.unsignedShorts( 20, 15, 10 );
+		final Random random = new Random( 42 );
+		for ( UnsignedShortType value : image )
+			value.set( random.nextInt( 1000 ) );
+		final RandomAccessibleInterval< UnsignedShortType > translatedImage = Views.translate( image, 3, -2, 1 );
+
+		// the masks extend beyond the image
+		final RandomAccessibleInterval< BitType > voxels = Views.translate(
+				TestConnectedRegions.createRandomVoxels( new long[]{ 25, 12, 14 }, 0.3, 1 ), 0, 0, -1 );
+		final RandomAccessibleInterval< BitType > boxes = Views.translate(
+				TestConnectedRegions.createRandomBoxes( new long[]{ 25, 12, 14 }, 6, 2 ), 0, 0, -1 );
+		final RandomAccessibleInterval< BitType > empty = ArrayImgs.bits( 25, 12, 14 );
+
+		final List< RandomAccessibleInterval< BitType > > masks = Arrays.asList( voxels, boxes, empty );
+		final List< RandomAccessibleInterval< BitType > > runLengthMasks = Arrays.asList(
+				RunLengthMask.of( voxels ), RunLengthMask.of( boxes ), RunLengthMask.of( empty ) );
+
+		for ( ExecutorService es : new ExecutorService[]{ null, executorService } )
+		{
+			for ( List< RandomAccessibleInterval< BitType > > maskList : Arrays.asList( masks, runLengthMasks ) )
+			{
+				final List< IntensityStatistics > statistics = IntensityStatistics.measure( translatedImage, maskList, true, es );
+				final List< IntensityStatistics > moments = IntensityStatistics.measure( translatedImage, maskList, es );
+				for ( int m = 0; m < masks.size(); m++ )
+				{
+					final List< Double > values = valuesWithin( translatedImage, masks.get( m ) );
+					Assert.assertFalse( moments.get( m ).isDistributionKept() );
+					if ( values.isEmpty() )
+					{
+						Assert.assertEquals( 0, statistics.get( m ).count() );
+						Assert.assertEquals( 0, moments.get( m ).count() );
+					}
+					else
+					{
+						assertSameStatistics( values, statistics.get( m ) );
+						assertSameMoments( values, moments.get( m ) );
+					}
+				}
+			}
+		}
+
+		executorService.shutdown();
+	}
+
+	@Test
+	public void keepsOnlyTheMomentsByDefault()
+	{
+		final List< Double > values = createBimodalValues( 1000, 3 );
+
+		final IntensityStatistics statistics = new IntensityStatistics();
+		for ( double value : values.subList( 0, 400 ) )
+			statistics.add( value );
+		final IntensityStatistics other = new IntensityStatistics();
+		for ( double value : values.subList( 400, 1000 ) )
+			other.add( value );
+		statistics.add( other );
+
+		Assert.assertFalse( statistics.isDistributionKept() );
+		assertSameMoments( values, statistics );
+	}
+
+	@Test( expected = UnsupportedOperationException.class )
+	public void rejectsPercentilesWithoutDistribution()
+	{
+		final IntensityStatistics statistics = new IntensityStatistics();
+		statistics.add( 1 );
+		statistics.median();
+	}
+
+	private static void assertSameMoments( List< Double > values, IntensityStatistics statistics )
+	{
+		final double mean = Utils.mean( values );
+
+		Assert.assertEquals( values.size(), statistics.count() );
+		Assert.assertEquals( Utils.sum( values ), statistics.sum(), TOLERANCE * Math.abs( statistics.sum() ) );
+		Assert.assertEquals( mean, statistics.mean(), TOLERANCE * Math.abs( mean ) );
+		Assert.assertEquals( Utils.sdev( values, mean ), statistics.sdev(), 1E-6 * Math.abs( mean ) );
+
+		final double[] sorted = values.stream().mapToDouble( x -> x ).sorted().toArray();
+		Assert.assertEquals( sorted[ 0 ], statistics.min(), 0 );
+		Assert.assertEquals( sorted[ sorted.length - 1 ], statistics.max(), 0 );
+	}
+
+	private static void assertSameStatistics( List< Double > values, IntensityStatistics statistics )
+	{
+		assertSameMoments( values, statistics );
+
+		final double median = Utils.median( values );
+		Assert.assertTrue( statistics.isDistributionKept() );
+		Assert.assertEquals( median, statistics.median(), TOLERANCE );
+		Assert.assertEquals( Utils.mad( values, median ), statistics.mad(), TOLERANCE );
+
+		final double[] sorted = values.stream().mapToDouble( x -> x ).sorted().toArray();
+		for ( double percentile : new double[]{ 0, 10, 25, 50, 90, 100 } )
+			Assert.assertEquals( ChordWidths.percentile( sorted, percentile ), statistics.percentile( percentile ), TOLERANCE );
+	}
+
+	private static < T extends RealType< T > > IntensityStatistics accumulate( T type, List< Double > values )
+	{
+		final IntensityStatistics statistics = new IntensityStatistics( type );
+		for ( double value : values )
+			statistics.add( value );
+		return statistics;
+	}
+
+	/**
+	 * Integers with two peaks, as the tubulin intensities around the DNA.
+	 */
+	private static List< Double > createBimodalValues( int numValues, long seed )
+	{
+		final Random random = new Random( seed );
+		final List< Double > values = new ArrayList<>();
+		for ( int i = 0; i < numValues; i++ )
+		{
+			final double mean = random.nextDouble() < 0.7 ? 200 : 900;
+			values.add( (double) Math.max( 0, Math.round( mean + 80 * random.nextGaussian() ) ) );
+		}
+		return values;
+	}
+
+	private static List< Double > valuesWithin( RandomAccessibleInterval< UnsignedShortType > image, RandomAccessibleInterval< BitType > mask )
+	{
+		final List< Double > values = new ArrayList<>();
+		final Cursor< BitType > cursor = Views.iterable( mask ).localizingCursor();
+		final RandomAccess< UnsignedShortType > access = image.randomAccess();
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			if ( cursor.get().get() && Intervals.contains( image, cursor ) )
+			{
+				access.setPosition( cursor );
+				values.add( access.get().getRealDouble() );
+			}
+		}
+		return values;
+	}
+}
@@ -0,0 +1,137 @@
+package test;
+
+import de.embl.cba.spindle3d.util.Profile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the derivatives of the profiles with the derivative of the coordinate and value lists,
+ * which was computed before, also for views that do not start at the first element.
+ */
+public class TestProfile
+{
+	private static final int[] SIZES = { 0, 1, 2, 3, 4, 5, 8, 31 };
+	private static final int[] DIS = { 0, 1, 2, 3, 4, 7 };
+
+	public static void main( String[] args )
+	{
+		new TestProfile().test();
+	}
+
+	@Test
+	public void test()
+	{
+		for ( int size : SIZES )
+		{
+			final Profile profile = createRandomProfile( size, size );
+			final double[] coordinates = profile.coordinatesAsArray();
+			final double[] values = profile.valuesAsArray();
+
+			for ( int di : DIS )
+			{
+				assertSameDerivative( derivative( coordinates, values, di ), profile.derivative( di ) );
+
+				// the profile itself is not changed
+				Assert.assertArrayEquals( coordinates, profile.coordinatesAsArray(), 0 );
+				Assert.assertArrayEquals( values, profile.valuesAsArray(), 0 );
+			}
+		}
+	}
+
+	@Test
+	public void computesTheDerivativeOfViews()
+	{
+		final int size = 31;
+
+		for ( int di : DIS )
+		{
+			for ( int[] range : new int[][]{ { 0, size }, { 3, size - 2 }, { 7, 12 }, { 10, 10 } } )
+			{
+				final Profile profile = createRandomProfile( size, di );
+				final double[] coordinates = profile.coordinatesAsArray();
+				final double[] values = profile.valuesAsArray();
+
+				final double[][] expected = derivative(
+						copyOfRange( coordinates, range ), copyOfRange( values, range ), di );
+
+				final Profile view = profile.view( range[ 0 ], range[ 1 ] );
+				assertSameDerivative( expected, view.derivative( di ) );
+
+				final Profile derivative = view.derivativeInPlace( di );
+				assertSameDerivative( expected, derivative );
+
+				// the in place derivative is written to the start of the view, and all other elements are kept
+				for ( int i = 0; i < size; i++ )
+				{
+					if ( i >= range[ 0 ] && i < range[ 0 ] + derivative.size() ) continue;
+					Assert.assertEquals( coordinates[ i ], profile.coordinate( i ), 0 );
+					Assert.assertEquals( values[ i ], profile.value( i ), 0 );
+				}
+				for ( int i = 0; i < derivative.size(); i++ )
+				{
+					Assert.assertEquals( derivative.coordinate( i ), profile.coordinate( range[ 0 ] + i ), 0 );
+					Assert.assertEquals( derivative.value( i ), profile.value( range[ 0 ] + i ), 0 );
+				}
+			}
+		}
+	}
+
+	/**
+	 * The derivative of the coordinate and value lists, as computed by Utils.derivative before.
+	 *
+	 * @return the coordinates and the values of the derivative
+	 */
+	private static double[][] derivative( double[] coordinates, double[] values, int di )
+	{
+		final List< Double > derivativeCoordinates = new ArrayList<>();
+		final List< Double > derivativeValues = new ArrayList<>();
+
+		for ( int i = di / 2 + 1; i < values.length - ( di / 2 + 1 ); ++i )
+		{
+			final int center = i;
+			final int right = i + di / 2;
+			final int left = i - di / 2;
+
+			derivativeValues.add( values[ right ] - values[ left ] );
+			derivativeCoordinates.add( coordinates[ center ] );
+		}
+
+		return new double[][]{
+				derivativeCoordinates.stream().mapToDouble( x -> x ).toArray(),
+				derivativeValues.stream().mapToDouble( x -> x ).toArray() };
+	}
+
+	private static void assertSameDerivative( double[][] expected, Profile derivative )
+	{
+		Assert.assertEquals( expected[ 1 ].length, derivative.size() );
+		Assert.assertArrayEquals( expected[ 0 ], derivative.coordinatesAsArray(), 0 );
+		Assert.assertArrayEquals( expected[ 1 ], derivative.valuesAsArray(), 0 );
+	}
+
+	private static double[] copyOfRange( double[] array, int[] range )
+	{
+		final double[] copy = new double[ range[ 1 ] - range[ 0 ] ];
+		System.arraycopy( array, range[ 0 ], copy, 0, copy.length );
+		return copy;
+	}
+
+	/**
+	 * Values at increasing, not equally spaced coordinates.
+	 */
+	private static Profile createRandomProfile( int size, long seed )
+	{
+		final Random random = new Random( seed );
+		final Profile profile = new Profile( size );
+		double coordinate = - 2.5;
+		for ( int i = 0; i < size; i++ )
+		{
+			coordinate += 0.1 + random.nextDouble();
+			profile.set( i, coordinate, 100 * random.nextGaussian() );
+		}
+		return profile;
+	}
+}
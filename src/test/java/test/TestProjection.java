@@ -0,0 +1,192 @@
+package test;
+
+import de.embl.cba.spindle3d.util.Parallel;
+import de.embl.cba.spindle3d.util.Projection;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.type.Type;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Compares the projections with projections that read each column of the input separately.
+ */
+public class TestProjection
+{
+	private static final double TOLERANCE = 1E-4;
+
+	public static void main( String[] args )
+	{
+		new TestProjection().test();
+	}
+
+	@Test
+	public void test()
+	{
+		final ExecutorService executorService = Parallel.createExecutorService( 3 );
+
+		final RandomAccessibleInterval< FloatType > image = Views.translate( createRandomImage( -10, 10 ), 2, -3, 1 );
+		final RandomAccessibleInterval< FloatType > negativeImage = createRandomImage( -10, -1 );
+
+		for ( int d = 0; d < 3; d++ )
+		{
+			for ( ExecutorService es : new ExecutorService[]{ null, executorService } )
+			{
+				testAllModes( image, d, image.min( d ), image.max( d ), es );
+				testAllModes( image, d, image.min( d ) + 1, image.max( d ) - 1, es );
+				testAllModes( negativeImage, d, negativeImage.min( d ), negativeImage.max( d ), es );
+			}
+		}
+
+		executorService.shutdown();
+	}
+
+	@Test
+	public void clipsTheRange()
+	{
+		final RandomAccessibleInterval< FloatType > image = createRandomImage( -10, 10 );
+
+		assertSameImage( new Projection<>( image, 2 ).maximum(), new Projection<>( image, 2, -5, 100 ).maximum() );
+		assertSameImage( new Projection<>( image, 2 ).average(), new Projection<>( image, 2, -5, 100 ).average() );
+	}
+
+	@Test
+	public void projectsAnEmptyRangeToZero()
+	{
+		final RandomAccessibleInterval< FloatType > image = createRandomImage( -10, -1 );
+
+		assertZero( new Projection<>( image, 2, 10, 20 ) );
+		assertZero( new Projection<>( image, 2, -20, -10 ) );
+	}
+
+	@Test
+	public void projectsBitsWithOr()
+	{
+		final ArrayImg< BitType, LongArray > mask = ArrayImgs.bits( 13, 7, 5 );
+		final Random random = new Random( 42 );
+		for ( BitType bit : mask )
+			bit.set( random.nextDouble() < 0.1 );
+
+		for ( RandomAccessibleInterval< BitType > rai : Arrays.asList( mask, Views.translate( mask, 4, -2, 3 ) ) )
+		{
+			final RandomAccessibleInterval< BitType > projected = new Projection<>( rai, 2 ).maximum();
+			final RandomAccess< BitType > access = rai.randomAccess();
+			final Cursor< BitType > cursor = Views.iterable( projected ).localizingCursor();
+			while ( cursor.hasNext() )
+			{
+				cursor.fwd();
+				access.setPosition( cursor.getLongPosition( 0 ), 0 );
+				access.setPosition( cursor.getLongPosition( 1 ), 1 );
+
+				boolean expected = false;
+				for ( long z = rai.min( 2 ); z <= rai.max( 2 ); z++ )
+				{
+					access.setPosition( z, 2 );
+					expected |= access.get().get();
+				}
+
+				Assert.assertEquals( expected, cursor.get().get() );
+			}
+
+			final RandomAccessibleInterval< BitType > subRange = new Projection<>( rai, 2, rai.min( 2 ) + 1, rai.min( 2 ) + 2 ).maximum();
+			final RandomAccessibleInterval< BitType > expected = new Projection<>( Views.interval(
+					rai,
+					new long[]{ rai.min( 0 ), rai.min( 1 ), rai.min( 2 ) + 1 },
+					new long[]{ rai.max( 0 ), rai.max( 1 ), rai.min( 2 ) + 2 } ), 2 ).maximum();
+			assertSameImage( expected, subRange );
+		}
+	}
+
+	private static void testAllModes( RandomAccessibleInterval< FloatType > image, int d, long min, long max, ExecutorService executorService )
+	{
+		assertProjection( image, d, min, max, "sum", new Projection<>( image, d, min, max, executorService ).sum() );
+		assertProjection( image, d, min, max, "average", new Projection<>( image, d, min, max, executorService ).average() );
+		assertProjection( image, d, min, max, "minimum", new Projection<>( image, d, min, max, executorService ).minimum() );
+		assertProjection( image, d, min, max, "maximum", new Projection<>( image, d, min, max, executorService ).maximum() );
+		assertProjection( image, d, min, max, "median", new Projection<>( image, d, min, max, executorService ).median() );
+	}
+
+	private static void assertProjection( RandomAccessibleInterval< FloatType > image, int d, long min, long max, String mode, RandomAccessibleInterval< FloatType > projected )
+	{
+		final RandomAccess< FloatType > access = image.randomAccess();
+		final Cursor< FloatType > cursor = Views.iterable( projected ).localizingCursor();
+		final double[] values = new double[ (int) ( max - min + 1 ) ];
+
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			for ( int i = 0, o = 0; i < 3; i++ )
+				if ( i != d )
+					access.setPosition( cursor.getLongPosition( o++ ), i );
+
+			for ( long p = min; p <= max; p++ )
+			{
+				access.setPosition( p, d );
+				values[ (int) ( p - min ) ] = access.get().getRealDouble();
+			}
+
+			Assert.assertEquals( mode, expectedProjection( values, mode ), cursor.get().getRealDouble(), TOLERANCE );
+		}
+	}
+
+	private static double expectedProjection( double[] values, String mode )
+	{
+		final double[] sorted = values.clone();
+		Arrays.sort( sorted );
+		final double sum = Arrays.stream( values ).sum();
+
+		switch ( mode )
+		{
+			case "sum": return sum;
+			case "average": return sum / values.length;
+			case "minimum": return sorted[ 0 ];
+			case "maximum": return sorted[ sorted.length - 1 ];
+			default:
+				// the lower median, as defined by Projection.getMedian
+				if ( sorted.length == 1 ) return sorted[ 0 ];
+				final int middle = sorted.length / 2;
+				return sorted[ middle % 2 == 0 ? middle - 1 : middle ];
+		}
+	}
+
+	private static void assertZero( Projection< FloatType > projection )
+	{
+		for ( RandomAccessibleInterval< FloatType > projected : Arrays.asList(
+				projection.sum(), projection.average(), projection.minimum(), projection.maximum(), projection.median() ) )
+			for ( FloatType value : Views.iterable( projected ) )
+				Assert.assertEquals( 0, value.getRealDouble(), 0 );
+	}
+
+	private static < T extends Type< T > > void assertSameImage( RandomAccessibleInterval< T > expected, RandomAccessibleInterval< T > actual )
+	{
+		Assert.assertArrayEquals( Intervals.minAsLongArray( expected ), Intervals.minAsLongArray( actual ) );
+		Assert.assertArrayEquals( Intervals.maxAsLongArray( expected ), Intervals.maxAsLongArray( actual ) );
+
+		final Cursor< T > expectedCursor = Views.flatIterable( expected ).cursor();
+		final Cursor< T > actualCursor = Views.flatIterable( actual ).cursor();
+		while ( expectedCursor.hasNext() )
+			Assert.assertTrue( expectedCursor.next().valueEquals( actualCursor.next() ) );
+	}
+
+	private static ArrayImg< FloatType, FloatArray > createRandomImage( double min, double max )
+	{
+		final ArrayImg< FloatType, FloatArray > image = ArrayImgs.floats( 5, 4, 6 );
+		final Random random = new Random( 42 );
+		for ( FloatType value : image )
+			value.setReal( min + ( max - min ) * random.nextDouble() );
+		return image;
+	}
+}
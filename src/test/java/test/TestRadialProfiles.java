@@ -0,0 +1,188 @@
+package test;
+
+import de.embl.cba.spindle3d.util.Profile;
+import de.embl.cba.spindle3d.util.RadialProfiles;
+import de.embl.cba.spindle3d.util.Utils;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.LinAlgHelpers;
+import net.imglib2.view.Views;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Compares the radial profiles with the loop over all pixels of Utils.computeRadialProfile,
+ * at the actual pixel positions, and Utils.computeRadialProfile with that loop itself,
+ * which binned each value at the position of the preceding pixel.
+ */
+public class TestRadialProfiles
+{
+	private static final double TOLERANCE = 1E-9;
+
+	private static final long[][] DIMENSIONS = { { 31 }, { 25, 19 }, { 17, 14, 9 } };
+	private static final long[][] TRANSLATIONS = { { -4 }, { 3, -2 }, { -1, 5, 2 } };
+
+	public static void main( String[] args )
+	{
+		new TestRadialProfiles().test();
+	}
+
+	@Test
+	public void test()
+	{
+		for ( int i = 0; i < DIMENSIONS.length; i++ )
+		{
+			final RandomAccessibleInterval< FloatType > image =
+					Views.translate( createRandomImage( DIMENSIONS[ i ], i ), TRANSLATIONS[ i ] );
+			final int n = image.numDimensions();
+
+			// centers within, at the border of and outside of the image, also between pixels
+			final double[][] centers = new double[ 3 ][ n ];
+			for ( int d = 0; d < n; d++ )
+			{
+				centers[ 0 ][ d ] = ( image.min( d ) + image.max( d ) ) / 2.0 + 0.3;
+				centers[ 1 ][ d ] = image.min( d );
+				centers[ 2 ][ d ] = image.max( d ) + 4.5;
+			}
+
+			for ( double binWidth : new double[]{ 0.5, 1, 2 } )
+			{
+				final int numBins = 12;
+				final double[][] means = RadialProfiles.computeMeans( image, centers, binWidth, numBins );
+
+				for ( int c = 0; c < centers.length; c++ )
+				{
+					final double[] expected = computeMeans( image, centers[ c ], binWidth, numBins );
+					Assert.assertArrayEquals( expected, means[ c ], TOLERANCE );
+
+					// one center at a time gives the same profile
+					Assert.assertArrayEquals( expected,
+							RadialProfiles.computeMeans( image, new double[][]{ centers[ c ] }, binWidth, numBins )[ 0 ], TOLERANCE );
+				}
+			}
+		}
+	}
+
+	@Test
+	public void hasNoValuesForBinsWithoutPixels()
+	{
+		final ArrayImg< FloatType, FloatArray > image = createRandomImage( new long[]{ 5, 5 }, 1 );
+		final double[] profile = RadialProfiles.computeMeans( image, new double[][]{ { 20, 2 } }, 1, 30 )[ 0 ];
+
+		for ( int bin = 0; bin < 16; bin++ )
+			Assert.assertTrue( Double.isNaN( profile[ bin ] ) );
+		Assert.assertFalse( Double.isNaN( profile[ 16 ] ) );
+	}
+
+	@Test
+	public void keepsThePixelPositionsOfTheFormerLoop()
+	{
+		final double spacing = 0.25;
+
+		for ( int i = 1; i < DIMENSIONS.length; i++ )
+		{
+			final RandomAccessibleInterval< FloatType > image =
+					Views.translate( createRandomImage( DIMENSIONS[ i ], i ), TRANSLATIONS[ i ] );
+			final double[] center = new double[ image.numDimensions() ];
+
+			for ( double maxDistance : new double[]{ 1.0, 2.5, 10.0 } )
+			{
+				final Profile profile = Utils.computeRadialProfile( image, center, spacing, maxDistance );
+				final double[] expected = computeFormerRadialProfile( image, center, spacing, maxDistance );
+
+				Assert.assertArrayEquals( expected, profile.valuesAsArray(), TOLERANCE );
+				for ( int bin = 0; bin < profile.size(); bin++ )
+					Assert.assertEquals( bin * spacing, profile.coordinate( bin ), 0 );
+			}
+		}
+	}
+
+	/**
+	 * The former loop of Utils.computeRadialProfile, which localized the cursor before advancing it.
+	 */
+	private static < T extends RealType< T > > double[] computeFormerRadialProfile(
+			RandomAccessibleInterval< T > image,
+			double[] center,
+			double spacing,
+			double maxDistanceInMicrometer )
+	{
+		final Cursor< T > cursor = Views.iterable( image ).cursor();
+		final double[] position = new double[ image.numDimensions() ];
+
+		int maxBin = ( int ) ( maxDistanceInMicrometer / spacing );
+		double[] counts = new double[ maxBin ];
+		double[] values = new double[ maxBin ];
+
+		while ( cursor.hasNext() )
+		{
+			cursor.localize( position );
+			final double distance = LinAlgHelpers.distance( center, position ) * spacing;
+			final double value = cursor.next().getRealDouble();
+
+			final int bin = ( int ) ( distance / spacing );
+			if ( bin < maxBin )
+			{
+				counts[ bin ] += 1;
+				values[ bin ] += value;
+			}
+		}
+
+		final double[] means = new double[ maxBin ];
+		for ( int bin = 0; bin < maxBin; bin++ )
+			means[ bin ] = values[ bin ] / counts[ bin ];
+		return means;
+	}
+
+	/**
+	 * The loop of Utils.computeRadialProfile, which visited all pixels, at the actual pixel positions.
+	 */
+	private static double[] computeMeans( RandomAccessibleInterval< FloatType > image, double[] center, double binWidth, int numBins )
+	{
+		final int n = image.numDimensions();
+		final double[] sums = new double[ numBins ];
+		final long[] counts = new long[ numBins ];
+
+		final Cursor< FloatType > cursor = Views.iterable( image ).localizingCursor();
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+
+			// the distance across the rows first, as summed by RadialProfiles, such that the bins agree exactly
+			double rowSquaredDistance = 0;
+			for ( int d = 1; d < n; d++ )
+			{
+				final double delta = cursor.getDoublePosition( d ) - center[ d ];
+				rowSquaredDistance += delta * delta;
+			}
+			final double dx = cursor.getDoublePosition( 0 ) - center[ 0 ];
+
+			final int bin = ( int ) ( Math.sqrt( dx * dx + rowSquaredDistance ) / binWidth );
+			if ( bin < numBins )
+			{
+				sums[ bin ] += cursor.get().getRealDouble();
+				counts[ bin ]++;
+			}
+		}
+
+		final double[] means = new double[ numBins ];
+		for ( int bin = 0; bin < numBins; bin++ )
+			means[ bin ] = sums[ bin ] / counts[ bin ];
+		return means;
+	}
+
+	private static ArrayImg< FloatType, FloatArray > createRandomImage( long[] dimensions, long seed )
+	{
+		final ArrayImg< FloatType, FloatArray > image = ArrayImgs.floats( dimensions );
+		final Random random = new Random( seed );
+		for ( FloatType value : image )
+			value.set( random.nextFloat() );
+		return image;
+	}
+}
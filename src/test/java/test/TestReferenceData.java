@@ -76,7 +76,6 @@ public class TestReferenceData
 		addReference( imageToMeasurements, "NikonSD_100x_R1EmESC_01", 7.141428, 7.000000, 43.269730 );
 
 		final Spindle3DFileProcessorCommand command = new Spindle3DFileProcessorCommand();
-		command.opService = ij.op();
 		command.scriptService = ij.script();
 		command.outputDirectory = new File( "src/test/resources/test/output" );
 		command.dnaChannelIndexOneBased = 1;
@@ -0,0 +1,111 @@
+package test;
+
+import de.embl.cba.spindle3d.util.Parallel;
+import de.embl.cba.spindle3d.util.Resampler;
+import de.embl.cba.spindle3d.util.Utils;
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Compares the fused rescaling with {@link Utils#createRescaledArrayImg},
+ * which blurs the whole image first and then interpolates at the output grid positions.
+ */
+public class TestResampler
+{
+	private static final long[] DIMENSIONS = { 37, 29, 11 };
+	private static final long[] TRANSLATION = { 4, -6, 2 };
+	private static final double[][] SCALING_FACTORS = { { 0.5, 0.5, 0.5 }, { 0.25, 0.3, 1 }, { 0.4, 0.4, 1.6 }, { 1, 1, 1 } };
+
+	public static void main( String[] args )
+	{
+		new TestResampler().test();
+	}
+
+	@Test
+	public void test()
+	{
+		final ExecutorService executorService = Parallel.createExecutorService( 3 );
+
+		final RandomAccessibleInterval< FloatType > image = Views.translate( ArrayImgs.floats( DIMENSIONS ), TRANSLATION );
+		final Random random = new Random( 42 );
+		for ( FloatType value : Views.iterable( image ) )
+			value.set( 1000 * random.nextFloat() );
+
+		for ( double[] scalingFactors : SCALING_FACTORS )
+		{
+			final RandomAccessibleInterval< FloatType > rescaled = Resampler.createRescaledArrayImg( image, scalingFactors );
+
+			// the blurred image was stored as float before, and the weights are stored as float now
+			assertSameValues( Utils.createRescaledArrayImg( image, scalingFactors ), rescaled, 1E-2 );
+			assertSameValues( rescaled, Resampler.createRescaledArrayImg( image, scalingFactors, executorService ), 0 );
+
+			// a part of the output has the values of the full output
+			final long[] min = Intervals.minAsLongArray( rescaled );
+			final long[] max = Intervals.maxAsLongArray( rescaled );
+			min[ 0 ] += 2;
+			max[ 1 ] -= 3;
+			min[ 2 ] = max[ 2 ] = ( min[ 2 ] + max[ 2 ] ) / 2;
+			final FinalInterval part = new FinalInterval( min, max );
+			assertSameValues( Views.interval( rescaled, part ), Resampler.createRescaledArrayImg( image, scalingFactors, part, executorService ), 0 );
+		}
+
+		executorService.shutdown();
+	}
+
+	@Test
+	public void roundsIntegerTypes()
+	{
+		final RandomAccessibleInterval< UnsignedByteType > image = ArrayImgs.unsignedBytes( DIMENSIONS );
+		final Random random = new Random( 7 );
+		for ( UnsignedByteType value : Views.iterable( image ) )
+			value.set( random.nextInt( 256 ) );
+
+		for ( double[] scalingFactors : SCALING_FACTORS )
+		{
+			// before, the blurred values were rounded, and then again the interpolated values
+			assertSameValues(
+					Utils.createRescaledArrayImg( image, scalingFactors ),
+					Resampler.createRescaledArrayImg( image, scalingFactors ), 1 );
+		}
+	}
+
+	@Test( expected = UnsupportedOperationException.class )
+	public void rejectsTwoDimensionalImages()
+	{
+		Resampler.createRescaledArrayImg( ArrayImgs.floats( 10, 10 ), new double[]{ 0.5, 0.5 } );
+	}
+
+	private static < T extends RealType< T > & NativeType< T > > void assertSameValues(
+			RandomAccessibleInterval< T > expected,
+			RandomAccessibleInterval< T > actual,
+			double tolerance )
+	{
+		Assert.assertArrayEquals( Intervals.minAsLongArray( expected ), Intervals.minAsLongArray( actual ) );
+		Assert.assertArrayEquals( Intervals.maxAsLongArray( expected ), Intervals.maxAsLongArray( actual ) );
+
+		final Cursor< T > cursor = Views.iterable( expected ).localizingCursor();
+		final RandomAccess< T > access = actual.randomAccess();
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			access.setPosition( cursor );
+			Assert.assertEquals( "at " + Util.printCoordinates( cursor ),
+					cursor.get().getRealDouble(), access.get().getRealDouble(), tolerance );
+		}
+	}
+}
@@ -0,0 +1,235 @@
+package test;
+
+import de.embl.cba.spindle3d.util.Parallel;
+import de.embl.cba.spindle3d.util.RunLengthMask;
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.IntArray;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BinaryOperator;
+
+/**
+ * Compares the run length encoded masks with the dense masks that they encode.
+ */
+public class TestRunLengthMask
+{
+	private static final long[][] DIMENSIONS = { { 70 }, { 13, 9 }, { 67, 5, 4 }, { 1, 3, 2 } };
+	private static final long[][] TRANSLATIONS = { { -3 }, { 2, -5 }, { 4, 0, -2 }, { 0, 1, 1 } };
+
+	public static void main( String[] args )
+	{
+		new TestRunLengthMask().test();
+	}
+
+	@Test
+	public void test()
+	{
+		final ExecutorService executorService = Parallel.createExecutorService( 3 );
+
+		for ( int i = 0; i < DIMENSIONS.length; i++ )
+		{
+			for ( double density : new double[]{ 0, 0.1, 0.5, 0.9, 1 } )
+			{
+				final RandomAccessibleInterval< BitType > mask = Views.translate(
+						TestConnectedRegions.createRandomVoxels( DIMENSIONS[ i ], density, i ), TRANSLATIONS[ i ] );
+
+				final RunLengthMask runLengthMask = RunLengthMask.of( mask );
+				TestConnectedRegions.assertSameMask( mask, runLengthMask );
+				TestConnectedRegions.assertSameMask( mask, RunLengthMask.of( mask, executorService ) );
+				TestConnectedRegions.assertSameMask( mask, decode( runLengthMask ) );
+				Assert.assertSame( runLengthMask, RunLengthMask.of( runLengthMask ) );
+
+				Assert.assertEquals( countForeground( mask ), runLengthMask.numForegroundVoxels() );
+				assertSameInterval( foregroundBoundingInterval( mask ), runLengthMask.foregroundBoundingInterval() );
+				assertOutsideIsBackground( runLengthMask );
+			}
+		}
+
+		executorService.shutdown();
+	}
+
+	@Test
+	public void combinesMasks()
+	{
+		for ( int i = 0; i < DIMENSIONS.length; i++ )
+		{
+			for ( long seed = 0; seed < 5; seed++ )
+			{
+				final RandomAccessibleInterval< BitType > a = Views.translate(
+						TestConnectedRegions.createRandomVoxels( DIMENSIONS[ i ], 0.4, seed ), TRANSLATIONS[ i ] );
+				final RandomAccessibleInterval< BitType > b = Views.translate(
+						TestConnectedRegions.createRandomBoxes( DIMENSIONS[ i ], 4, seed + 100 ), TRANSLATIONS[ i ] );
+
+				final RunLengthMask runLengthA = RunLengthMask.of( a );
+				final RunLengthMask runLengthB = RunLengthMask.of( b );
+
+				TestConnectedRegions.assertSameMask( combine( a, b, ( x, y ) -> x && y ), runLengthA.and( runLengthB ) );
+				TestConnectedRegions.assertSameMask( combine( a, b, ( x, y ) -> x || y ), runLengthA.or( runLengthB ) );
+				TestConnectedRegions.assertSameMask( combine( a, b, ( x, y ) -> x && ! y ), runLengthA.andNot( runLengthB ) );
+				TestConnectedRegions.assertSameMask( combine( b, a, ( x, y ) -> x && ! y ), runLengthB.andNot( runLengthA ) );
+
+				// the combined masks are valid encodings, also for further operations
+				final RunLengthMask union = runLengthA.or( runLengthB );
+				Assert.assertEquals( countForeground( union ), union.numForegroundVoxels() );
+				TestConnectedRegions.assertSameMask( union, decode( union ) );
+				TestConnectedRegions.assertSameMask( a, union.and( runLengthA ) );
+			}
+		}
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void rejectsDifferentIntervals()
+	{
+		final RunLengthMask mask = RunLengthMask.of( ArrayImgs.bits( 5, 4 ) );
+		mask.and( RunLengthMask.of( Views.translate( ArrayImgs.bits( 5, 4 ), 1, 0 ) ) );
+	}
+
+	@Test
+	public void visitsForegroundValuesWithinTheImage()
+	{
+		final RandomAccessibleInterval< BitType > mask = Views.translate(
+				TestConnectedRegions.createRandomVoxels( DIMENSIONS[ 2 ], 0.5, 7 ), TRANSLATIONS[ 2 ] );
+
+		// an image with the flat index of each voxel, which only partly overlaps with the mask
+		final ArrayImg< IntType, IntArray > image = ArrayImgs.ints( 60, 4, 5 );
+		int index = 0;
+		for ( IntType value : image )
+			value.set( index++ );
+		final RandomAccessibleInterval< IntType > translatedImage = Views.translate( image, 10, 1, -3 );
+
+		final List< Integer > expected = new ArrayList<>();
+		final Cursor< BitType > cursor = Views.flatIterable( mask ).localizingCursor();
+		final RandomAccess< IntType > access = translatedImage.randomAccess();
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			if ( cursor.get().get() && Intervals.contains( translatedImage, cursor ) )
+			{
+				access.setPosition( cursor );
+				expected.add( access.get().get() );
+			}
+		}
+
+		final List< Integer > actual = new ArrayList<>();
+		RunLengthMask.of( mask ).forEachForegroundValue( translatedImage, value -> actual.add( value.get() ) );
+
+		Assert.assertFalse( expected.isEmpty() );
+		Assert.assertEquals( expected, actual );
+	}
+
+	/**
+	 * @return the mask that consists of the runs
+	 */
+	private static RandomAccessibleInterval< BitType > decode( RunLengthMask runLengthMask )
+	{
+		final RandomAccessibleInterval< BitType > mask = Views.translate(
+				ArrayImgs.bits( Intervals.dimensionsAsLongArray( runLengthMask ) ), Intervals.minAsLongArray( runLengthMask ) );
+		final RandomAccess< BitType > access = mask.randomAccess();
+
+		runLengthMask.forEachRun( ( start, length ) ->
+		{
+			Assert.assertTrue( length > 0 );
+			access.setPosition( start );
+			for ( int i = 0; i < length; i++ )
+			{
+				Assert.assertFalse( "overlapping runs", access.get().get() );
+				access.get().set( true );
+				access.fwd( 0 );
+			}
+		} );
+
+		return mask;
+	}
+
+	private static RandomAccessibleInterval< BitType > combine(
+			RandomAccessibleInterval< BitType > a,
+			RandomAccessibleInterval< BitType > b,
+			BinaryOperator< Boolean > operation )
+	{
+		final ArrayImg< BitType, LongArray > combined = ArrayImgs.bits( Intervals.dimensionsAsLongArray( a ) );
+		final Cursor< BitType > aCursor = Views.flatIterable( a ).cursor();
+		final Cursor< BitType > bCursor = Views.flatIterable( b ).cursor();
+		for ( BitType value : combined )
+			value.set( operation.apply( aCursor.next().get(), bCursor.next().get() ) );
+
+		return Views.translate( combined, Intervals.minAsLongArray( a ) );
+	}
+
+	private static long countForeground( RandomAccessibleInterval< BitType > mask )
+	{
+		long count = 0;
+		for ( BitType value : Views.iterable( mask ) )
+			if ( value.get() ) count++;
+		return count;
+	}
+
+	private static FinalInterval foregroundBoundingInterval( RandomAccessibleInterval< BitType > mask )
+	{
+		final int n = mask.numDimensions();
+		final long[] min = new long[ n ];
+		final long[] max = new long[ n ];
+		Arrays.fill( min, Long.MAX_VALUE );
+		Arrays.fill( max, Long.MIN_VALUE );
+
+		boolean isEmpty = true;
+		final Cursor< BitType > cursor = Views.iterable( mask ).localizingCursor();
+		while ( cursor.hasNext() )
+		{
+			if ( ! cursor.next().get() ) continue;
+
+			isEmpty = false;
+			for ( int d = 0; d < n; d++ )
+			{
+				min[ d ] = Math.min( min[ d ], cursor.getLongPosition( d ) );
+				max[ d ] = Math.max( max[ d ], cursor.getLongPosition( d ) );
+			}
+		}
+
+		return isEmpty ? null : new FinalInterval( min, max );
+	}
+
+	private static void assertSameInterval( FinalInterval expected, FinalInterval actual )
+	{
+		if ( expected == null )
+		{
+			Assert.assertNull( actual );
+			return;
+		}
+
+		Assert.assertArrayEquals( Intervals.minAsLongArray( expected ), Intervals.minAsLongArray( actual ) );
+		Assert.assertArrayEquals( Intervals.maxAsLongArray( expected ), Intervals.maxAsLongArray( actual ) );
+	}
+
+	/**
+	 * Voxels just outside of the interval of the mask are background.
+	 */
+	private static void assertOutsideIsBackground( RunLengthMask mask )
+	{
+		final RandomAccess< BitType > access = mask.randomAccess();
+		for ( int d = 0; d < mask.numDimensions(); d++ )
+		{
+			access.setPosition( Intervals.minAsLongArray( mask ) );
+			access.setPosition( mask.min( d ) - 1, d );
+			Assert.assertFalse( access.get().get() );
+
+			access.setPosition( Intervals.maxAsLongArray( mask ) );
+			access.setPosition( mask.max( d ) + 1, d );
+			Assert.assertFalse( access.get().get() );
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package test;
+
+import de.embl.cba.spindle3d.util.Parallel;
+import de.embl.cba.spindle3d.util.SurfaceArea;
+import ij.IJ;
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.process.ByteProcessor;
+import ij.process.ImageProcessor;
+import mcib3d.geom.Object3DVoxels;
+import mcib3d.geom.Objects3DPopulation;
+import mcib3d.image3d.ImageByte;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.LongArray;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.view.Views;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Compares the Crofton surface area estimates of digital balls with their true area,
+ * and, on a cell mask, with the corrected pixel area of the 3D ImageSuite, which was measured before.
+ */
+public class TestSurfaceArea
+{
+	private static final String CELL_MASK_PATH = "src/test/resources/test/with-cell-mask/20190227_HighZoom--W0000--P0001-T0004--0001_CellMask.tif";
+
+	public static void main( String[] args )
+	{
+		new TestSurfaceArea().test();
+	}
+
+	@Test
+	public void test()
+	{
+		final ExecutorService executorService = Parallel.createExecutorService( 3 );
+
+		for ( int radius : new int[]{ 10, 15, 20 } )
+		{
+			final double trueArea = 4 * Math.PI * radius * radius;
+
+			for ( double[] center : new double[][]{ { 0, 0, 0 }, { 0.3, 0.1, 0.2 } } )
+			{
+				final RandomAccessibleInterval< BitType > ball = createEllipsoid( new double[]{ radius, radius, radius }, center );
+
+				final double area = SurfaceArea.measure( ball, new double[]{ 1, 1, 1 }, null );
+				Assert.assertEquals( trueArea, area, 0.01 * trueArea );
+
+				Assert.assertEquals( area, SurfaceArea.measure( ball, new double[]{ 1, 1, 1 }, executorService ), 1E-9 * area );
+				Assert.assertEquals( 0.25 * area, SurfaceArea.measure( ball, new double[]{ 0.5, 0.5, 0.5 }, null ), 1E-9 * area );
+			}
+		}
+
+		executorService.shutdown();
+	}
+
+	@Test
+	public void treatsTheOutsideAsBackground()
+	{
+		final ArrayImg< BitType, LongArray > box = ArrayImgs.bits( 10, 8, 6 );
+		for ( BitType bit : box )
+			bit.set( true );
+
+		final ArrayImg< BitType, LongArray > paddedBox = ArrayImgs.bits( 14, 12, 10 );
+		final RandomAccess< BitType > access = Views.translate( paddedBox, -2, -2, -2 ).randomAccess();
+		final Cursor< BitType > cursor = box.localizingCursor();
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			access.setPosition( cursor );
+			access.get().set( true );
+		}
+
+		final double area = SurfaceArea.measure( box, new double[]{ 1, 1, 1 }, null );
+		Assert.assertEquals( area, SurfaceArea.measure( paddedBox, new double[]{ 1, 1, 1 }, null ), 1E-9 * area );
+		Assert.assertEquals( area, SurfaceArea.measure( Views.translate( box, 5, -3, 7 ), new double[]{ 1, 1, 1 }, null ), 1E-9 * area );
+		Assert.assertEquals( 0, SurfaceArea.measure( ArrayImgs.bits( 4, 4, 4 ), new double[]{ 1, 1, 1 }, null ), 0 );
+	}
+
+	/**
+	 * The exported cell surface changed from the corrected pixel area of the 3D ImageSuite to the Crofton estimate.
+	 * On the cell mask of {@link TestWithCellMask}, which is already at the voxel size for analysis,
+	 * the 3D ImageSuite area is the one in test/output/measurements.txt, and the Crofton estimate is 17 % smaller.
+	 */
+	@Test
+	public void measuresTheCellMaskOfTheReferenceImage()
+	{
+		final ImagePlus imagePlus = IJ.openImage( CELL_MASK_PATH );
+		final ImageStack stack = imagePlus.getStack();
+		final ArrayImg< BitType, LongArray > mask = ArrayImgs.bits( stack.getWidth(), stack.getHeight(), stack.getSize() );
+		final Cursor< BitType > cursor = mask.cursor();
+		for ( int z = 1; z <= stack.getSize(); z++ )
+		{
+			final ImageProcessor processor = stack.getProcessor( z );
+			for ( int i = 0; i < stack.getWidth() * stack.getHeight(); i++ )
+				cursor.next().set( processor.getf( i ) > 0.5 );
+		}
+
+		final double voxelSize = 0.25;
+		Assert.assertEquals( 1089.1375, measureImageSuiteArea( mask ) * voxelSize * voxelSize, 0.01 );
+		Assert.assertEquals( 899.706, SurfaceArea.measure( mask, new double[]{ voxelSize, voxelSize, voxelSize }, null ), 0.01 );
+	}
+
+	/**
+	 * The surface measurement of Spindle3DMorphometry before the Crofton estimate.
+	 */
+	private static double measureImageSuiteArea( RandomAccessibleInterval< BitType > mask )
+	{
+		final int width = (int) mask.dimension( 0 );
+		final int height = (int) mask.dimension( 1 );
+		final ImageStack stack = new ImageStack( width, height );
+		for ( long z = mask.min( 2 ); z <= mask.max( 2 ); z++ )
+		{
+			final ByteProcessor processor = new ByteProcessor( width, height );
+			final Cursor< BitType > cursor = Views.flatIterable( Views.hyperSlice( mask, 2, z ) ).cursor();
+			for ( int i = 0; i < width * height; i++ )
+				if ( cursor.next().get() )
+					processor.set( i % width, i / width, 255 );
+			stack.addSlice( processor );
+		}
+
+		final ImageByte imageByte = new ImageByte( new ImagePlus( "", stack ) );
+		final Objects3DPopulation objects3DPopulation = new Objects3DPopulation( imageByte, 0 );
+		return ( ( Object3DVoxels ) objects3DPopulation.getObject( 0 ) ).getAreaPixelsCorrected();
+	}
+
+	private static RandomAccessibleInterval< BitType > createEllipsoid( double[] semiAxes, double[] center )
+	{
+		final long[] min = new long[ 3 ];
+		final long[] dimensions = new long[ 3 ];
+		for ( int d = 0; d < 3; d++ )
+		{
+			min[ d ] = - (long) Math.ceil( semiAxes[ d ] ) - 2;
+			dimensions[ d ] = - 2 * min[ d ] + 1;
+		}
+
+		final RandomAccessibleInterval< BitType > ellipsoid = Views.translate( ArrayImgs.bits( dimensions ), min );
+		final Cursor< BitType > cursor = Views.iterable( ellipsoid ).localizingCursor();
+		while ( cursor.hasNext() )
+		{
+			cursor.fwd();
+			double sum = 0;
+			for ( int d = 0; d < 3; d++ )
+			{
+				final double x = ( cursor.getDoublePosition( d ) - center[ d ] ) / semiAxes[ d ];
+				sum += x * x;
+			}
+			cursor.get().set( sum <= 1 );
+		}
+
+		return ellipsoid;
+	}
+}
@@ -26,7 +26,6 @@ public class TestWithCellMask
 		//ij.ui().showUI();
 
 		final Spindle3DFileProcessorCommand command = new Spindle3DFileProcessorCommand();
-		command.opService = ij.op();
 		command.scriptService = ij.script();
 
 		// Spindle touching objects
@@ -44,7 +43,8 @@ public class TestWithCellMask
 		final Double surface = (Double) measured.get( Spindle3DMeasurements.getCellSurfaceMeasurementName() );
 		final Double volume = (Double) measured.get( Spindle3DMeasurements.getCellVolumeMeasurementName() );
 
-		Assert.assertEquals( surface, 1000, 150 );
+		// Crofton estimate; the corrected pixel area of the 3D ImageSuite was 1089.14
+		Assert.assertEquals( surface, 899.71, 0.1 );
 		Assert.assertEquals( volume, 2488, 50 );
 	}
 }
@@ -22,7 +22,6 @@ public class TestWithSpindlePoleROIs
 		final ImageJ ij = new ImageJ();
 
 		final Spindle3DFileProcessorCommand command = new Spindle3DFileProcessorCommand();
-		command.opService = ij.op();
 		command.scriptService = ij.script();
 
 		// Spindle touching objects